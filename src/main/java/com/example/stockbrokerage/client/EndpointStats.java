@@ -0,0 +1,115 @@
+package com.example.stockbrokerage.client;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolling latency and success statistics per upstream endpoint, used by {@link HedgedFetcher}
+ * to order the endpoints and to decide when to start the next one.
+ *
+ * Design decisions:
+ *  - The last {@link #WINDOW} latencies per endpoint are kept in a ring buffer and the p90 is
+ *    computed on read by sorting a copy; for a handful of endpoints read once per lookup that
+ *    is cheaper than maintaining a histogram.
+ *  - Success is an exponentially weighted rate, so an endpoint that starts failing drops
+ *    within a few dozen calls and recovers as quickly once it answers again.
+ *  - Ranking is by expected cost, p90 / success rate, lowest first. Endpoints without samples
+ *    count as {@code defaultLatencyMillis} with full success; ties keep the given order.
+ *  - Thread-safe; each endpoint's window has its own lock.
+ */
+final class EndpointStats {
+
+    static final int WINDOW = 128;
+
+    private static final double ALPHA = 0.1;
+    private static final double MIN_SUCCESS_RATE = 0.05;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final long defaultLatencyNanos;
+
+    EndpointStats(long defaultLatencyMillis) {
+        this.defaultLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, defaultLatencyMillis));
+    }
+
+    void recordSuccess(String endpoint, long nanos) {
+        window(endpoint).record(nanos, 1.0);
+    }
+
+    void recordFailure(String endpoint, long nanos) {
+        window(endpoint).record(nanos, 0.0);
+    }
+
+    /**
+     * An attempt given up on because another endpoint answered first. Its elapsed time is a
+     * lower bound of its latency and is kept so a slow endpoint stays slow in the p90; it is
+     * not counted as a failure.
+     */
+    void recordAbandoned(String endpoint, long nanos) {
+        window(endpoint).record(nanos, Double.NaN);
+    }
+
+    /** p90 latency of {@code endpoint}, or the default latency before its first sample. */
+    long p90Millis(String endpoint) {
+        return TimeUnit.NANOSECONDS.toMillis(p90Nanos(endpoint));
+    }
+
+    double successRate(String endpoint) {
+        Window window = windows.get(endpoint);
+        return window != null ? window.successRate() : 1.0;
+    }
+
+    /** {@code endpoints} ordered by expected cost, cheapest first. */
+    List<String> rank(List<String> endpoints) {
+        Map<String, Double> cost = new HashMap<>();
+        for (String endpoint : endpoints) {
+            cost.put(endpoint, p90Nanos(endpoint) / Math.max(MIN_SUCCESS_RATE, successRate(endpoint)));
+        }
+        return endpoints.stream().sorted(Comparator.comparingDouble(cost::get)).toList();
+    }
+
+    private long p90Nanos(String endpoint) {
+        Window window = windows.get(endpoint);
+        long p90 = window != null ? window.p90Nanos() : -1;
+        return p90 >= 0 ? p90 : defaultLatencyNanos;
+    }
+
+    private Window window(String endpoint) {
+        return windows.computeIfAbsent(endpoint, e -> new Window());
+    }
+
+    private static final class Window {
+
+        private final long[] latencies = new long[WINDOW];
+        private int count;
+        private int next;
+        private double successRate = 1.0;
+
+        /** {@code outcome} is 1 for a success, 0 for a failure, NaN for neither. */
+        synchronized void record(long nanos, double outcome) {
+            latencies[next] = nanos;
+            next = (next + 1) % WINDOW;
+            count = Math.min(count + 1, WINDOW);
+            if (!Double.isNaN(outcome)) {
+                successRate += ALPHA * (outcome - successRate);
+            }
+        }
+
+        synchronized long p90Nanos() {
+            if (count == 0) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(0.9 * count) - 1];
+        }
+
+        synchronized double successRate() {
+            return successRate;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.stockbrokerage.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Looks a price up on several equivalent endpoints with hedged requests: the best ranked
+ * endpoint is called first, and the next one is started alongside it whenever the latest one
+ * has not answered within its own p90 latency, or straight away when it fails. The first
+ * positive price wins and the attempts still running are cancelled.
+ *
+ * Design decisions:
+ *  - Endpoint order and hedge delays come from {@link EndpointStats}, so a slow or failing
+ *    endpoint moves down the order by itself and moves back up once it recovers. The delay is
+ *    never below {@code minHedgeDelayMillis}, so a fast p90 cannot fire every endpoint at once.
+ *  - Endpoints are asynchronous and so is {@link #fetchAsync}: no thread waits on a lookup.
+ *    It completes with zero when no endpoint priced the symbol within {@code timeoutMillis}.
+ *  - Metrics: {@code prices.yahoo.hedges} (endpoints started before the previous one
+ *    answered or after it failed), and per endpoint the gauges {@code prices.yahoo.endpoint.p90}
+ *    and {@code prices.yahoo.endpoint.success-rate}.
+ *  - An attempt refused locally ({@link RejectedExecutionException}, e.g. too many requests in
+ *    flight) hands over like a failure but is left out of the statistics: it says nothing about
+ *    the endpoint, and its near-zero latency would drag the p90 down.
+ *  - Thread-safe; one {@link Attempts} per lookup holds all of its mutable state.
+ */
+@Slf4j
+final class HedgedFetcher {
+
+    /**
+     * One way of pricing a symbol; completes with zero or null, or fails, when it has none. It
+     * fails with {@link RejectedExecutionException} when it was refused locally without reaching
+     * the endpoint.
+     */
+    record Endpoint(String name, Function<String, CompletableFuture<BigDecimal>> fetch) {
+    }
+
+    private final Map<String, Endpoint> endpoints;
+    private final List<String> names;
+    private final EndpointStats stats;
+    private final long minHedgeDelayMillis;
+    private final long timeoutMillis;
+    private final Counter hedges;
+
+    HedgedFetcher(List<Endpoint> endpoints, EndpointStats stats, MeterRegistry meterRegistry,
+                  long minHedgeDelayMillis, long timeoutMillis) {
+        this.endpoints = endpoints.stream().collect(Collectors.toMap(Endpoint::name, e -> e));
+        this.names = endpoints.stream().map(Endpoint::name).toList();
+        this.stats = stats;
+        this.minHedgeDelayMillis = Math.max(1, minHedgeDelayMillis);
+        this.timeoutMillis = timeoutMillis;
+        this.hedges = Counter.builder("prices.yahoo.hedges")
+                .description("Price endpoints started because the previous one was slow or failed")
+                .register(meterRegistry);
+        for (String name : names) {
+            Gauge.builder("prices.yahoo.endpoint.p90", stats, s -> s.p90Millis(name))
+                    .tag("endpoint", name)
+                    .description("p90 latency of the price endpoint over its recent calls")
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("prices.yahoo.endpoint.success-rate", stats, s -> s.successRate(name))
+                    .tag("endpoint", name)
+                    .description("Recent share of calls to the price endpoint that returned a price")
+                    .register(meterRegistry);
+        }
+    }
+
+    /** Completes with the first positive price any endpoint finds, or zero; never fails. */
+    CompletableFuture<BigDecimal> fetchAsync(String symbol) {
+        Attempts attempts = new Attempts(symbol, stats.rank(names));
+        attempts.launchNext(0);
+        return attempts.result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    log.warn("No Yahoo Finance endpoint priced {} within {} ms", symbol, timeoutMillis);
+                    return BigDecimal.ZERO;
+                })
+                .whenComplete((price, error) -> attempts.cancelRunning());
+    }
+
+    /** {@link #fetchAsync}, waiting for the result. */
+    BigDecimal fetch(String symbol) {
+        return fetchAsync(symbol).join();
+    }
+
+    private static boolean isPrice(BigDecimal price) {
+        return price != null && price.signum() > 0;
+    }
+
+    private static boolean isLocalRejection(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof RejectedExecutionException;
+    }
+
+    /** The attempts of one lookup, started in {@code order}. */
+    private final class Attempts {
+
+        private static final int ANY = -1;
+
+        final CompletableFuture<BigDecimal> result = new CompletableFuture<>();
+        private final String symbol;
+        private final List<String> order;
+        private final List<CompletableFuture<BigDecimal>> running = new ArrayList<>();
+        private int launched;
+        private int finished;
+
+        Attempts(String symbol, List<String> order) {
+            this.symbol = symbol;
+            this.order = order;
+        }
+
+        /**
+         * Starts the next endpoint, unless the lookup is over or, when {@code expected} is not
+         * {@link #ANY}, another endpoint has been started since the caller looked.
+         */
+        void launchNext(int expected) {
+            int index;
+            synchronized (this) {
+                if (result.isDone() || launched == order.size() || (expected != ANY && launched != expected)) {
+                    return;
+                }
+                index = launched++;
+            }
+            if (index > 0) {
+                hedges.increment();
+            }
+            String name = order.get(index);
+            long start = System.nanoTime();
+            CompletableFuture<BigDecimal> attempt;
+            try {
+                attempt = endpoints.get(name).fetch().apply(symbol);
+            } catch (RuntimeException e) {
+                attempt = CompletableFuture.failedFuture(e);
+            }
+            synchronized (this) {
+                running.add(attempt);
+            }
+            attempt.whenComplete((price, error) -> finished(name, System.nanoTime() - start, price, error));
+
+            long delay = Math.max(minHedgeDelayMillis, stats.p90Millis(name));
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> launchNext(index + 1));
+        }
+
+        private void finished(String name, long nanos, BigDecimal price, Throwable error) {
+            if (isLocalRejection(error)) {
+                log.debug("{} refused locally for {}: {}", name, symbol, error.getMessage());
+                launchNext(ANY);
+            } else if (isPrice(price)) {
+                stats.recordSuccess(name, nanos);
+                if (result.complete(price) && order.indexOf(name) > 0) {
+                    log.debug("{} answered first for {} after {} ms", name, symbol, TimeUnit.NANOSECONDS.toMillis(nanos));
+                }
+            } else if (result.isDone()) {
+                stats.recordAbandoned(name, nanos);
+            } else {
+                stats.recordFailure(name, nanos);
+                launchNext(ANY);
+            }
+            boolean allFailed;
+            synchronized (this) {
+                allFailed = ++finished == order.size();
+            }
+            if (allFailed) {
+                result.complete(BigDecimal.ZERO);
+            }
+        }
+
+        /** Ends the lookup; attempts still running count as abandoned, not failed. */
+        void cancelRunning() {
+            result.complete(BigDecimal.ZERO);
+            List<CompletableFuture<BigDecimal>> toCancel;
+            synchronized (this) {
+                toCancel = List.copyOf(running);
+            }
+            toCancel.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+}
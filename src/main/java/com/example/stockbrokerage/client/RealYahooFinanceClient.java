@@ -1,22 +1,71 @@
 package com.example.stockbrokerage.client;
 
+import com.example.stockbrokerage.jfr.PriceFetchEvent;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
-import org.springframework.http.*;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Live implementation of {@link YahooFinanceClient} that calls the public Yahoo Finance
  * endpoints.  Active in every Spring profile <em>except</em> {@code test}.
+ * Every endpoint attempt is recorded as a JFR {@link PriceFetchEvent}.
+ * Multi-symbol lookups use the comma-separated {@code symbols} parameter of the quote
+ * endpoints, {@code prices.yahoo.batch-size} symbols per request. Symbols neither quote
+ * endpoint priced fall back to v8/chart one symbol at a time, at most
+ * {@code prices.yahoo.chart-concurrency} at once across all lookups; the rest wait their turn.
+ * Single-symbol lookups hedge across v7/quote, v8/chart and v6/quote through a
+ * {@link HedgedFetcher} instead of trying them one after another.
+ *
+ * HTTP:
+ *  - One shared {@link HttpClient}: HTTP/2 where the server offers it, pooled keep-alive
+ *    connections otherwise, and a small {@code yahoo-http} pool of
+ *    {@code prices.yahoo.http.threads} threads for response handling. Requests are sent
+ *    asynchronously, so no thread is held while Yahoo is answering.
+ *  - Connect and request timeouts ({@code prices.yahoo.http.*}) on every call, so a hung
+ *    upstream fails the request rather than waiting forever.
+ *  - At most {@code prices.yahoo.http.max-concurrent} requests in flight. Past that a request
+ *    fails at once instead of queuing, which callers handle like any other upstream failure.
+ *  - Cancelling a returned future aborts its HTTP exchange.
+ *  - Responses are read into a Jackson tree; only the fields used are looked at.
+ *  - Metrics: {@code prices.yahoo.rejected}, gauge {@code prices.yahoo.in-flight} and gauge
+ *    {@code prices.yahoo.chart-fallback.queued}.
  */
 @Component
 @Profile("!test")
@@ -26,15 +75,64 @@ public class RealYahooFinanceClient implements YahooFinanceClient {
     private static final String USER_AGENT =
             "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36";
 
-    private final RestTemplate restTemplate;
+    private static final String V7_QUOTE_URL = "https://query1.finance.yahoo.com/v7/finance/quote?symbols=%s";
+    private static final String V6_QUOTE_URL = "https://query2.finance.yahoo.com/v6/finance/quote?symbols=%s";
+    private static final String CHART_URL = "https://query1.finance.yahoo.com/v8/finance/chart/%s?interval=1d&range=1d";
+    // 5-min bars, 60-day range — ~4 680 bars (free, no API key)
+    private static final String HISTORY_URL = "https://query1.finance.yahoo.com/v8/finance/chart/%s?interval=5m&range=60d";
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int batchSize;
+    private final ExecutorService httpPool;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final Counter rejected;
+    private final int chartConcurrency;
+    private final Queue<QueuedChart> chartBacklog = new ArrayDeque<>();
+    private int chartsRunning;
+    private final HedgedFetcher hedgedFetcher;
 
-    public RealYahooFinanceClient() {
-        this.restTemplate = new RestTemplate();
-        this.restTemplate.getInterceptors().add((request, body, execution) -> {
-            request.getHeaders().add("User-Agent", USER_AGENT);
-            return execution.execute(request, body);
-        });
+    public RealYahooFinanceClient(MeterRegistry meterRegistry,
+                                  @Value("${prices.yahoo.batch-size:50}") int batchSize,
+                                  @Value("${prices.yahoo.http.connect-timeout-ms:2000}") long connectTimeoutMillis,
+                                  @Value("${prices.yahoo.http.request-timeout-ms:5000}") long requestTimeoutMillis,
+                                  @Value("${prices.yahoo.http.max-concurrent:32}") int maxConcurrent,
+                                  @Value("${prices.yahoo.http.threads:4}") int httpThreads,
+                                  @Value("${prices.yahoo.chart-concurrency:4}") int chartConcurrency,
+                                  @Value("${prices.yahoo.hedge.min-delay-ms:50}") long minHedgeDelayMillis,
+                                  @Value("${prices.yahoo.hedge.default-latency-ms:500}") long defaultLatencyMillis,
+                                  @Value("${prices.yahoo.hedge.timeout-ms:10000}") long timeoutMillis) {
+        this.batchSize = Math.max(1, batchSize);
+        this.httpPool = httpPool(httpThreads);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(httpPool)
+                .build();
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMillis);
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.permits = new Semaphore(this.maxConcurrent);
+        this.rejected = Counter.builder("prices.yahoo.rejected")
+                .description("Yahoo Finance requests refused because max-concurrent were already in flight")
+                .register(meterRegistry);
+        Gauge.builder("prices.yahoo.in-flight", permits, p -> this.maxConcurrent - p.availablePermits())
+                .description("Yahoo Finance requests currently in flight")
+                .register(meterRegistry);
+        this.chartConcurrency = Math.max(1, chartConcurrency);
+        Gauge.builder("prices.yahoo.chart-fallback.queued", this, RealYahooFinanceClient::queuedCharts)
+                .description("Symbols waiting for a v8/chart fallback request")
+                .register(meterRegistry);
+        this.hedgedFetcher = new HedgedFetcher(List.of(
+                new HedgedFetcher.Endpoint("v7/quote", symbol -> quotePrice("v7/quote", V7_QUOTE_URL, symbol)),
+                new HedgedFetcher.Endpoint("v8/chart", this::chartPrice),
+                new HedgedFetcher.Endpoint("v6/quote", symbol -> quotePrice("v6/quote", V6_QUOTE_URL, symbol))),
+                new EndpointStats(defaultLatencyMillis), meterRegistry, minHedgeDelayMillis, timeoutMillis);
     }
 
     // -------------------------------------------------------------------------
@@ -43,185 +141,337 @@ public class RealYahooFinanceClient implements YahooFinanceClient {
 
     @Override
     public BigDecimal getCurrentPrice(String symbol) {
-        BigDecimal price = tryQuoteEndpoint(symbol);
-        if (price.compareTo(BigDecimal.ZERO) > 0) return price;
-
-        price = tryChartEndpoint(symbol);
-        if (price.compareTo(BigDecimal.ZERO) > 0) return price;
+        return getCurrentPriceAsync(symbol).join();
+    }
 
-        price = tryV6QuoteEndpoint(symbol);
-        if (price.compareTo(BigDecimal.ZERO) > 0) return price;
+    @Override
+    public CompletableFuture<BigDecimal> getCurrentPriceAsync(String symbol) {
+        return hedgedFetcher.fetchAsync(symbol).thenApply(price -> {
+            if (price.compareTo(BigDecimal.ZERO) <= 0) {
+                log.warn("All Yahoo Finance price endpoints failed for symbol: {}", symbol);
+            }
+            return price;
+        });
+    }
 
-        log.warn("All Yahoo Finance price endpoints failed for symbol: {}", symbol);
-        return BigDecimal.ZERO;
+    @Override
+    public Map<String, BigDecimal> getCurrentPrices(Collection<String> symbols) {
+        return getCurrentPricesAsync(symbols).join();
     }
 
+    /**
+     * Prices {@code batchSize} symbols per request, all chunks at once: v7/quote for the whole
+     * chunk, v6/quote for what v7 did not price, and v8/chart per symbol for anything still missing,
+     * through the bounded chart fallback queue.
+     */
     @Override
-    public Map<String, Object> getQuote(String symbol) {
-        try {
-            String url = "https://query1.finance.yahoo.com/v8/finance/chart/%s?interval=1d&range=1d"
-                    .formatted(symbol);
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-            return response != null ? response : Map.of("error", "Empty response");
-        } catch (Exception e) {
-            log.error("Error fetching quote for symbol: {}", symbol, e);
-            return Map.of("error", "Failed to fetch quote");
+    public CompletableFuture<Map<String, BigDecimal>> getCurrentPricesAsync(Collection<String> symbols) {
+        List<String> distinct = List.copyOf(new LinkedHashSet<>(symbols));
+        List<CompletableFuture<Map<String, BigDecimal>>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += batchSize) {
+            chunks.add(chunkPrices(distinct.subList(from, Math.min(from + batchSize, distinct.size()))));
         }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).thenApply(done -> {
+            Map<String, BigDecimal> prices = new HashMap<>();
+            chunks.forEach(chunk -> prices.putAll(chunk.join()));
+            if (prices.size() < distinct.size()) {
+                log.warn("No price from any Yahoo Finance endpoint for {} of {} symbol(s)",
+                        distinct.size() - prices.size(), distinct.size());
+            }
+            return prices;
+        });
     }
 
     @Override
-    public List<BigDecimal> getHistoricalPrices(String symbol) {
-        try {
-            // 5-min bars, 60-day range — ~4 680 bars (free, no API key)
-            String url = "https://query1.finance.yahoo.com/v8/finance/chart/%s?interval=5m&range=60d"
-                    .formatted(symbol);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", USER_AGENT);
-            headers.set("Accept", "application/json");
-            headers.set("Accept-Language", "en-US,en;q=0.9");
-
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            ResponseEntity<String> response =
-                    restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-
-            if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
-                log.warn("Yahoo Finance chart endpoint returned {} for {}", response.getStatusCode(), symbol);
-                return List.of();
-            }
+    public Map<String, Object> getQuote(String symbol) {
+        return getQuoteAsync(symbol).join();
+    }
 
-            return parseHistoricalResponse(response.getBody(), symbol);
+    @Override
+    public CompletableFuture<Map<String, Object>> getQuoteAsync(String symbol) {
+        return getJson(CHART_URL.formatted(encode(symbol)), root -> root.isObject()
+                        ? objectMapper.convertValue(root, MAP_TYPE)
+                        : Map.<String, Object>of("error", "Empty response"))
+                .exceptionally(e -> {
+                    log.error("Error fetching quote for symbol: {}", symbol, unwrap(e));
+                    return Map.of("error", "Failed to fetch quote");
+                });
+    }
 
-        } catch (Exception e) {
-            log.warn("Failed to fetch historical prices from Yahoo Finance for {}: {}", symbol, e.getMessage());
-            return List.of();
+    @Override
+    public List<BigDecimal> getHistoricalPrices(String symbol) {
+        PriceFetchEvent event = new PriceFetchEvent();
+        event.begin();
+        List<BigDecimal> prices = getJson(HISTORY_URL.formatted(encode(symbol)), root -> parseHistoricalResponse(root, symbol))
+                .exceptionally(e -> {
+                    log.warn("Failed to fetch historical prices from Yahoo Finance for {}: {}",
+                            symbol, unwrap(e).getMessage());
+                    return List.of();
+                })
+                .join();
+        event.end();
+        if (event.shouldCommit()) {
+            event.symbol = symbol;
+            event.endpoint = "v8/chart-5m";
+            event.success = !prices.isEmpty();
+            event.dataPoints = prices.size();
+            event.commit();
         }
+        return prices;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        httpPool.shutdownNow();
     }
 
     // -------------------------------------------------------------------------
     // Private helpers — price endpoints
     // -------------------------------------------------------------------------
 
-    private BigDecimal tryQuoteEndpoint(String symbol) {
-        try {
-            String url = "https://query1.finance.yahoo.com/v7/finance/quote?symbols=%s".formatted(symbol);
-            log.info("Trying v7/quote endpoint for symbol: {}", symbol);
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-
-            if (response != null && response.containsKey("quoteResponse")) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> quoteResponse = (Map<String, Object>) response.get("quoteResponse");
-                if (quoteResponse.containsKey("result")) {
-                    @SuppressWarnings("unchecked")
-                    var results = (java.util.List<Map<String, Object>>) quoteResponse.get("result");
-                    if (!results.isEmpty()) {
-                        Map<String, Object> quote = results.getFirst();
-                        Object priceObj = firstNonNull(quote, "regularMarketPrice", "ask", "bid");
-                        if (priceObj != null) {
-                            double price = ((Number) priceObj).doubleValue();
-                            log.info("✓ v7/quote succeeded for {}: {}", symbol, price);
-                            return BigDecimal.valueOf(price);
-                        }
-                    }
+    /** v7 or v6 quote for one symbol; zero when the endpoint has no price. */
+    private CompletableFuture<BigDecimal> quotePrice(String endpoint, String urlTemplate, String symbol) {
+        return recorded(endpoint, symbol, getJson(urlTemplate.formatted(encode(symbol)),
+                root -> positive(root.path("quoteResponse").path("result").path(0), "regularMarketPrice", "ask", "bid")));
+    }
+
+    /** v8/chart for one symbol; zero when the endpoint has no price. */
+    private CompletableFuture<BigDecimal> chartPrice(String symbol) {
+        return recorded("v8/chart", symbol, getJson(CHART_URL.formatted(encode(symbol)),
+                root -> positive(root.path("chart").path("result").path(0).path("meta"), "regularMarketPrice")));
+    }
+
+    private CompletableFuture<Map<String, BigDecimal>> chunkPrices(List<String> chunk) {
+        return quoteBatch("v7/quote", V7_QUOTE_URL, chunk)
+                .thenCompose(prices -> {
+                    List<String> missing = missing(chunk, prices);
+                    return missing.isEmpty()
+                            ? CompletableFuture.completedFuture(prices)
+                            : quoteBatch("v6/quote", V6_QUOTE_URL, missing).thenApply(more -> merge(prices, more));
+                })
+                .thenCompose(prices -> {
+                    Map<String, CompletableFuture<BigDecimal>> charts = new HashMap<>();
+                    missing(chunk, prices).forEach(symbol -> charts.put(symbol,
+                            queuedChartPrice(symbol)));
+                    return CompletableFuture.allOf(charts.values().toArray(new CompletableFuture[0]))
+                            .thenApply(done -> {
+                                Map<String, BigDecimal> all = new HashMap<>(prices);
+                                charts.forEach((symbol, price) -> {
+                                    if (price.join().compareTo(BigDecimal.ZERO) > 0) {
+                                        all.put(symbol, price.join());
+                                    }
+                                });
+                                return all;
+                            });
+                });
+    }
+
+    /**
+     * v8/chart for one symbol once fewer than {@code chartConcurrency} fallback requests are
+     * running; zero when the endpoint has no price or fails. Never fails.
+     */
+    private CompletableFuture<BigDecimal> queuedChartPrice(String symbol) {
+        CompletableFuture<BigDecimal> price = new CompletableFuture<>();
+        synchronized (chartBacklog) {
+            chartBacklog.add(new QueuedChart(symbol, price));
+        }
+        startQueuedCharts();
+        return price;
+    }
+
+    private void startQueuedCharts() {
+        while (true) {
+            QueuedChart next;
+            synchronized (chartBacklog) {
+                if (chartsRunning == chartConcurrency || chartBacklog.isEmpty()) {
+                    return;
                 }
+                next = chartBacklog.poll();
+                chartsRunning++;
             }
-        } catch (org.springframework.web.client.HttpClientErrorException.TooManyRequests e) {
-            log.warn("✗ v7/quote rate limited for {}", symbol);
-        } catch (Exception e) {
-            log.warn("✗ v7/quote failed for {}: {}", symbol, e.getMessage());
+            // Async, so a request refused at once does not start the next one on this stack
+            chartPrice(next.symbol()).exceptionally(e -> BigDecimal.ZERO).whenCompleteAsync((price, error) -> {
+                synchronized (chartBacklog) {
+                    chartsRunning--;
+                }
+                next.price().complete(price);
+                startQueuedCharts();
+            }, httpPool);
         }
-        return BigDecimal.ZERO;
     }
 
-    private BigDecimal tryChartEndpoint(String symbol) {
-        try {
-            String url = "https://query1.finance.yahoo.com/v8/finance/chart/%s?interval=1d&range=1d"
-                    .formatted(symbol);
-            log.info("Trying v8/chart endpoint for symbol: {}", symbol);
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-
-            if (response != null && response.containsKey("chart")) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> chart = (Map<String, Object>) response.get("chart");
-                if (chart.containsKey("result")) {
-                    @SuppressWarnings("unchecked")
-                    var results = (java.util.List<Map<String, Object>>) chart.get("result");
-                    if (!results.isEmpty()) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> meta = (Map<String, Object>) results.getFirst().get("meta");
-                        if (meta != null && meta.containsKey("regularMarketPrice")) {
-                            double price = ((Number) meta.get("regularMarketPrice")).doubleValue();
-                            log.info("✓ v8/chart succeeded for {}: {}", symbol, price);
-                            return BigDecimal.valueOf(price);
-                        }
+    private int queuedCharts() {
+        synchronized (chartBacklog) {
+            return chartBacklog.size();
+        }
+    }
+
+    /** One request to a quote endpoint for all {@code symbols}; completes with the ones it priced. */
+    private CompletableFuture<Map<String, BigDecimal>> quoteBatch(String endpoint, String urlTemplate, List<String> symbols) {
+        log.info("Trying {} endpoint for {} symbol(s)", endpoint, symbols.size());
+        PriceFetchEvent event = new PriceFetchEvent();
+        event.begin();
+        return getJson(urlTemplate.formatted(encode(String.join(",", symbols))), RealYahooFinanceClient::quotePrices)
+                .thenApply(prices -> {
+                    log.info("✓ {} priced {} of {} symbol(s)", endpoint, prices.size(), symbols.size());
+                    return prices;
+                })
+                .exceptionally(e -> {
+                    logFailure(endpoint, symbols.size() + " symbol(s)", e);
+                    return Map.of();
+                })
+                .whenComplete((prices, error) -> {
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.symbol = String.join(",", symbols);
+                        event.endpoint = endpoint;
+                        event.success = !prices.isEmpty();
+                        event.dataPoints = prices.size();
+                        event.commit();
                     }
-                }
+                });
+    }
+
+    /**
+     * Logs the outcome of a single-symbol attempt and records it as a {@link PriceFetchEvent}.
+     * Returns {@code attempt} itself, so cancelling the result still aborts the request.
+     */
+    private CompletableFuture<BigDecimal> recorded(String endpoint, String symbol, CompletableFuture<BigDecimal> attempt) {
+        log.info("Trying {} endpoint for symbol: {}", endpoint, symbol);
+        PriceFetchEvent event = new PriceFetchEvent();
+        event.begin();
+        attempt.whenComplete((price, error) -> {
+            event.end();
+            boolean success = price != null && price.compareTo(BigDecimal.ZERO) > 0;
+            if (success) {
+                log.info("✓ {} succeeded for {}: {}", endpoint, symbol, price);
+            } else if (error != null && !(error instanceof CancellationException)) {
+                logFailure(endpoint, symbol, error);
             }
-        } catch (org.springframework.web.client.HttpClientErrorException.TooManyRequests e) {
-            log.warn("✗ v8/chart rate limited for {}", symbol);
-        } catch (Exception e) {
-            log.warn("✗ v8/chart failed for {}: {}", symbol, e.getMessage());
-        }
-        return BigDecimal.ZERO;
+            if (event.shouldCommit()) {
+                event.symbol = symbol;
+                event.endpoint = endpoint;
+                event.success = success;
+                event.price = success ? price.doubleValue() : 0;
+                event.commit();
+            }
+        });
+        return attempt;
     }
 
-    private BigDecimal tryV6QuoteEndpoint(String symbol) {
+    // -------------------------------------------------------------------------
+    // Private helpers — HTTP
+    // -------------------------------------------------------------------------
+
+    /**
+     * GETs {@code url} and completes with its JSON body read by {@code parse}. Fails with
+     * {@link HttpStatusException} on any status other than 200, and at once when max-concurrent
+     * requests are in flight. Cancelling the returned future aborts the exchange.
+     */
+    private <T> CompletableFuture<T> getJson(String url, Function<JsonNode, T> parse) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "More than " + maxConcurrent + " Yahoo Finance requests in flight"));
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept", "application/json")
+                .header("Accept-Language", "en-US,en;q=0.9")
+                .GET()
+                .build();
+        CompletableFuture<HttpResponse<String>> response;
         try {
-            String url = "https://query2.finance.yahoo.com/v6/finance/quote?symbols=%s".formatted(symbol);
-            log.info("Trying v6/quote endpoint for symbol: {}", symbol);
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-
-            if (response != null && response.containsKey("quoteResponse")) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> quoteResponse = (Map<String, Object>) response.get("quoteResponse");
-                if (quoteResponse.containsKey("result")) {
-                    @SuppressWarnings("unchecked")
-                    var results = (java.util.List<Map<String, Object>>) quoteResponse.get("result");
-                    if (!results.isEmpty()) {
-                        Map<String, Object> quote = results.getFirst();
-                        Object priceObj = firstNonNull(quote, "regularMarketPrice", "ask", "bid");
-                        if (priceObj != null) {
-                            double price = ((Number) priceObj).doubleValue();
-                            log.info("✓ v6/quote succeeded for {}: {}", symbol, price);
-                            return BigDecimal.valueOf(price);
-                        }
-                    }
-                }
+            response = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            permits.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((r, e) -> permits.release());
+
+        CompletableFuture<T> result = response.thenApply(r -> parse.apply(readBody(r)));
+        result.whenComplete((value, e) -> {
+            if (result.isCancelled()) {
+                response.cancel(true);
             }
-        } catch (org.springframework.web.client.HttpClientErrorException.TooManyRequests e) {
-            log.warn("✗ v6/quote rate limited for {}", symbol);
-        } catch (Exception e) {
-            log.warn("✗ v6/quote failed for {}: {}", symbol, e.getMessage());
+        });
+        return result;
+    }
+
+    private JsonNode readBody(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            throw new HttpStatusException(response.statusCode());
+        }
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void logFailure(String endpoint, String what, Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof HttpStatusException status && status.statusCode == 429) {
+            log.warn("✗ {} rate limited for {}", endpoint, what);
+        } else {
+            log.warn("✗ {} failed for {}: {}", endpoint, what, cause.getMessage());
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static ExecutorService httpPool(int threads) {
+        AtomicInteger sequence = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "yahoo-http-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** A symbol waiting for a v8/chart fallback request, and where its price goes. */
+    private record QueuedChart(String symbol, CompletableFuture<BigDecimal> price) {
+    }
+
+    /** A Yahoo Finance response with a status other than 200. */
+    private static final class HttpStatusException extends RuntimeException {
+
+        final int statusCode;
+
+        HttpStatusException(int statusCode) {
+            super("HTTP " + statusCode);
+            this.statusCode = statusCode;
         }
-        return BigDecimal.ZERO;
     }
 
     // -------------------------------------------------------------------------
     // Private helpers — historical data
     // -------------------------------------------------------------------------
 
-    private List<BigDecimal> parseHistoricalResponse(String json, String symbol) {
+    private List<BigDecimal> parseHistoricalResponse(JsonNode root, String symbol) {
         List<BigDecimal> prices = new ArrayList<>();
-        try {
-            JsonNode root = objectMapper.readTree(json);
-            JsonNode result = root.path("chart").path("result");
-            if (result.isEmpty() || !result.isArray()) return prices;
-
-            JsonNode closePrices = result.get(0)
-                    .path("indicators").path("quote").get(0).path("close");
-
-            if (closePrices.isArray()) {
-                for (JsonNode node : closePrices) {
-                    if (!node.isNull()) {
-                        prices.add(BigDecimal.valueOf(node.asDouble())
-                                .setScale(4, RoundingMode.HALF_UP));
-                    }
+        JsonNode result = root.path("chart").path("result");
+        if (result.isEmpty() || !result.isArray()) return prices;
+
+        JsonNode closePrices = result.get(0)
+                .path("indicators").path("quote").path(0).path("close");
+
+        if (closePrices.isArray()) {
+            for (JsonNode node : closePrices) {
+                if (!node.isNull()) {
+                    prices.add(BigDecimal.valueOf(node.asDouble())
+                            .setScale(4, RoundingMode.HALF_UP));
                 }
             }
-            log.info("Fetched {} 5-min bars for {} from Yahoo Finance", prices.size(), symbol);
-        } catch (Exception e) {
-            log.error("Error parsing Yahoo Finance response for {}: {}", symbol, e.getMessage());
         }
+        log.info("Fetched {} 5-min bars for {} from Yahoo Finance", prices.size(), symbol);
         return prices;
     }
 
@@ -229,11 +479,36 @@ public class RealYahooFinanceClient implements YahooFinanceClient {
     // Utility
     // -------------------------------------------------------------------------
 
-    private Object firstNonNull(Map<String, Object> map, String... keys) {
-        for (String key : keys) {
-            Object value = map.get(key);
-            if (value != null) return value;
+    /** The first of {@code fields} holding a positive number, or zero. */
+    private static BigDecimal positive(JsonNode node, String... fields) {
+        for (String field : fields) {
+            JsonNode value = node.path(field);
+            if (value.isNumber() && value.doubleValue() > 0) {
+                return BigDecimal.valueOf(value.doubleValue());
+            }
+        }
+        return BigDecimal.ZERO;
+    }
+
+    /** Symbol → price of every quote in a quote endpoint response that has a positive price. */
+    private static Map<String, BigDecimal> quotePrices(JsonNode root) {
+        Map<String, BigDecimal> prices = new HashMap<>();
+        for (JsonNode quote : root.path("quoteResponse").path("result")) {
+            BigDecimal price = positive(quote, "regularMarketPrice", "ask", "bid");
+            if (quote.hasNonNull("symbol") && price.compareTo(BigDecimal.ZERO) > 0) {
+                prices.put(quote.get("symbol").asText(), price);
+            }
         }
-        return null;
+        return prices;
+    }
+
+    private static List<String> missing(List<String> symbols, Map<String, BigDecimal> prices) {
+        return symbols.stream().filter(symbol -> !prices.containsKey(symbol)).toList();
+    }
+
+    private static Map<String, BigDecimal> merge(Map<String, BigDecimal> prices, Map<String, BigDecimal> more) {
+        Map<String, BigDecimal> all = new HashMap<>(prices);
+        all.putAll(more);
+        return all;
     }
 }
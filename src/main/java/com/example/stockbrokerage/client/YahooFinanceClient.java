@@ -1,14 +1,18 @@
 package com.example.stockbrokerage.client;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Abstraction over the Yahoo Finance API.
  * The production implementation ({@link RealYahooFinanceClient}) makes actual HTTP calls.
  * The test implementation ({@link MockYahooFinanceClient}) returns deterministic stub data
  * so the test suite has no external network dependency.
+ * The {@code *Async} methods complete without holding a thread while upstream answers; their
+ * defaults run the blocking form on the caller's thread, which suits in-memory implementations.
  */
 public interface YahooFinanceClient {
 
@@ -18,12 +22,33 @@ public interface YahooFinanceClient {
      */
     BigDecimal getCurrentPrice(String symbol);
 
+    /**
+     * Fetch the current market prices of several ticker symbols, as few requests as possible.
+     * Symbols whose price cannot be determined are absent from the returned map.
+     */
+    Map<String, BigDecimal> getCurrentPrices(Collection<String> symbols);
+
+    /** Non-blocking form of {@link #getCurrentPrice}. */
+    default CompletableFuture<BigDecimal> getCurrentPriceAsync(String symbol) {
+        return CompletableFuture.completedFuture(getCurrentPrice(symbol));
+    }
+
+    /** Non-blocking form of {@link #getCurrentPrices}. */
+    default CompletableFuture<Map<String, BigDecimal>> getCurrentPricesAsync(Collection<String> symbols) {
+        return CompletableFuture.completedFuture(getCurrentPrices(symbols));
+    }
+
     /**
      * Fetch a full quote response for the given ticker symbol.
      * Returns a map with an "error" key when the call fails.
      */
     Map<String, Object> getQuote(String symbol);
 
+    /** Non-blocking form of {@link #getQuote}. */
+    default CompletableFuture<Map<String, Object>> getQuoteAsync(String symbol) {
+        return CompletableFuture.completedFuture(getQuote(symbol));
+    }
+
     /**
      * Fetch historical 5-minute closing prices for the given ticker symbol.
      * Returns an empty list when data is unavailable.
@@ -24,6 +24,10 @@ import org.springframework.stereotype.Component;
  *  - If rate limiting is disabled for a service (enabled: false) the rate limiter
  *    entry is absent from the registry and the call passes through.
  *  - Circuit breaker fires AFTER the rate limit check.
+ *  - Only @Service classes are matched. In-memory helpers in the service package that sit
+ *    on the order path or run in the background (caches, ledgers, indexes, schedulers, the
+ *    order sequencer) are registered as @Component instead, so they are not throttled
+ *    themselves; the @Service that calls them still is.
  */
 @Aspect
 @Component
@@ -0,0 +1,42 @@
+package com.example.stockbrokerage.config;
+
+import com.example.stockbrokerage.jfr.ScheduledJobEvent;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * AOP aspect that records every run of a {@code @Scheduled} method as a JFR
+ * {@link ScheduledJobEvent}, so batch jobs show up next to the orders they compete with in a
+ * flight recording.
+ *
+ * Design decisions:
+ *  - When no recording has the event enabled, {@code shouldCommit()} is false and the run costs
+ *    one short-lived event object, which escape analysis usually removes.
+ *  - The job name is resolved only for events that are committed.
+ */
+@Aspect
+@Component
+public class ScheduledJobRecordingAspect {
+
+    @Around("@annotation(org.springframework.scheduling.annotation.Scheduled)")
+    public Object recordRun(ProceedingJoinPoint pjp) throws Throwable {
+        ScheduledJobEvent event = new ScheduledJobEvent();
+        event.begin();
+        String outcome = "OK";
+        try {
+            return pjp.proceed();
+        } catch (Throwable t) {
+            outcome = t.getClass().getSimpleName();
+            throw t;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.job = pjp.getSignature().getDeclaringType().getSimpleName() + "." + pjp.getSignature().getName();
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.stockbrokerage.controller;
+
+import com.example.stockbrokerage.dto.DailyNotionalResponse;
+import com.example.stockbrokerage.service.DailyNotionalCounters;
+import com.example.stockbrokerage.util.Money;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/fraud")
+@RequiredArgsConstructor
+@Tag(name = "Admin – Fraud", description = "Admin: state behind the fraud checks")
+public class FraudAdminController {
+    
+    private final DailyNotionalCounters dailyNotionalCounters;
+    
+    @GetMapping("/daily-notional")
+    @Operation(summary = "Get daily notional counters",
+               description = "Today's running notional per client, as checked against the daily trade limit")
+    public ResponseEntity<DailyNotionalResponse> getDailyNotional() {
+        return ResponseEntity.ok(toResponse(dailyNotionalCounters.totals()));
+    }
+    
+    @GetMapping("/daily-notional/{clientId}")
+    @Operation(summary = "Get a client's daily notional", description = "Today's running notional for one client")
+    public ResponseEntity<DailyNotionalResponse> getClientDailyNotional(@PathVariable Long clientId) {
+        return ResponseEntity.ok(toResponse(Map.of(clientId, dailyNotionalCounters.total(clientId))));
+    }
+    
+    @PostMapping("/daily-notional/reseed")
+    @Operation(summary = "Reseed daily notional counters",
+               description = "Recompute today's counters from the trades table, e.g. after trades were placed on another node")
+    public ResponseEntity<DailyNotionalResponse> reseedDailyNotional() {
+        dailyNotionalCounters.reseed();
+        return ResponseEntity.ok(toResponse(dailyNotionalCounters.totals()));
+    }
+    
+    private DailyNotionalResponse toResponse(Map<Long, Long> totals) {
+        List<DailyNotionalResponse.ClientTotal> clients = totals.entrySet().stream()
+            .map(e -> new DailyNotionalResponse.ClientTotal(e.getKey(), Money.toBigDecimal(e.getValue())))
+            .toList();
+        return DailyNotionalResponse.builder()
+            .date(dailyNotionalCounters.date())
+            .seededAt(dailyNotionalCounters.seededAt())
+            .clients(clients)
+            .build();
+    }
+}
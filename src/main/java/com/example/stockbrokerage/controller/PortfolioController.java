@@ -16,6 +16,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/portfolio")
@@ -36,9 +37,10 @@ public class PortfolioController {
             content = @Content(array = @ArraySchema(schema = @Schema(implementation = PortfolioResponse.class)))),
         @ApiResponse(responseCode = "404", description = "Client not found", content = @Content)
     })
-    public ResponseEntity<List<PortfolioResponse>> getClientPortfolio(
+    public CompletableFuture<ResponseEntity<List<PortfolioResponse>>> getClientPortfolio(
             @Parameter(description = "Client ID", example = "1") @PathVariable Long clientId) {
-        return ResponseEntity.ok(portfolioService.getClientPortfolio(clientId));
+        // Async: the request thread is released while missing prices are fetched
+        return portfolioService.getClientPortfolio(clientId).thenApply(ResponseEntity::ok);
     }
 
     @GetMapping("/client/{clientId}/summary")
@@ -51,8 +53,8 @@ public class PortfolioController {
             content = @Content(schema = @Schema(implementation = PortfolioSummaryResponse.class))),
         @ApiResponse(responseCode = "404", description = "Client not found", content = @Content)
     })
-    public ResponseEntity<PortfolioSummaryResponse> getClientPortfolioSummary(
+    public CompletableFuture<ResponseEntity<PortfolioSummaryResponse>> getClientPortfolioSummary(
             @Parameter(description = "Client ID", example = "1") @PathVariable Long clientId) {
-        return ResponseEntity.ok(portfolioService.getClientPortfolioSummary(clientId));
+        return portfolioService.getClientPortfolioSummary(clientId).thenApply(ResponseEntity::ok);
     }
 }
@@ -1,9 +1,12 @@
 package com.example.stockbrokerage.controller;
 
+import com.example.stockbrokerage.dto.RuleBacktestRequest;
+import com.example.stockbrokerage.dto.RuleBacktestResponse;
 import com.example.stockbrokerage.dto.RuleRequest;
 import com.example.stockbrokerage.entity.Rule;
 import com.example.stockbrokerage.entity.Rule.RuleLevel;
 import com.example.stockbrokerage.entity.Rule.RuleType;
+import com.example.stockbrokerage.service.RuleBacktestService;
 import com.example.stockbrokerage.service.RuleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -22,6 +25,7 @@ import java.util.List;
 public class RuleAdminController {
     
     private final RuleService ruleService;
+    private final RuleBacktestService ruleBacktestService;
     
     @PostMapping
     @Operation(summary = "Create a new rule", description = "Create a new business rule")
@@ -78,4 +82,13 @@ public class RuleAdminController {
         ruleService.deleteRule(id, "ADMIN");
         return ResponseEntity.noContent().build();
     }
+    
+    @PostMapping("/backtest")
+    @Operation(summary = "Backtest a candidate rule set",
+               description = "Replay the last N days of trades through the active rules and a candidate set "
+                       + "(active minus excluded plus new rules) and compare verdicts, latency percentiles and "
+                       + "throughput. Nothing is saved or activated.")
+    public ResponseEntity<RuleBacktestResponse> backtest(@Valid @RequestBody RuleBacktestRequest request) {
+        return ResponseEntity.ok(ruleBacktestService.backtest(request));
+    }
 }
@@ -12,8 +12,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/stocks")
@@ -34,10 +34,11 @@ public class StockController {
             content = @Content(schema = @Schema(example = "{\"symbol\":\"AAPL\",\"price\":175.34}"))),
         @ApiResponse(responseCode = "404", description = "Symbol not found", content = @Content)
     })
-    public ResponseEntity<Map<String, Object>> getStockPrice(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getStockPrice(
             @Parameter(description = "Stock ticker symbol", example = "AAPL") @PathVariable String symbol) {
-        BigDecimal price = stockPriceService.getCurrentPrice(symbol);
-        return ResponseEntity.ok(Map.of("symbol", symbol, "price", price));
+        // Async like /quote: a cache miss does not hold the request thread while Yahoo answers
+        return stockPriceService.getCurrentPriceAsync(symbol)
+                .thenApply(price -> ResponseEntity.ok(Map.<String, Object>of("symbol", symbol, "price", price)));
     }
 
     @GetMapping("/quote/{symbol}")
@@ -49,8 +50,9 @@ public class StockController {
         @ApiResponse(responseCode = "200", description = "Full quote data"),
         @ApiResponse(responseCode = "404", description = "Symbol not found", content = @Content)
     })
-    public ResponseEntity<Map<String, Object>> getStockQuote(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getStockQuote(
             @Parameter(description = "Stock ticker symbol", example = "AAPL") @PathVariable String symbol) {
-        return ResponseEntity.ok(stockPriceService.getQuote(symbol));
+        // Async: the request thread is released while Yahoo answers
+        return stockPriceService.getQuoteAsync(symbol).thenApply(ResponseEntity::ok);
     }
 }
@@ -1,15 +1,25 @@
 package com.example.stockbrokerage.controller;
 
+import com.example.stockbrokerage.dto.BatchTradeRequest;
+import com.example.stockbrokerage.dto.BatchTradeResponse;
+import com.example.stockbrokerage.dto.OrderStatusEvent;
 import com.example.stockbrokerage.dto.TradeRequest;
 import com.example.stockbrokerage.dto.TradeResponse;
+import com.example.stockbrokerage.service.AsyncOrderPipeline;
+import com.example.stockbrokerage.service.BatchTradeService;
+import com.example.stockbrokerage.service.OrderSequencer;
 import com.example.stockbrokerage.service.TradeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
 
 import java.util.List;
 
@@ -21,6 +31,9 @@ import java.util.List;
 public class TradeController {
     
     private final TradeService tradeService;
+    private final OrderSequencer orderSequencer;
+    private final AsyncOrderPipeline asyncOrderPipeline;
+    private final BatchTradeService batchTradeService;
     
     @PostMapping
     @Operation(
@@ -33,13 +46,78 @@ public class TradeController {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Validation failed (e.g. insufficient funds, rule rejected)",
             content = @io.swagger.v3.oas.annotations.media.Content),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Fraud detected",
+            content = @io.swagger.v3.oas.annotations.media.Content),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "Too many pending orders for this client",
             content = @io.swagger.v3.oas.annotations.media.Content)
     })
     public ResponseEntity<TradeResponse> executeTrade(@Valid @RequestBody TradeRequest request) {
-        TradeResponse response = tradeService.executeTrade(request);
+        // Orders for the same client run one at a time on that client's lane
+        TradeResponse response = orderSequencer.execute(request.getClientId(), () -> tradeService.executeTrade(request));
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
     
+    @PostMapping("/batch")
+    @Operation(
+        summary = "Place a basket of orders",
+        description = "Submit 1-500 orders of one client in one call. The basket runs on that client's order lane; fraud "
+            + "checks and rules run over the whole basket, account and portfolio updates are applied once, and trades "
+            + "are written with JDBC batching. Returns the outcome of every order in submission order."
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponses({
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Basket processed",
+            content = @io.swagger.v3.oas.annotations.media.Content(schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = BatchTradeResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid basket (e.g. orders of more than one client)",
+            content = @io.swagger.v3.oas.annotations.media.Content)
+    })
+    public ResponseEntity<BatchTradeResponse> executeBatch(@Valid @RequestBody BatchTradeRequest request) {
+        // A basket joins its client's order lane, so it never overlaps that client's other orders
+        Long clientId = request.getOrders().get(0).getClientId();
+        if (!request.getOrders().stream().allMatch(o -> clientId.equals(o.getClientId()))) {
+            throw new RuntimeException("All orders in a basket must be for the same client");
+        }
+        BatchTradeResponse response = orderSequencer.execute(clientId, () -> batchTradeService.executeBatch(request));
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/async")
+    @Operation(
+        summary = "Place order asynchronously",
+        description = "Validate the request, assign an order id and return 202 immediately. The order is executed in the "
+            + "background through the same pipeline as POST /api/trades; follow it via the Location URL or the SSE stream."
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponses({
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "202", description = "Order accepted",
+            content = @io.swagger.v3.oas.annotations.media.Content(schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = OrderStatusEvent.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid request",
+            content = @io.swagger.v3.oas.annotations.media.Content),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "Too many pending orders for this client",
+            content = @io.swagger.v3.oas.annotations.media.Content)
+    })
+    public ResponseEntity<OrderStatusEvent> executeTradeAsync(@Valid @RequestBody TradeRequest request) {
+        OrderStatusEvent accepted = asyncOrderPipeline.accept(request);
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/trades/async/" + accepted.getOrderId()))
+            .body(accepted);
+    }
+    
+    @GetMapping("/async/{orderId}")
+    @Operation(summary = "Get async order status", description = "Latest status of an order accepted via POST /api/trades/async.")
+    public ResponseEntity<OrderStatusEvent> getAsyncOrderStatus(@PathVariable String orderId) {
+        return ResponseEntity.ok(asyncOrderPipeline.getStatus(orderId));
+    }
+    
+    @GetMapping(value = "/async/{orderId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream async order status", description = "Server-Sent Events for one order (PENDING → EXECUTED/REJECTED). Closes after the final event.")
+    public SseEmitter streamAsyncOrder(@PathVariable String orderId) {
+        return asyncOrderPipeline.subscribeOrder(orderId);
+    }
+    
+    @GetMapping(value = "/async/client/{clientId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream async orders of a client", description = "Server-Sent Events for every asynchronous order of the client.")
+    public SseEmitter streamAsyncOrdersByClient(@PathVariable Long clientId) {
+        return asyncOrderPipeline.subscribeClient(clientId);
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Get trade by ID", description = "Retrieve a single trade by its ID.")
     @io.swagger.v3.oas.annotations.responses.ApiResponses({
@@ -85,7 +163,7 @@ public class TradeController {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "204", description = "Trade cancelled"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Trade not found",
             content = @io.swagger.v3.oas.annotations.media.Content),
-        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Trade cannot be cancelled (already executed)",
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Trade cannot be cancelled (no longer pending)",
             content = @io.swagger.v3.oas.annotations.media.Content)
     })
     public ResponseEntity<Void> cancelTrade(
@@ -0,0 +1,22 @@
+package com.example.stockbrokerage.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTradeRequest {
+    
+    @NotEmpty(message = "At least one order is required")
+    @Size(max = 500, message = "A basket may contain at most 500 orders")
+    private List<@Valid TradeRequest> orders;
+}
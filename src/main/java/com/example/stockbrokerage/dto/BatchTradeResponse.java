@@ -0,0 +1,22 @@
+package com.example.stockbrokerage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTradeResponse {
+    private int totalOrders;
+    private int executed;
+    private int pending;
+    private int rejected;
+    private long processingTimeMillis;
+    /** One entry per submitted order, in submission order. */
+    private List<TradeResponse> results;
+}
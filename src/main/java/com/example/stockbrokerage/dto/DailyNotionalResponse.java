@@ -0,0 +1,31 @@
+package com.example.stockbrokerage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** State of the running daily-notional counters behind the fraud daily trade limit. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyNotionalResponse {
+    private LocalDate date;
+    /** When today's counters were last seeded from the trades table. */
+    private LocalDateTime seededAt;
+    private List<ClientTotal> clients;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ClientTotal {
+        private Long clientId;
+        private BigDecimal notional;
+    }
+}
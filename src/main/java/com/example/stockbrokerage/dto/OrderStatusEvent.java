@@ -0,0 +1,30 @@
+package com.example.stockbrokerage.dto;
+
+import com.example.stockbrokerage.entity.Trade.TradeStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status of an order accepted through the asynchronous order endpoint. Sent as the 202 body
+ * and as each Server-Sent Event; {@code tradeId} is set once the trade has been persisted.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusEvent {
+
+    private String orderId;
+    private Long clientId;
+    private String symbol;
+    private TradeStatus status;
+    private Long tradeId;
+    private String reason;
+    /** True once processing has finished; no further events follow for this order. */
+    private boolean completed;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,88 @@
+package com.example.stockbrokerage.dto;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Typed outcome of the pre-trade checks for one order: either approved, possibly with
+ * non-blocking flags, or rejected by the first check that failed.
+ * <p>
+ * The common case — approved with nothing flagged — is the shared {@link #APPROVED} instance.
+ */
+public record PreTradeVerdict(Finding rejection, String rejectedBy, List<Finding> flags) {
+
+    public enum ReasonCode {
+        CLIENT_INACTIVE,
+        OUTSIDE_TRADING_HOURS,
+        ORDER_RATE_EXCEEDED,
+        DAILY_LIMIT_EXCEEDED,
+        INSUFFICIENT_BALANCE,
+        UNUSUAL_TRADE_SIZE,
+        RULE_REJECTED,
+        CHECK_ERROR
+    }
+
+    /**
+     * One reason code with its message; {@code blocking} findings reject the order. A
+     * {@link ReasonCode#RULE_REJECTED} finding also carries the typed codes the rules gave.
+     */
+    public record Finding(ReasonCode code, String message, boolean blocking, Set<RuleVerdict.ReasonCode> ruleCodes) {
+
+        public Finding {
+            ruleCodes = ruleCodes == null ? Set.of() : Set.copyOf(ruleCodes);
+        }
+
+        public Finding(ReasonCode code, String message, boolean blocking) {
+            this(code, message, blocking, Set.of());
+        }
+
+        public static Finding reject(ReasonCode code, String message) {
+            return new Finding(code, message, true);
+        }
+
+        /** Rejection by the rule engine, keeping the verdict's reason codes. */
+        public static Finding rejectedByRules(RuleVerdict verdict) {
+            return new Finding(ReasonCode.RULE_REJECTED, verdict.describe(), true, verdict.getReasons());
+        }
+
+        public static Finding flag(ReasonCode code, String message) {
+            return new Finding(code, message, false);
+        }
+    }
+
+    public static final PreTradeVerdict APPROVED = new PreTradeVerdict(null, null, List.of());
+
+    public static PreTradeVerdict approved(List<Finding> flags) {
+        return flags.isEmpty() ? APPROVED : new PreTradeVerdict(null, null, List.copyOf(flags));
+    }
+
+    public static PreTradeVerdict rejected(Finding rejection, String rejectedBy, List<Finding> flags) {
+        return new PreTradeVerdict(rejection, rejectedBy, List.copyOf(flags));
+    }
+
+    public boolean isApproved() {
+        return rejection == null;
+    }
+
+    public ReasonCode code() {
+        return rejection == null ? null : rejection.code();
+    }
+
+    /** The rule engine's reason codes when the rules rejected the order; empty otherwise. */
+    public Set<RuleVerdict.ReasonCode> ruleCodes() {
+        return rejection == null ? Set.of() : rejection.ruleCodes();
+    }
+
+    /** The rejection message followed by any flags; empty when approved with nothing flagged. */
+    public String describe() {
+        if (rejection == null && flags.isEmpty()) {
+            return "";
+        }
+        String flagged = flags.stream().map(Finding::message).collect(Collectors.joining(" "));
+        if (rejection == null) {
+            return flagged;
+        }
+        return flagged.isEmpty() ? rejection.message() : rejection.message() + " " + flagged;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.stockbrokerage.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Candidate rule set for a backtest: the currently active rules, minus {@code excludeRuleIds},
+ * plus {@code candidateRules}. Nothing is saved or activated.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleBacktestRequest {
+
+    @Valid
+    @Builder.Default
+    private List<RuleRequest> candidateRules = new ArrayList<>();
+
+    /** Active rules the candidate set replaces or deactivates. */
+    @Builder.Default
+    private List<Long> excludeRuleIds = new ArrayList<>();
+
+    @Min(value = 1, message = "Days must be at least 1")
+    @Max(value = 90, message = "Days must be at most 90")
+    @Builder.Default
+    private Integer days = 7;
+
+    @Min(value = 1, message = "Max trades must be at least 1")
+    @Max(value = 500_000, message = "Max trades must be at most 500000")
+    @Builder.Default
+    private Integer maxTrades = 100_000;
+
+    @Min(value = 1, message = "Parallelism must be at least 1")
+    @Max(value = 64, message = "Parallelism must be at most 64")
+    private Integer parallelism;
+}
@@ -0,0 +1,50 @@
+package com.example.stockbrokerage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleBacktestResponse {
+    private LocalDateTime windowStart;
+    private LocalDateTime windowEnd;
+    private int tradesReplayed;
+    private int parallelism;
+
+    private RunStats active;
+    private RunStats candidate;
+
+    /** Trades the active set approves but the candidate set would reject. */
+    private int newlyRejected;
+    /** Trades the active set rejects but the candidate set would approve. */
+    private int newlyApproved;
+    /** Up to 20 trade IDs from each of the two lists above. */
+    private List<Long> newlyRejectedSample;
+    private List<Long> newlyApprovedSample;
+
+    /** Candidate throughput relative to the active set; -50 means half the trades/second. */
+    private double throughputChangePercent;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RunStats {
+        private int ruleCount;
+        private long compileMillis;
+        private int approved;
+        private int rejected;
+        private double p50Micros;
+        private double p95Micros;
+        private double p99Micros;
+        private double maxMicros;
+        private double tradesPerSecond;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.stockbrokerage.dto;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Typed outcome of rule evaluation for one trade.
+ * <p>
+ * Inserted into the rule session as a fact next to the {@code Trade}, so rules can reject
+ * without going through globals:
+ * <pre>
+ * import com.example.stockbrokerage.dto.RuleVerdict
+ * import com.example.stockbrokerage.dto.RuleVerdict.ReasonCode
+ *
+ * rule "Max single trade value"
+ *     when
+ *         Trade(price.multiply(new java.math.BigDecimal(quantity)) > 1000000)
+ *         $verdict: RuleVerdict()
+ *     then
+ *         $verdict.reject(ReasonCode.MAX_TRADE_VALUE_EXCEEDED);
+ * end
+ * </pre>
+ * Instances are mutable and can be {@link #reset() reset} and reused across trades.
+ * Rules that still use the legacy {@code global java.util.Map result} write into the same
+ * verdict through a compatibility adapter.
+ */
+public class RuleVerdict {
+
+    public enum ReasonCode {
+        MAX_TRADE_VALUE_EXCEEDED,
+        INVALID_SYMBOL,
+        NON_POSITIVE_PRICE,
+        INSUFFICIENT_FUNDS,
+        RISK_LIMIT_EXCEEDED,
+        POSITION_LIMIT_EXCEEDED,
+        PRICE_OUT_OF_RANGE,
+        OUTSIDE_TRADING_HOURS,
+        RULE_REJECTED,            // rejected by a rule that gives no specific code (e.g. legacy DRL)
+        RULE_COMPILATION_ERROR,
+        RULE_EVALUATION_ERROR
+    }
+
+    private boolean approved = true;
+    private final EnumSet<ReasonCode> reasons = EnumSet.noneOf(ReasonCode.class);
+    private final StringBuilder messages = new StringBuilder();
+
+    public void reject(ReasonCode reason) {
+        approved = false;
+        reasons.add(reason);
+    }
+
+    public void reject(ReasonCode reason, String message) {
+        reject(reason);
+        appendMessage(message);
+    }
+
+    public void appendMessage(String message) {
+        if (message == null || message.isBlank()) {
+            return;
+        }
+        if (!messages.isEmpty() && messages.charAt(messages.length() - 1) != ' ') {
+            messages.append(' ');
+        }
+        messages.append(message);
+    }
+
+    public boolean isApproved() {
+        return approved;
+    }
+
+    public Set<ReasonCode> getReasons() {
+        return reasons;
+    }
+
+    /** Free-text reasons appended by rules; legacy DRLs append to this buffer directly. */
+    public StringBuilder getMessages() {
+        return messages;
+    }
+
+    /** Human-readable summary: rule messages if any were given, otherwise the reason codes. */
+    public String describe() {
+        if (!messages.isEmpty()) {
+            return messages.toString().trim();
+        }
+        return reasons.stream().map(Enum::name).collect(Collectors.joining(", "));
+    }
+
+    public void reset() {
+        approved = true;
+        reasons.clear();
+        messages.setLength(0);
+    }
+}
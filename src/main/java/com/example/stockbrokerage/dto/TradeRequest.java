@@ -34,5 +34,8 @@ public class TradeRequest {
     @NotNull(message = "Trade type is required")
     private TradeType type;
     
-    private OrderType orderType; // MARKET or LIMIT, defaults to MARKET
+    private OrderType orderType; // MARKET, LIMIT, STOP or STOP_LIMIT, defaults to MARKET
+    
+    @DecimalMin(value = "0.01", message = "Stop price must be greater than 0")
+    private BigDecimal stopPrice; // required for STOP and STOP_LIMIT
 }
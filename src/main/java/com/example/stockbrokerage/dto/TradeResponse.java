@@ -24,6 +24,7 @@ public class TradeResponse {
     private BigDecimal price;
     private TradeType type;
     private OrderType orderType;
+    private BigDecimal stopPrice;
     private TradeStatus status;
     private LocalDateTime tradeTime;
     private LocalDateTime expiryTime;
@@ -43,12 +43,15 @@ public class Trade {
     
     @Enumerated(EnumType.STRING)
     @Column(name = "order_type", length = 10)
-    private OrderType orderType; // MARKET or LIMIT
+    private OrderType orderType; // MARKET, LIMIT, STOP or STOP_LIMIT
     
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private TradeStatus status;
     
+    @Column(name = "stop_price", precision = 19, scale = 4)
+    private BigDecimal stopPrice; // trigger price of STOP / STOP_LIMIT orders
+    
     @Column(name = "trade_time", nullable = false)
     private LocalDateTime tradeTime;
     
@@ -83,7 +86,12 @@ public class Trade {
     }
     
     public enum OrderType {
-        MARKET, LIMIT
+        MARKET, LIMIT, STOP, STOP_LIMIT;
+        
+        /** Orders that wait for a trigger price before they can execute. */
+        public boolean isStop() {
+            return this == STOP || this == STOP_LIMIT;
+        }
     }
     
     public enum TradeStatus {
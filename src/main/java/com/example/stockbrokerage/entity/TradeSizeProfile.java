@@ -0,0 +1,62 @@
+package com.example.stockbrokerage.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted state of one trade-size anomaly profile (see TradeSizeAnomalyModel): running
+ * mean and variance of ln(1 + notional) and ln(1 + quantity) for a client or a symbol.
+ */
+@Entity
+@Table(name = "trade_size_profiles", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_tsp_scope_subject", columnNames = {"scope", "subject"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeSizeProfile {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Scope scope;
+
+    /** Client id or symbol. */
+    @Column(nullable = false, length = 30)
+    private String subject;
+
+    @Column(nullable = false)
+    private long samples;
+
+    @Column(name = "notional_mean", nullable = false)
+    private double notionalMean;
+
+    @Column(name = "notional_variance", nullable = false)
+    private double notionalVariance;
+
+    @Column(name = "quantity_mean", nullable = false)
+    private double quantityMean;
+
+    @Column(name = "quantity_variance", nullable = false)
+    private double quantityVariance;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum Scope {
+        CLIENT, SYMBOL
+    }
+}
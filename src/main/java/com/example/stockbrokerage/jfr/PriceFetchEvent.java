@@ -0,0 +1,34 @@
+package com.example.stockbrokerage.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One request to one market data endpoint, successful or not. */
+@Name("com.example.stockbrokerage.PriceFetch")
+@Label("Price Fetch")
+@Category({"Stock Brokerage", "Market Data"})
+@Description("One attempt against a Yahoo Finance endpoint")
+@StackTrace(false)
+public class PriceFetchEvent extends Event {
+
+    @Label("Symbol")
+    public String symbol;
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Price")
+    @Description("Price returned by a quote endpoint, 0 if none")
+    public double price;
+
+    @Label("Data Points")
+    @Description("Bars returned by a historical endpoint")
+    public int dataPoints;
+}
@@ -0,0 +1,40 @@
+package com.example.stockbrokerage.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** Rule evaluation of one trade against the shared rule base and the client's overlay. */
+@Name("com.example.stockbrokerage.RuleEvaluation")
+@Label("Rule Evaluation")
+@Category({"Stock Brokerage", "Rules"})
+@Description("Evaluation of one trade by RuleEngineService")
+@StackTrace(false)
+public class RuleEvaluationEvent extends Event {
+
+    @Label("Client Id")
+    public long clientId;
+
+    @Label("Symbol")
+    public String symbol;
+
+    @Label("Client Overlay")
+    @Description("Whether the client has CLIENT rules of its own")
+    public boolean clientOverlay;
+
+    @Label("Shared Rules")
+    @Timespan(Timespan.NANOSECONDS)
+    public long sharedRules;
+
+    @Label("Client Rules")
+    @Timespan(Timespan.NANOSECONDS)
+    public long clientRules;
+
+    @Label("Outcome")
+    @Description("APPROVED, or the rejection reasons")
+    public String outcome;
+}
@@ -0,0 +1,25 @@
+package com.example.stockbrokerage.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One run of a {@code @Scheduled} batch job (trend analysis, predictions, reconciliation, order expiry ...). */
+@Name("com.example.stockbrokerage.ScheduledJob")
+@Label("Scheduled Job")
+@Category({"Stock Brokerage", "Batch"})
+@Description("One run of a scheduled batch job")
+@StackTrace(false)
+public class ScheduledJobEvent extends Event {
+
+    @Label("Job")
+    @Description("Class.method of the scheduled method")
+    public String job;
+
+    @Label("Outcome")
+    @Description("OK, or the simple name of the exception the run ended with")
+    public String outcome;
+}
@@ -0,0 +1,71 @@
+package com.example.stockbrokerage.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One call of {@code TradeService.executeTrade}, begun on entry and committed with the
+ * order's outcome and per-stage times. Recorded on the executing thread, so a slow order lines
+ * up with the GC pauses, lock waits and safepoints of the same recording.
+ */
+@Name("com.example.stockbrokerage.TradeExecution")
+@Label("Trade Execution")
+@Category({"Stock Brokerage", "Orders"})
+@Description("Execution of one order submitted through the trade API")
+@StackTrace(false)
+public class TradeExecutionEvent extends Event {
+
+    @Label("Trade Id")
+    public long tradeId;
+
+    @Label("Client Id")
+    public long clientId;
+
+    @Label("Symbol")
+    public String symbol;
+
+    @Label("Side")
+    public String side;
+
+    @Label("Order Type")
+    public String orderType;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Reason")
+    public String reason;
+
+    @Label("Client Lookup")
+    @Timespan(Timespan.NANOSECONDS)
+    public long clientLookup;
+
+    @Label("Fraud Checks")
+    @Timespan(Timespan.NANOSECONDS)
+    public long fraud;
+
+    @Label("Rule Evaluation")
+    @Timespan(Timespan.NANOSECONDS)
+    public long rules;
+
+    @Label("Portfolio Update")
+    @Timespan(Timespan.NANOSECONDS)
+    public long portfolioUpdate;
+
+    @Label("Account Update")
+    @Timespan(Timespan.NANOSECONDS)
+    public long accountUpdate;
+
+    @Label("Audit")
+    @Timespan(Timespan.NANOSECONDS)
+    public long audit;
+
+    @Label("Persist")
+    @Timespan(Timespan.NANOSECONDS)
+    public long persist;
+}
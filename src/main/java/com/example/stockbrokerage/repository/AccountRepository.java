@@ -3,12 +3,29 @@ package com.example.stockbrokerage.repository;
 import com.example.stockbrokerage.entity.Account;
 import com.example.stockbrokerage.entity.Client;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findByClient(Client client);
     Optional<Account> findByClientId(Long clientId);
+    
+    /** Atomic increment of both balances; returns 0 if the client has no account. */
+    @Modifying
+    @Query("UPDATE Account a SET a.cashBalance = a.cashBalance + :cashDelta, a.reservedBalance = a.reservedBalance + :reservedDelta, "
+            + "a.updatedAt = :now WHERE a.client.id = :clientId")
+    int addToBalances(Long clientId, BigDecimal cashDelta, BigDecimal reservedDelta, LocalDateTime now);
+    
+    /** Like {@link #addToBalances}, but returns 0 instead if the available balance would go negative. */
+    @Modifying
+    @Query("UPDATE Account a SET a.cashBalance = a.cashBalance + :cashDelta, a.reservedBalance = a.reservedBalance + :reservedDelta, "
+            + "a.updatedAt = :now WHERE a.client.id = :clientId "
+            + "AND a.cashBalance + :cashDelta - a.reservedBalance - :reservedDelta >= 0")
+    int addToBalancesIfAvailable(Long clientId, BigDecimal cashDelta, BigDecimal reservedDelta, LocalDateTime now);
 }
@@ -4,6 +4,7 @@ import com.example.stockbrokerage.entity.Rule;
 import com.example.stockbrokerage.entity.Rule.RuleLevel;
 import com.example.stockbrokerage.entity.Rule.RuleType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -22,4 +23,9 @@ public interface RuleRepository extends JpaRepository<Rule, Long> {
     List<Rule> findByClientIdAndActiveTrue(Long clientId);
     
     List<Rule> findByRuleTypeAndActiveTrue(RuleType ruleType);
+    
+    List<Rule> findByLevelAndClientIdAndActiveTrue(RuleLevel level, Long clientId);
+    
+    @Query("SELECT DISTINCT r.clientId FROM Rule r WHERE r.level = 'CLIENT' AND r.active = true AND r.clientId IS NOT NULL")
+    List<Long> findClientIdsWithActiveClientRules();
 }
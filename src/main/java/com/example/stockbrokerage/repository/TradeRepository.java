@@ -2,12 +2,18 @@ package com.example.stockbrokerage.repository;
 
 import com.example.stockbrokerage.entity.Trade;
 import com.example.stockbrokerage.entity.Trade.TradeStatus;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TradeRepository extends JpaRepository<Trade, Long> {
@@ -23,9 +29,35 @@ public interface TradeRepository extends JpaRepository<Trade, Long> {
     @Query("SELECT t FROM Trade t WHERE t.tradeTime >= :startTime AND t.tradeTime <= :endTime")
     List<Trade> findTradesByTimeRange(LocalDateTime startTime, LocalDateTime endTime);
     
+    List<Trade> findByTradeTimeBetween(LocalDateTime startTime, LocalDateTime endTime, Pageable pageable);
+    
     @Query("SELECT t FROM Trade t WHERE t.clientId = :clientId AND t.tradeTime >= :startTime")
     List<Trade> findTodayTradesByClient(Long clientId, LocalDateTime startTime);
     
+    /** [clientId, sum of price × quantity] for every client with trades since {@code startTime}. */
+    @Query("SELECT t.clientId, SUM(t.price * t.quantity) FROM Trade t WHERE t.tradeTime >= :startTime GROUP BY t.clientId")
+    List<Object[]> sumNotionalByClientSince(LocalDateTime startTime);
+    
     @Query("SELECT t FROM Trade t WHERE t.status = 'PENDING' AND t.orderType = 'LIMIT' AND t.expiryTime > :now")
     List<Trade> findActiveLimitOrders(LocalDateTime now);
+    
+    /** Unexpired pending LIMIT, STOP and STOP_LIMIT orders — everything the trigger index holds. */
+    @Query("SELECT t FROM Trade t WHERE t.status = 'PENDING' AND t.orderType IN ('LIMIT', 'STOP', 'STOP_LIMIT') AND t.expiryTime > :now")
+    List<Trade> findActiveRestingOrders(LocalDateTime now);
+    
+    /** Pending LIMIT, STOP and STOP_LIMIT orders regardless of expiry, including ones already past it. */
+    @Query("SELECT t FROM Trade t WHERE t.status = 'PENDING' AND t.orderType IN ('LIMIT', 'STOP', 'STOP_LIMIT')")
+    List<Trade> findPendingRestingOrders();
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Trade t WHERE t.id = :id")
+    Optional<Trade> findByIdForUpdate(Long id);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Trade t WHERE t.id IN :ids AND t.status = 'PENDING'")
+    List<Trade> findPendingByIdInForUpdate(Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Trade t SET t.status = :status, t.updatedAt = :now WHERE t.id IN :ids")
+    int updateStatus(Collection<Long> ids, TradeStatus status, LocalDateTime now);
 }
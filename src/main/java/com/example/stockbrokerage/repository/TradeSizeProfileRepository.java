@@ -0,0 +1,9 @@
+package com.example.stockbrokerage.repository;
+
+import com.example.stockbrokerage.entity.TradeSizeProfile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TradeSizeProfileRepository extends JpaRepository<TradeSizeProfile, Long> {
+}
@@ -0,0 +1,11 @@
+package com.example.stockbrokerage.service;
+
+import java.util.Collection;
+
+/**
+ * Published when account balances are overwritten outside {@link AccountLedger} (e.g. by
+ * {@link ReconciliationService}). The ledger drops those clients once the surrounding
+ * transaction has committed and reloads them from the accounts table on next use.
+ */
+public record AccountBalancesResetEvent(Collection<Long> clientIds) {
+}
@@ -0,0 +1,229 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.entity.Account;
+import com.example.stockbrokerage.repository.AccountRepository;
+import com.example.stockbrokerage.util.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory cash and reserved balances per client, written through to the accounts table.
+ *
+ * Design decisions:
+ *  - Each client's balances live in one small object guarded by its own monitor, held only
+ *    for the in-memory check-and-update; clients never contend with each other and the
+ *    balance check on the trade path costs no database round trip.
+ *  - Every change is written through as a single atomic increment
+ *    ({@link AccountRepository#addToBalances}) instead of SELECT + UPDATE of the entity, so
+ *    concurrent writers cannot lose each other's updates. Checked operations (withdraw,
+ *    reserve) use the guarded form of the increment; if the row disagrees with memory the
+ *    entry is dropped, reloaded on next use, and the operation fails as insufficient.
+ *  - Changes are applied in memory immediately and undone if the surrounding transaction
+ *    rolls back, so memory never shows a balance the table does not eventually commit.
+ *  - Amounts are {@link Money} units rounded to cents, the scale of the accounts columns,
+ *    so memory and table round identically.
+ *  - Entries load lazily from the table. Code that overwrites balances directly
+ *    (reconciliation) publishes an {@link AccountBalancesResetEvent} to drop them after commit.
+ */
+@Component
+@Slf4j
+public class AccountLedger {
+
+    /** Unit multiple of one cent: the accounts columns are numeric(15,2). */
+    private static final long UNITS_PER_CENT = Money.UNITS_PER_DOLLAR / 100;
+
+    /** A consistent view of one client's balances, in Money units. */
+    public record Snapshot(Long accountId, long cashUnits, long reservedUnits) {
+
+        public long availableUnits() {
+            return Money.subtract(cashUnits, reservedUnits);
+        }
+    }
+
+    private final AccountRepository accountRepository;
+    private final Map<Long, Balance> balances = new ConcurrentHashMap<>();
+    private final Counter conflicts;
+
+    public AccountLedger(AccountRepository accountRepository, MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.conflicts = Counter.builder("accounts.ledger.conflicts")
+                .description("Guarded balance writes the accounts table refused; the entry was reloaded")
+                .register(meterRegistry);
+        Gauge.builder("accounts.ledger.clients", balances, Map::size)
+                .description("Client accounts held in the in-memory ledger")
+                .register(meterRegistry);
+    }
+
+    public Snapshot snapshot(Long clientId) {
+        Balance balance = balance(clientId);
+        synchronized (balance) {
+            return new Snapshot(balance.accountId, balance.cash, balance.reserved);
+        }
+    }
+
+    /** Adds to cash (deposits, SELL proceeds). */
+    public void credit(Long clientId, long amountUnits) {
+        apply(clientId, toCents(amountUnits), 0L, null);
+    }
+
+    /** Takes from cash; fails if it exceeds the available balance. */
+    public void withdraw(Long clientId, long amountUnits) {
+        long amount = toCents(amountUnits);
+        apply(clientId, -amount, 0L, "Insufficient available balance for withdrawal");
+    }
+
+    /** Moves available cash into reserve for a pending BUY; fails if it exceeds the available balance. */
+    public void reserve(Long clientId, long amountUnits) {
+        apply(clientId, 0L, toCents(amountUnits), "Insufficient available balance");
+    }
+
+    public void release(Long clientId, long amountUnits) {
+        apply(clientId, 0L, -toCents(amountUnits), null);
+    }
+
+    /** Pays for an executed BUY out of its reservation: takes the amount from cash and reserve. */
+    public void settle(Long clientId, long amountUnits) {
+        long amount = toCents(amountUnits);
+        apply(clientId, -amount, -amount, null);
+    }
+
+    /** Applies net cash and reserve changes computed elsewhere (batch settlement), unchecked. */
+    public void adjust(Long clientId, long cashDeltaUnits, long reservedDeltaUnits) {
+        apply(clientId, toCents(cashDeltaUnits), toCents(reservedDeltaUnits), null);
+    }
+
+    public void evict(Long clientId) {
+        Balance balance = balances.remove(clientId);
+        if (balance != null) {
+            synchronized (balance) {
+                balance.evicted = true;
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountBalancesReset(AccountBalancesResetEvent event) {
+        event.clientIds().forEach(this::evict);
+    }
+
+    public int size() {
+        return balances.size();
+    }
+
+    /**
+     * Applies the deltas in memory and writes them through. With a {@code insufficientMessage}
+     * the change is checked: it must leave the available balance non-negative, in memory and
+     * in the table.
+     */
+    private void apply(Long clientId, long cashDelta, long reservedDelta, String insufficientMessage) {
+        if (cashDelta == 0 && reservedDelta == 0) {
+            return;
+        }
+        Balance balance = applyInMemory(clientId, cashDelta, reservedDelta, insufficientMessage);
+
+        BigDecimal cash = Money.toBigDecimal(cashDelta);
+        BigDecimal reserved = Money.toBigDecimal(reservedDelta);
+        LocalDateTime now = LocalDateTime.now();
+        int updated = insufficientMessage == null
+                ? accountRepository.addToBalances(clientId, cash, reserved, now)
+                : accountRepository.addToBalancesIfAvailable(clientId, cash, reserved, now);
+        if (updated == 0) {
+            undo(balance, cashDelta, reservedDelta);
+            evict(clientId);
+            conflicts.increment();
+            log.warn("Accounts table refused balance change for client {} (cash {}, reserved {}); reloading",
+                    clientId, cash, reserved);
+            throw new RuntimeException(insufficientMessage != null
+                    ? insufficientMessage
+                    : "Account not found for client: " + clientId);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        undo(balance, cashDelta, reservedDelta);
+                    } else if (status == STATUS_UNKNOWN) {
+                        evict(clientId);
+                    }
+                }
+            });
+        }
+    }
+
+    private Balance applyInMemory(Long clientId, long cashDelta, long reservedDelta, String insufficientMessage) {
+        while (true) {
+            Balance balance = balance(clientId);
+            synchronized (balance) {
+                if (balance.evicted) {
+                    continue;
+                }
+                long cash = Money.add(balance.cash, cashDelta);
+                long reserved = Money.add(balance.reserved, reservedDelta);
+                if (insufficientMessage != null && cash - reserved < 0) {
+                    throw new RuntimeException(insufficientMessage);
+                }
+                balance.cash = cash;
+                balance.reserved = reserved;
+                return balance;
+            }
+        }
+    }
+
+    private void undo(Balance balance, long cashDelta, long reservedDelta) {
+        synchronized (balance) {
+            balance.cash = Money.subtract(balance.cash, cashDelta);
+            balance.reserved = Money.subtract(balance.reserved, reservedDelta);
+        }
+    }
+
+    private Balance balance(Long clientId) {
+        Balance balance = balances.get(clientId);
+        if (balance != null) {
+            return balance;
+        }
+        Account account = accountRepository.findByClientId(clientId)
+                .orElseThrow(() -> new RuntimeException("Account not found for client: " + clientId));
+        Balance loaded = new Balance(account.getId(),
+                Money.of(account.getCashBalance()), Money.of(account.getReservedBalance()));
+        Balance existing = balances.putIfAbsent(clientId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    /** Rounds half away from zero to whole cents, as numeric(15,2) does on assignment. */
+    static long toCents(long units) {
+        long remainder = units % UNITS_PER_CENT;
+        long cents = units - remainder;
+        if (Math.abs(remainder) * 2 >= UNITS_PER_CENT) {
+            cents = Money.add(cents, Long.signum(remainder) * UNITS_PER_CENT);
+        }
+        return cents;
+    }
+
+    /** One client's balances; fields are guarded by the object's monitor. */
+    private static final class Balance {
+
+        private final Long accountId;
+        private long cash;
+        private long reserved;
+        private boolean evicted;
+
+        Balance(Long accountId, long cash, long reserved) {
+            this.accountId = accountId;
+            this.cash = cash;
+            this.reserved = reserved;
+        }
+    }
+}
@@ -1,83 +1,76 @@
 package com.example.stockbrokerage.service;
 
 import com.example.stockbrokerage.dto.AccountResponse;
-import com.example.stockbrokerage.entity.Account;
-import com.example.stockbrokerage.repository.AccountRepository;
+import com.example.stockbrokerage.util.Money;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
+/**
+ * Client cash operations. Balances are checked and updated in {@link AccountLedger}, which
+ * writes each change through to the accounts table as one atomic increment.
+ * The BigDecimal methods are for request boundaries; order execution passes {@link Money}
+ * units straight through.
+ */
 @Service
 @RequiredArgsConstructor
 public class AccountService {
     
-    private final AccountRepository accountRepository;
+    private final AccountLedger accountLedger;
     
     public AccountResponse getClientAccount(Long clientId) {
-        Account account = accountRepository.findByClientId(clientId)
-            .orElseThrow(() -> new RuntimeException("Account not found for client: " + clientId));
+        AccountLedger.Snapshot account = accountLedger.snapshot(clientId);
         
         return new AccountResponse(
-            account.getId(),
-            account.getCashBalance(),
-            account.getReservedBalance(),
-            account.getAvailableBalance()
+            account.accountId(),
+            toBalance(account.cashUnits()),
+            toBalance(account.reservedUnits()),
+            toBalance(account.availableUnits())
         );
     }
     
     @Transactional
     public void addFunds(Long clientId, BigDecimal amount) {
-        Account account = accountRepository.findByClientId(clientId)
-            .orElseThrow(() -> new RuntimeException("Account not found"));
-        
-        account.setCashBalance(account.getCashBalance().add(amount));
-        accountRepository.save(account);
+        addFunds(clientId, units(amount));
+    }
+    
+    @Transactional
+    public void addFunds(Long clientId, long amountUnits) {
+        accountLedger.credit(clientId, amountUnits);
     }
     
     @Transactional
     public void withdrawFunds(Long clientId, BigDecimal amount) {
-        Account account = accountRepository.findByClientId(clientId)
-            .orElseThrow(() -> new RuntimeException("Account not found"));
-        
-        if (account.getAvailableBalance().compareTo(amount) < 0) {
-            throw new RuntimeException("Insufficient available balance for withdrawal");
-        }
-        
-        account.setCashBalance(account.getCashBalance().subtract(amount));
-        accountRepository.save(account);
+        accountLedger.withdraw(clientId, units(amount));
     }
     
     @Transactional
-    public void reserveFunds(Long clientId, BigDecimal amount) {
-        Account account = accountRepository.findByClientId(clientId)
-            .orElseThrow(() -> new RuntimeException("Account not found"));
-        
-        if (account.getAvailableBalance().compareTo(amount) < 0) {
-            throw new RuntimeException("Insufficient available balance");
-        }
-        
-        account.setReservedBalance(account.getReservedBalance().add(amount));
-        accountRepository.save(account);
+    public void reserveFunds(Long clientId, long amountUnits) {
+        accountLedger.reserve(clientId, amountUnits);
     }
     
     @Transactional
-    public void releaseReservedFunds(Long clientId, BigDecimal amount) {
-        Account account = accountRepository.findByClientId(clientId)
-            .orElseThrow(() -> new RuntimeException("Account not found"));
-        
-        account.setReservedBalance(account.getReservedBalance().subtract(amount));
-        accountRepository.save(account);
+    public void releaseReservedFunds(Long clientId, long amountUnits) {
+        accountLedger.release(clientId, amountUnits);
     }
     
     @Transactional
-    public void deductFunds(Long clientId, BigDecimal amount) {
-        Account account = accountRepository.findByClientId(clientId)
-            .orElseThrow(() -> new RuntimeException("Account not found"));
-        
-        account.setCashBalance(account.getCashBalance().subtract(amount));
-        account.setReservedBalance(account.getReservedBalance().subtract(amount));
-        accountRepository.save(account);
+    public void deductFunds(Long clientId, long amountUnits) {
+        accountLedger.settle(clientId, amountUnits);
+    }
+    
+    private long units(BigDecimal amount) {
+        if (amount == null) {
+            throw new RuntimeException("Amount is required");
+        }
+        return Money.of(amount);
+    }
+    
+    /** Ledger balances are whole cents; report them at the column scale. */
+    private BigDecimal toBalance(long units) {
+        return Money.toBigDecimal(units).setScale(2, RoundingMode.HALF_UP);
     }
 }
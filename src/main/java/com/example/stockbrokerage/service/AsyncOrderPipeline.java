@@ -0,0 +1,199 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.OrderStatusEvent;
+import com.example.stockbrokerage.dto.TradeRequest;
+import com.example.stockbrokerage.dto.TradeResponse;
+import com.example.stockbrokerage.entity.Trade.TradeStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Asynchronous order acceptance: an order is acknowledged with an order id straight away
+ * and executed in the background; status changes are pushed to Server-Sent Event subscribers.
+ *
+ * Design decisions:
+ *  - Execution goes through {@link OrderSequencer}, i.e. the same per-client lane and the same
+ *    {@link TradeService#executeTrade} as the synchronous endpoint — only the wait is removed.
+ *    Events are published off the lane thread so a slow subscriber cannot stall order flow.
+ *  - Order ids are generated here (not the trade's DB id) so they exist before anything is
+ *    persisted; the trade id is attached to the final event.
+ *  - Latest status per order is kept in memory for polling and late subscribers, and dropped
+ *    {@code orders.async.status-retention-minutes} after completion.
+ *  - Subscribers may follow a single order or every order of one client.
+ */
+@Component
+@Slf4j
+public class AsyncOrderPipeline {
+
+    private final OrderSequencer orderSequencer;
+    private final TradeService tradeService;
+    private final long sseTimeoutMillis;
+    private final long retentionMinutes;
+
+    private final Map<String, OrderStatusEvent> statuses = new ConcurrentHashMap<>();
+    private final Map<String, List<SseEmitter>> orderSubscribers = new ConcurrentHashMap<>();
+    private final Map<Long, List<SseEmitter>> clientSubscribers = new ConcurrentHashMap<>();
+
+    public AsyncOrderPipeline(OrderSequencer orderSequencer,
+                              TradeService tradeService,
+                              MeterRegistry meterRegistry,
+                              @Value("${orders.async.sse-timeout-ms:300000}") long sseTimeoutMillis,
+                              @Value("${orders.async.status-retention-minutes:10}") long retentionMinutes) {
+        this.orderSequencer = orderSequencer;
+        this.tradeService = tradeService;
+        this.sseTimeoutMillis = sseTimeoutMillis;
+        this.retentionMinutes = retentionMinutes;
+
+        Gauge.builder("orders.async.in.flight", statuses,
+                        s -> s.values().stream().filter(e -> !e.isCompleted()).count())
+                .description("Asynchronously accepted orders that have not finished executing")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers the order, queues it on the client's lane and returns the initial PENDING status.
+     * Throws {@link com.example.stockbrokerage.exception.RequestThrottledException} if the lane is full.
+     */
+    public OrderStatusEvent accept(TradeRequest request) {
+        String orderId = UUID.randomUUID().toString();
+        OrderStatusEvent accepted = OrderStatusEvent.builder()
+                .orderId(orderId)
+                .clientId(request.getClientId())
+                .symbol(request.getSymbol())
+                .status(TradeStatus.PENDING)
+                .timestamp(LocalDateTime.now())
+                .build();
+        statuses.put(orderId, accepted);
+
+        try {
+            orderSequencer.submit(request.getClientId(), () -> tradeService.executeTrade(request))
+                    .whenCompleteAsync((response, error) -> complete(accepted, response, error));
+        } catch (RuntimeException e) {
+            statuses.remove(orderId);
+            throw e;
+        }
+        log.debug("Accepted async order {} for client {}", orderId, request.getClientId());
+        return accepted;
+    }
+
+    public OrderStatusEvent getStatus(String orderId) {
+        OrderStatusEvent status = statuses.get(orderId);
+        if (status == null) {
+            throw new RuntimeException("Order not found or expired: " + orderId);
+        }
+        return status;
+    }
+
+    /** Streams status events for one order; the stream closes after the final event. */
+    public SseEmitter subscribeOrder(String orderId) {
+        getStatus(orderId);
+        // Register before reading the status again so a completion in between is not missed
+        SseEmitter emitter = newEmitter(orderSubscribers, orderId);
+        OrderStatusEvent current = statuses.get(orderId);
+        if (current == null) {
+            emitter.complete();
+            return emitter;
+        }
+        send(emitter, current);
+        if (current.isCompleted()) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    /** Streams status events for every async order of the client until the client disconnects. */
+    public SseEmitter subscribeClient(Long clientId) {
+        SseEmitter emitter = newEmitter(clientSubscribers, clientId);
+        statuses.values().stream()
+                .filter(s -> clientId.equals(s.getClientId()) && !s.isCompleted())
+                .forEach(s -> send(emitter, s));
+        return emitter;
+    }
+
+    private void complete(OrderStatusEvent accepted, TradeResponse response, Throwable error) {
+        OrderStatusEvent.OrderStatusEventBuilder event = OrderStatusEvent.builder()
+                .orderId(accepted.getOrderId())
+                .clientId(accepted.getClientId())
+                .symbol(accepted.getSymbol())
+                .completed(true)
+                .timestamp(LocalDateTime.now());
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            log.warn("Async order {} failed: {}", accepted.getOrderId(), cause.getMessage());
+            event.status(TradeStatus.REJECTED).reason(cause.getMessage());
+        } else {
+            // LIMIT orders finish processing while still PENDING — resting on the book
+            event.status(response.getStatus())
+                    .tradeId(response.getId())
+                    .reason(response.getFraudCheckReason());
+        }
+        publish(event.build());
+    }
+
+    private void publish(OrderStatusEvent event) {
+        statuses.put(event.getOrderId(), event);
+
+        List<SseEmitter> forOrder = orderSubscribers.get(event.getOrderId());
+        if (forOrder != null) {
+            for (SseEmitter emitter : forOrder) {
+                send(emitter, event);
+                if (event.isCompleted()) {
+                    emitter.complete();
+                }
+            }
+        }
+        List<SseEmitter> forClient = clientSubscribers.get(event.getClientId());
+        if (forClient != null) {
+            forClient.forEach(emitter -> send(emitter, event));
+        }
+    }
+
+    private <K> SseEmitter newEmitter(Map<K, List<SseEmitter>> subscribers, K key) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        subscribers.compute(key, (k, list) -> {
+            List<SseEmitter> emitters = list != null ? list : new CopyOnWriteArrayList<>();
+            emitters.add(emitter);
+            return emitters;
+        });
+        Runnable remove = () -> subscribers.computeIfPresent(key, (k, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    private static void send(SseEmitter emitter, OrderStatusEvent event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(event.getOrderId() + ":" + event.getStatus())
+                    .name("order-status")
+                    .data(event));
+        } catch (IOException | IllegalStateException e) {
+            // Subscriber went away; its completion callback removes it
+            emitter.completeWithError(e);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeCompleted() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        statuses.values().removeIf(s -> s.isCompleted() && s.getTimestamp().isBefore(cutoff));
+    }
+}
@@ -0,0 +1,413 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.BatchTradeRequest;
+import com.example.stockbrokerage.dto.BatchTradeResponse;
+import com.example.stockbrokerage.dto.PreTradeVerdict;
+import com.example.stockbrokerage.dto.RuleVerdict;
+import com.example.stockbrokerage.dto.TradeRequest;
+import com.example.stockbrokerage.dto.TradeResponse;
+import com.example.stockbrokerage.entity.Client;
+import com.example.stockbrokerage.entity.Portfolio;
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.entity.Trade.TradeStatus;
+import com.example.stockbrokerage.repository.PortfolioRepository;
+import com.example.stockbrokerage.util.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executes a basket of orders in one transaction.
+ *
+ * Design decisions:
+ *  - Fraud checks and rule evaluation run once over the whole basket
+ *    ({@link FraudDetectionService#screen(List)}, {@link RuleEngineService#evaluateTrades}),
+ *    each client and its balances loaded once and shared by the fraud checks and settlement.
+ *  - Account and portfolio effects are applied in memory per client, in submission order,
+ *    with the same arithmetic as the single-order path; each account and position row is then
+ *    written once instead of once per order.
+ *  - Every BUY is checked against the client's available balance as it stands after the
+ *    orders ahead of it, and every SELL against the position held at that point, including
+ *    shares bought earlier in the basket. An order that fails either check rejects only that
+ *    order, not the whole basket; a basket never spends the same cash or shares twice.
+ *  - TradeController only accepts baskets of one client and runs each on that client's
+ *    {@link OrderSequencer} lane, so a basket never interleaves with the client's other orders.
+ *  - Trades and audit rows are inserted with JDBC batch statements; Hibernate cannot batch
+ *    them because both entities use IDENTITY keys. Generated trade ids are read back.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchTradeService {
+
+    private static final String INSERT_TRADE_SQL = """
+            INSERT INTO trades (client_id, symbol, quantity, price, type, order_type, status, trade_time,
+                                expiry_time, created_at, fraud_check_passed, fraud_check_reason, stop_price)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_AUDIT_SQL = """
+            INSERT INTO audit_logs (event_time, entity_type, entity_id, action, user_id, details)
+            VALUES (?, 'TRADE', ?, ?, 'SYSTEM', ?)
+            """;
+
+    private final ClientService clientService;
+    private final FraudDetectionService fraudDetectionService;
+    private final RuleEngineService ruleEngineService;
+    private final AccountLedger accountLedger;
+    private final PortfolioRepository portfolioRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public BatchTradeResponse executeBatch(BatchTradeRequest request) {
+        long startTime = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Trade> trades = new ArrayList<>(request.getOrders().size());
+        for (TradeRequest order : request.getOrders()) {
+            trades.add(toTrade(order, now));
+        }
+        List<String> auditActions = new ArrayList<>(trades.size());
+        List<String> auditDetails = new ArrayList<>(trades.size());
+        for (int i = 0; i < trades.size(); i++) {
+            auditActions.add(null);
+            auditDetails.add(null);
+        }
+
+        // 1. Fraud checks for the whole basket; each client and its balances are loaded once
+        Map<Long, Client> clients = new HashMap<>();
+        Map<Long, AccountLedger.Snapshot> accounts = new HashMap<>();
+        List<PreTradeContext> contexts = new ArrayList<>(trades.size());
+        List<Integer> contextIndexes = new ArrayList<>(trades.size());
+        for (int i = 0; i < trades.size(); i++) {
+            Trade trade = trades.get(i);
+            try {
+                Client client = clients.computeIfAbsent(trade.getClientId(), clientService::getClientById);
+                AccountLedger.Snapshot account = accounts.computeIfAbsent(trade.getClientId(), accountLedger::snapshot);
+                contexts.add(new PreTradeContext(trade, client, account));
+                contextIndexes.add(i);
+            } catch (RuntimeException e) {
+                trade.setFraudCheckPassed(false);
+                trade.setFraudCheckReason("Fraud check error: " + e.getMessage());
+                reject(trade, i, auditActions, auditDetails, "Failed fraud check: " + trade.getFraudCheckReason());
+            }
+        }
+        List<PreTradeVerdict> fraudVerdicts = fraudDetectionService.screen(contexts);
+        List<Trade> passedFraud = new ArrayList<>();
+        List<Integer> passedIndexes = new ArrayList<>();
+        for (int k = 0; k < contexts.size(); k++) {
+            Trade trade = contexts.get(k).getTrade();
+            PreTradeVerdict verdict = fraudVerdicts.get(k);
+            trade.setFraudCheckPassed(verdict.isApproved());
+            trade.setFraudCheckReason(verdict.describe());
+            if (verdict.isApproved()) {
+                passedFraud.add(trade);
+                passedIndexes.add(contextIndexes.get(k));
+            } else {
+                reject(trade, contextIndexes.get(k), auditActions, auditDetails, "Failed fraud check: " + trade.getFraudCheckReason());
+            }
+        }
+
+        // 2. Rules for everything that passed fraud
+        List<RuleVerdict> verdicts = ruleEngineService.evaluateTrades(passedFraud);
+        List<Trade> approved = new ArrayList<>();
+        for (int i = 0; i < passedFraud.size(); i++) {
+            Trade trade = passedFraud.get(i);
+            if (verdicts.get(i).isApproved()) {
+                approved.add(trade);
+            } else {
+                trade.setFraudCheckReason(verdicts.get(i).describe());
+                reject(trade, passedIndexes.get(i), auditActions, auditDetails, "Failed rule validation");
+            }
+        }
+
+        // 3. Account and portfolio effects, grouped per client
+        Map<Long, List<Trade>> byClient = new LinkedHashMap<>();
+        for (Trade trade : approved) {
+            byClient.computeIfAbsent(trade.getClientId(), id -> new ArrayList<>()).add(trade);
+        }
+        for (Map.Entry<Long, List<Trade>> entry : byClient.entrySet()) {
+            settleClient(clients.get(entry.getKey()), accounts.get(entry.getKey()), entry.getValue());
+        }
+        for (int i = 0; i < trades.size(); i++) {
+            if (auditActions.get(i) != null) {
+                continue;
+            }
+            Trade trade = trades.get(i);
+            if (trade.getStatus() == TradeStatus.EXECUTED) {
+                auditActions.set(i, "EXECUTE");
+                auditDetails.set(i, "Market order executed successfully");
+            } else if (trade.getStatus() == TradeStatus.PENDING) {
+                auditActions.set(i, "CREATE");
+                auditDetails.set(i, trade.getOrderType().isStop()
+                        ? "Stop order armed at %s, awaiting trigger".formatted(trade.getStopPrice())
+                        : "Limit order created, awaiting execution");
+            } else {
+                auditActions.set(i, "REJECT");
+                auditDetails.set(i, trade.getFraudCheckReason());
+            }
+        }
+
+        // 4. Batched writes
+        insertTrades(trades);
+        insertAuditRows(trades, auditActions, auditDetails);
+        List<Trade> resting = trades.stream().filter(t -> t.getStatus() == TradeStatus.PENDING).toList();
+        if (!resting.isEmpty()) {
+            eventPublisher.publishEvent(new LimitOrderPlacedEvent(resting));
+        }
+        List<Trade> fills = trades.stream().filter(t -> t.getStatus() == TradeStatus.EXECUTED).toList();
+        if (!fills.isEmpty()) {
+            eventPublisher.publishEvent(new TradeExecutedEvent(fills));
+        }
+
+        List<TradeResponse> results = new ArrayList<>(trades.size());
+        int executed = 0;
+        int pending = 0;
+        int rejected = 0;
+        for (Trade trade : trades) {
+            switch (trade.getStatus()) {
+                case EXECUTED -> executed++;
+                case PENDING -> pending++;
+                default -> rejected++;
+            }
+            results.add(mapToResponse(trade));
+        }
+
+        long durationMillis = (System.nanoTime() - startTime) / 1_000_000;
+        log.info("Batch of {} orders processed in {}ms: executed={}, pending={}, rejected={}",
+                trades.size(), durationMillis, executed, pending, rejected);
+
+        return BatchTradeResponse.builder()
+                .totalOrders(trades.size())
+                .executed(executed)
+                .pending(pending)
+                .rejected(rejected)
+                .processingTimeMillis(durationMillis)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Applies one client's approved orders in submission order to its account and positions,
+     * mirroring AccountService and PortfolioService, then writes each touched row once.
+     * BUYs beyond the available balance and SELLs beyond the position held are rejected.
+     * The basket's net cash and reserve change goes to {@link AccountLedger} as one adjustment.
+     */
+    private void settleClient(Client client, AccountLedger.Snapshot account, List<Trade> trades) {
+        Map<String, Position> positions = new HashMap<>();
+        // Balances are carried in Money units and the net change is applied to the ledger once
+        long cash = account.cashUnits();
+        long reserved = account.reservedUnits();
+        // Carried on its own: a MARKET BUY takes its amount from reserve as well as cash, as
+        // AccountService#deductFunds does, so cash - reserved would not go down with it
+        long available = account.availableUnits();
+
+        for (Trade trade : trades) {
+            long amount = Money.notional(Money.of(trade.getPrice()), trade.getQuantity());
+            boolean buy = trade.getType() == Trade.TradeType.BUY;
+            boolean market = trade.getOrderType() == Trade.OrderType.MARKET;
+            // Resting BUYs do not touch the position, so it is not loaded for them
+            Position position = market || !buy
+                    ? positions.computeIfAbsent(trade.getSymbol(), symbol -> loadPosition(client, symbol))
+                    : null;
+
+            if (buy && available < amount) {
+                trade.setStatus(TradeStatus.REJECTED);
+                trade.setFraudCheckReason("Insufficient available balance");
+                continue;
+            }
+            if (!buy && position.held() < trade.getQuantity()) {
+                trade.setStatus(TradeStatus.REJECTED);
+                trade.setFraudCheckReason("Insufficient position: %d of %s held".formatted(position.held(), trade.getSymbol()));
+                continue;
+            }
+
+            if (market) {
+                trade.setStatus(TradeStatus.EXECUTED);
+                if (buy) {
+                    position.apply(client, trade.getSymbol(), trade.getQuantity(), trade.getPrice());
+                    cash = Money.subtract(cash, amount);
+                    reserved = Money.subtract(reserved, amount);
+                    available = Money.subtract(available, amount);
+                } else {
+                    position.apply(client, trade.getSymbol(), -trade.getQuantity(), trade.getPrice());
+                    cash = Money.add(cash, amount);
+                    available = Money.add(available, amount);
+                }
+            } else {
+                trade.setStatus(TradeStatus.PENDING);
+                if (buy) {
+                    reserved = Money.add(reserved, amount);
+                    available = Money.subtract(available, amount);
+                }
+            }
+        }
+
+        accountLedger.adjust(client.getId(), Money.subtract(cash, account.cashUnits()),
+                Money.subtract(reserved, account.reservedUnits()));
+        for (Position position : positions.values()) {
+            position.flush(portfolioRepository);
+        }
+    }
+
+    private Position loadPosition(Client client, String symbol) {
+        Portfolio existing = portfolioRepository.findByClientAndSymbol(client, symbol).orElse(null);
+        return new Position(existing);
+    }
+
+    private void insertTrades(List<Trade> trades) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_TRADE_SQL, new String[] {"id"})) {
+                for (Trade trade : trades) {
+                    ps.setLong(1, trade.getClientId());
+                    ps.setString(2, trade.getSymbol());
+                    ps.setInt(3, trade.getQuantity());
+                    ps.setBigDecimal(4, trade.getPrice());
+                    ps.setString(5, trade.getType().name());
+                    ps.setString(6, trade.getOrderType().name());
+                    ps.setString(7, trade.getStatus().name());
+                    ps.setTimestamp(8, Timestamp.valueOf(trade.getTradeTime()));
+                    if (trade.getExpiryTime() != null) {
+                        ps.setTimestamp(9, Timestamp.valueOf(trade.getExpiryTime()));
+                    } else {
+                        ps.setNull(9, Types.TIMESTAMP);
+                    }
+                    ps.setTimestamp(10, Timestamp.valueOf(trade.getCreatedAt()));
+                    ps.setBoolean(11, trade.getFraudCheckPassed());
+                    ps.setString(12, trade.getFraudCheckReason());
+                    ps.setBigDecimal(13, trade.getStopPrice());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < trades.size()) {
+                        trades.get(i++).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private void insertAuditRows(List<Trade> trades, List<String> actions, List<String> details) {
+        Timestamp eventTime = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(trades.size());
+        for (int i = 0; i < trades.size(); i++) {
+            rows.add(new Object[] {eventTime, trades.get(i).getId(), actions.get(i), details.get(i)});
+        }
+        jdbcTemplate.batchUpdate(INSERT_AUDIT_SQL, rows);
+    }
+
+    private static void reject(Trade trade, int index, List<String> actions, List<String> details, String detail) {
+        trade.setStatus(TradeStatus.REJECTED);
+        actions.set(index, "REJECT");
+        details.set(index, detail);
+    }
+
+    private static Trade toTrade(TradeRequest request, LocalDateTime now) {
+        Trade.OrderType orderType = request.getOrderType() != null ? request.getOrderType() : Trade.OrderType.MARKET;
+        if (orderType.isStop() && request.getStopPrice() == null) {
+            throw new RuntimeException("Stop price is required for " + orderType + " orders");
+        }
+        Trade trade = Trade.builder()
+                .clientId(request.getClientId())
+                .symbol(request.getSymbol())
+                .quantity(request.getQuantity())
+                .price(request.getPrice())
+                .type(request.getType())
+                .orderType(orderType)
+                .stopPrice(orderType.isStop() ? request.getStopPrice() : null)
+                .status(TradeStatus.PENDING)
+                .tradeTime(now)
+                .createdAt(now)
+                .build();
+        if (orderType != Trade.OrderType.MARKET) {
+            trade.setExpiryTime(now.toLocalDate().atTime(23, 59, 59));
+        }
+        return trade;
+    }
+
+    private static TradeResponse mapToResponse(Trade trade) {
+        return TradeResponse.builder()
+                .id(trade.getId())
+                .clientId(trade.getClientId())
+                .symbol(trade.getSymbol())
+                .quantity(trade.getQuantity())
+                .price(trade.getPrice())
+                .type(trade.getType())
+                .orderType(trade.getOrderType())
+                .stopPrice(trade.getStopPrice())
+                .status(trade.getStatus())
+                .tradeTime(trade.getTradeTime())
+                .expiryTime(trade.getExpiryTime())
+                .fraudCheckPassed(trade.getFraudCheckPassed())
+                .fraudCheckReason(trade.getFraudCheckReason())
+                .build();
+    }
+
+    /** One client's holding of one symbol while a basket is being applied. */
+    private static final class Position {
+
+        private final Portfolio loaded;
+        private Portfolio current;
+
+        Position(Portfolio loaded) {
+            this.loaded = loaded;
+            this.current = loaded;
+        }
+
+        int held() {
+            return current != null ? current.getQuantity() : 0;
+        }
+
+        /** Same arithmetic as {@link PortfolioService#updatePortfolio}. */
+        void apply(Client client, String symbol, int quantity, BigDecimal price) {
+            if (current != null) {
+                int newQuantity = current.getQuantity() + quantity;
+                if (newQuantity <= 0) {
+                    current = null;
+                } else {
+                    BigDecimal totalCost = current.getAveragePrice()
+                            .multiply(BigDecimal.valueOf(current.getQuantity()))
+                            .add(price.multiply(BigDecimal.valueOf(quantity)));
+                    current.setQuantity(newQuantity);
+                    current.setAveragePrice(totalCost.divide(BigDecimal.valueOf(newQuantity), 2, RoundingMode.HALF_UP));
+                }
+            } else if (quantity > 0) {
+                current = new Portfolio();
+                current.setClient(client);
+                current.setSymbol(symbol);
+                current.setQuantity(quantity);
+                current.setAveragePrice(price);
+            }
+        }
+
+        void flush(PortfolioRepository repository) {
+            if (loaded != null && current != loaded) {
+                repository.delete(loaded);
+            }
+            if (current != null) {
+                repository.save(current);
+            }
+        }
+    }
+}
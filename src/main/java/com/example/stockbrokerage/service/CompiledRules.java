@@ -0,0 +1,68 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.RuleVerdict;
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.util.Money;
+
+import java.util.List;
+
+/**
+ * One compiled rule scope (the shared base or a client overlay): simple threshold rules
+ * evaluated natively, plus a Drools session pool for everything that is real DRL.
+ * Either part may be empty.
+ */
+public final class CompiledRules {
+
+    private final ThresholdRule[] thresholds;
+    private final RuleSessionPool sessions;
+
+    CompiledRules(ThresholdRule[] thresholds, RuleSessionPool sessions) {
+        this.thresholds = thresholds;
+        this.sessions = sessions;
+    }
+
+    /**
+     * Runs the native threshold checks first (cheap), then the Drools rules. All rules run
+     * regardless of earlier rejections so the verdict lists every violated rule, as before.
+     */
+    public void evaluate(Trade trade, RuleVerdict verdict) {
+        if (thresholds.length > 0) {
+            evaluateThresholds(trade, verdict);
+        }
+        if (sessions != null) {
+            sessions.evaluate(trade, verdict);
+        }
+    }
+
+    /** Batch form of {@link #evaluate}; {@code verdicts} is index-aligned with {@code trades}. */
+    public void evaluateAll(List<Trade> trades, List<RuleVerdict> verdicts) {
+        if (thresholds.length > 0) {
+            for (int i = 0; i < trades.size(); i++) {
+                evaluateThresholds(trades.get(i), verdicts.get(i));
+            }
+        }
+        if (sessions != null) {
+            sessions.evaluateAll(trades, verdicts);
+        }
+    }
+
+    public int thresholdRuleCount() {
+        return thresholds.length;
+    }
+
+    public boolean hasDroolsRules() {
+        return sessions != null;
+    }
+
+    private void evaluateThresholds(Trade trade, RuleVerdict verdict) {
+        long priceUnits = Money.of(trade.getPrice());
+        long quantity = trade.getQuantity();
+        long notionalUnits = Money.notionalSaturated(priceUnits, quantity);
+
+        for (ThresholdRule rule : thresholds) {
+            if (rule.violates(trade.getType(), priceUnits, quantity, notionalUnits)) {
+                verdict.reject(rule.reason(), rule.message());
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.repository.TradeRepository;
+import com.example.stockbrokerage.util.Money;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running notional (price × quantity, in {@link Money} units) of every order each client has
+ * placed today — the figure the daily trade limit is checked against.
+ *
+ * Design decisions:
+ *  - One {@link AtomicLong} per client in a map for the current day, so a check is one map
+ *    lookup and clients never contend on the same counter.
+ *  - It counts what {@code findTodayTradesByClient} would sum: every order persisted today,
+ *    rejected or not. An order is added once its transaction commits, so a rolled-back order
+ *    is never counted and an order is never counted before its row is visible.
+ *  - Seeded from the trades table with one grouped query on startup, whenever the date rolls
+ *    over (the first use on a new day swaps in a freshly seeded map) and on demand through
+ *    {@code POST /api/admin/fraud/daily-notional/reseed}. Orders committed while a seed query
+ *    runs may be missed or counted twice; a reseed corrects that.
+ *  - Only orders placed through this node are added between seeds.
+ */
+@Component
+@Slf4j
+public class DailyNotionalCounters {
+
+    /** Today's counters, replaced as a whole when the date rolls over or on reseed. */
+    private record Day(LocalDate date, LocalDateTime seededAt, Map<Long, AtomicLong> totals) {
+    }
+
+    private final TradeRepository tradeRepository;
+    private final Clock clock;
+    private volatile Day day;
+
+    @Autowired
+    public DailyNotionalCounters(TradeRepository tradeRepository, MeterRegistry meterRegistry) {
+        this(tradeRepository, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    DailyNotionalCounters(TradeRepository tradeRepository, MeterRegistry meterRegistry, Clock clock) {
+        this.tradeRepository = tradeRepository;
+        this.clock = clock;
+        Gauge.builder("fraud.daily-notional.clients", this, counters -> counters.day == null ? 0 : counters.day.totals().size())
+                .description("Clients with a running daily notional counter today")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        reseed();
+    }
+
+    /** Replaces today's counters with totals summed from the trades table. */
+    public synchronized void reseed() {
+        LocalDate today = LocalDate.now(clock);
+        List<Object[]> rows = tradeRepository.sumNotionalByClientSince(today.atStartOfDay());
+        Map<Long, AtomicLong> totals = new ConcurrentHashMap<>(Math.max(16, rows.size() * 2));
+        for (Object[] row : rows) {
+            totals.put((Long) row[0], new AtomicLong(Money.of((BigDecimal) row[1])));
+        }
+        day = new Day(today, LocalDateTime.now(clock), totals);
+        log.info("Daily notional counters seeded for {}: {} client(s)", today, totals.size());
+    }
+
+    /** Notional the client has placed today, in Money units. */
+    public long total(Long clientId) {
+        AtomicLong total = today().totals().get(clientId);
+        return total == null ? Money.ZERO : total.get();
+    }
+
+    /** Adds an order's notional once the surrounding transaction commits (immediately without one). */
+    public void recordOnCommit(Long clientId, long notionalUnits) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(clientId, notionalUnits);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(clientId, notionalUnits);
+            }
+        });
+    }
+
+    void record(Long clientId, long notionalUnits) {
+        today().totals().computeIfAbsent(clientId, id -> new AtomicLong()).addAndGet(notionalUnits);
+    }
+
+    public LocalDate date() {
+        return today().date();
+    }
+
+    public LocalDateTime seededAt() {
+        return today().seededAt();
+    }
+
+    /** Today's totals by client id, in Money units. */
+    public Map<Long, Long> totals() {
+        Map<Long, Long> totals = new TreeMap<>();
+        today().totals().forEach((clientId, total) -> totals.put(clientId, total.get()));
+        return totals;
+    }
+
+    private Day today() {
+        Day current = day;
+        if (current == null || !current.date().equals(LocalDate.now(clock))) {
+            synchronized (this) {
+                current = day;
+                if (current == null || !current.date().equals(LocalDate.now(clock))) {
+                    reseed();
+                    current = day;
+                }
+            }
+        }
+        return current;
+    }
+}
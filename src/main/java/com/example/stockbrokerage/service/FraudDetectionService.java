@@ -1,86 +1,183 @@
 package com.example.stockbrokerage.service;
 
+import com.example.stockbrokerage.dto.PreTradeVerdict;
+import com.example.stockbrokerage.dto.PreTradeVerdict.Finding;
+import com.example.stockbrokerage.dto.PreTradeVerdict.ReasonCode;
 import com.example.stockbrokerage.entity.Client;
 import com.example.stockbrokerage.entity.Trade;
-import com.example.stockbrokerage.repository.TradeRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.stockbrokerage.util.Money;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Fraud checks of the pre-trade pipeline, run as the timed stages of one {@link PreTradePipeline}
+ * over a {@link PreTradeContext} the caller has already loaded: no client, account or trade
+ * lookups happen here. Stages are ordered cheap-first and stop at the first rejection.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class FraudDetectionService {
-    
-    private final TradeRepository tradeRepository;
-    private final ClientService clientService;
-    
-    public Map<String, Object> checkForFraud(Trade trade) {
-        Map<String, Object> result = new HashMap<>();
-        result.put("passed", true);
-        StringBuilder reasons = new StringBuilder();
-        
-        try {
-            Client client = clientService.getClientById(trade.getClientId());
-            
-            // Check 1: Client status
-            if (client.getStatus() != Client.ClientStatus.ACTIVE) {
-                result.put("passed", false);
-                reasons.append("Client is not active. ");
-            }
-            
-            // Check 2: Trading hours (9:30 AM - 4:00 PM)
-            LocalTime tradeTime = trade.getTradeTime().toLocalTime();
-            if (tradeTime.isBefore(LocalTime.of(9, 30)) || tradeTime.isAfter(LocalTime.of(16, 0))) {
-                result.put("passed", false);
-                reasons.append("Trade outside trading hours. ");
-            }
-            
-            // Check 3: Daily trade limit
-            LocalDateTime startOfDay = LocalDateTime.now().with(LocalTime.MIN);
-            List<Trade> todayTrades = tradeRepository.findTodayTradesByClient(trade.getClientId(), startOfDay);
-            
-            BigDecimal todayTotal = todayTrades.stream()
-                .map(t -> t.getPrice().multiply(BigDecimal.valueOf(t.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            BigDecimal tradeValue = trade.getPrice().multiply(BigDecimal.valueOf(trade.getQuantity()));
-            BigDecimal newTotal = todayTotal.add(tradeValue);
-            
-            if (client.getDailyTradeLimit() != null && newTotal.compareTo(client.getDailyTradeLimit()) > 0) {
-                result.put("passed", false);
-                reasons.append("Daily trade limit exceeded. ");
-            }
-            
-            // Check 4: Unusual trade size
-            if (trade.getQuantity() > 10000) {
-                log.warn("Unusually large trade detected: {} shares of {}", trade.getQuantity(), trade.getSymbol());
-                // Flag for manual review but don't reject
-            }
-            
-            // Check 5: Account balance check for BUY orders
-            if (trade.getType() == Trade.TradeType.BUY) {
-                if (client.getAccountBalance().compareTo(tradeValue) < 0) {
-                    result.put("passed", false);
-                    reasons.append("Insufficient account balance. ");
-                }
+
+    private static final LocalTime MARKET_OPEN = LocalTime.of(9, 30);
+    private static final LocalTime MARKET_CLOSE = LocalTime.of(16, 0);
+
+    private static final Finding CLIENT_INACTIVE =
+        Finding.reject(ReasonCode.CLIENT_INACTIVE, "Client is not active.");
+    private static final Finding OUTSIDE_TRADING_HOURS =
+        Finding.reject(ReasonCode.OUTSIDE_TRADING_HOURS, "Trade outside trading hours.");
+    private static final Finding DAILY_LIMIT_EXCEEDED =
+        Finding.reject(ReasonCode.DAILY_LIMIT_EXCEEDED, "Daily trade limit exceeded.");
+    private static final Finding INSUFFICIENT_BALANCE =
+        Finding.reject(ReasonCode.INSUFFICIENT_BALANCE, "Insufficient account balance.");
+
+    private final DailyNotionalCounters dailyNotionalCounters;
+    private final OrderVelocityTracker orderVelocityTracker;
+    private final TradeSizeAnomalyModel tradeSizeAnomalyModel;
+    private final PreTradePipeline pipeline;
+
+    public FraudDetectionService(DailyNotionalCounters dailyNotionalCounters,
+                                 OrderVelocityTracker orderVelocityTracker,
+                                 TradeSizeAnomalyModel tradeSizeAnomalyModel,
+                                 MeterRegistry meterRegistry) {
+        this.dailyNotionalCounters = dailyNotionalCounters;
+        this.orderVelocityTracker = orderVelocityTracker;
+        this.tradeSizeAnomalyModel = tradeSizeAnomalyModel;
+        this.pipeline = PreTradePipeline.builder("fraud", meterRegistry)
+            .errorPrefix("Fraud check error: ")
+            .stage("client-status", this::checkClientStatus)
+            .stage("trading-hours", this::checkTradingHours)
+            .stage("order-rate", this::checkOrderRate)
+            .stage("daily-limit", this::checkDailyLimit)
+            .stage("balance", this::checkBalance)
+            .stage("trade-size", this::checkTradeSize)
+            .build();
+    }
+
+    public PreTradeVerdict screen(PreTradeContext context) {
+        PreTradeVerdict verdict = pipeline.run(context);
+        // Every submitted order counts towards the daily total, rejected or not
+        dailyNotionalCounters.recordOnCommit(context.getClientId(), context.getNotionalUnits());
+        return verdict;
+    }
+
+    /**
+     * Batch form of {@link #screen(PreTradeContext)}, returning verdicts in input order. Each
+     * client's daily total runs forward through the batch from the running counter, so every
+     * order sees the orders ahead of it exactly as if they had been submitted one by one.
+     * Each client's available balance runs forward the same way: approved BUYs take from it
+     * and approved MARKET SELLs add their proceeds. For the rate checks each client's part of
+     * the basket counts as one submission in the per-second window, so a basket larger than the
+     * per-second order limit is not rejected for its size alone, while every order in it still
+     * counts towards the per-minute order and notional limits.
+     */
+    public List<PreTradeVerdict> screen(List<PreTradeContext> contexts) {
+        recordBasketOrderRates(contexts);
+        Map<Long, Long> runningTotals = new HashMap<>();
+        Map<Long, Long> runningAvailable = new HashMap<>();
+        List<PreTradeVerdict> verdicts = new ArrayList<>(contexts.size());
+
+        for (PreTradeContext context : contexts) {
+            long todayTotal = runningTotals.computeIfAbsent(context.getClientId(), dailyNotionalCounters::total);
+            long available = runningAvailable.computeIfAbsent(context.getClientId(),
+                id -> context.getAccount().availableUnits());
+            context.setTodayTotalUnits(todayTotal);
+            context.setAvailableUnits(available);
+            PreTradeVerdict verdict = screen(context);
+            verdicts.add(verdict);
+            runningTotals.put(context.getClientId(), Money.add(todayTotal, context.getNotionalUnits()));
+            if (verdict.isApproved()) {
+                runningAvailable.put(context.getClientId(), availableAfter(context, available));
             }
-            
-            result.put("reason", reasons.toString());
-            
-        } catch (Exception e) {
-            log.error("Error during fraud detection", e);
-            result.put("passed", false);
-            result.put("reason", "Fraud check error: " + e.getMessage());
         }
-        
-        return result;
+        return verdicts;
+    }
+
+    private static long availableAfter(PreTradeContext context, long available) {
+        Trade trade = context.getTrade();
+        if (trade.getType() == Trade.TradeType.BUY) {
+            return Money.subtract(available, context.getNotionalUnits());
+        }
+        return trade.getOrderType() == Trade.OrderType.MARKET
+            ? Money.add(available, context.getNotionalUnits())
+            : available;
+    }
+
+    private void recordBasketOrderRates(List<PreTradeContext> contexts) {
+        Map<Long, Long> notionals = new HashMap<>();
+        Map<Long, Integer> orders = new HashMap<>();
+        for (PreTradeContext context : contexts) {
+            notionals.merge(context.getClientId(), context.getNotionalUnits(), Money::add);
+            orders.merge(context.getClientId(), 1, Integer::sum);
+        }
+        Map<Long, String> reasons = new HashMap<>();
+        notionals.forEach((clientId, notional) ->
+            reasons.put(clientId, orderVelocityTracker.record(clientId, orders.get(clientId), notional)));
+        for (PreTradeContext context : contexts) {
+            context.setVelocityOutcome(reasons.get(context.getClientId()));
+        }
+    }
+
+    private Finding checkClientStatus(PreTradeContext context) {
+        return context.getClient().getStatus() != Client.ClientStatus.ACTIVE ? CLIENT_INACTIVE : null;
+    }
+
+    private Finding checkTradingHours(PreTradeContext context) {
+        LocalTime tradeTime = context.getTrade().getTradeTime().toLocalTime();
+        return tradeTime.isBefore(MARKET_OPEN) || tradeTime.isAfter(MARKET_CLOSE) ? OUTSIDE_TRADING_HOURS : null;
+    }
+
+    /** Order and notional rate over sliding windows. */
+    private Finding checkOrderRate(PreTradeContext context) {
+        String reason = context.isVelocityRecorded()
+            ? context.getVelocityReason()
+            : orderVelocityTracker.record(context.getClientId(), 1, context.getNotionalUnits());
+        return reason == null ? null : Finding.reject(ReasonCode.ORDER_RATE_EXCEEDED, reason.trim());
+    }
+
+    /** Amounts in Money units. */
+    private Finding checkDailyLimit(PreTradeContext context) {
+        Client client = context.getClient();
+        if (client.getDailyTradeLimit() == null) {
+            return null;
+        }
+        long todayTotal = context.getTodayTotalUnits() >= 0
+            ? context.getTodayTotalUnits()
+            : dailyNotionalCounters.total(context.getClientId());
+        long newTotal = Money.add(todayTotal, context.getNotionalUnits());
+        return newTotal > Money.of(client.getDailyTradeLimit()) ? DAILY_LIMIT_EXCEEDED : null;
+    }
+
+    /** BUY orders must be covered by the available (cash minus reserved) balance. */
+    private Finding checkBalance(PreTradeContext context) {
+        if (context.getTrade().getType() != Trade.TradeType.BUY) {
+            return null;
+        }
+        long available = context.getAvailableUnits() != null
+            ? context.getAvailableUnits()
+            : context.getAccount().availableUnits();
+        return available < context.getNotionalUnits() ? INSUFFICIENT_BALANCE : null;
+    }
+
+    /** Unusual size against the client's and symbol's history: flagged for manual review, never rejected. */
+    private Finding checkTradeSize(PreTradeContext context) {
+        Trade trade = context.getTrade();
+        TradeSizeAnomalyModel.Assessment size = tradeSizeAnomalyModel.score(
+            trade.getClientId(), trade.getSymbol(), context.getNotionalUnits(), trade.getQuantity());
+        if (size.anomalous()) {
+            log.warn("Unusually large trade detected: {} shares of {}, z-score {}", trade.getQuantity(), trade.getSymbol(),
+                    "%.1f".formatted(size.score()));
+            context.flag(Finding.flag(ReasonCode.UNUSUAL_TRADE_SIZE, size.reason().trim()));
+        } else if (!size.scored() && trade.getQuantity() > 10000) {
+            // Not enough history yet: fall back to the fixed size threshold
+            log.warn("Unusually large trade detected: {} shares of {}", trade.getQuantity(), trade.getSymbol());
+        }
+        return null;
     }
 }
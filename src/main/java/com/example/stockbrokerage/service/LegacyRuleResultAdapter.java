@@ -0,0 +1,65 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.RuleVerdict;
+import com.example.stockbrokerage.dto.RuleVerdict.ReasonCode;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compatibility adapter for DRLs written against {@code global java.util.Map result}.
+ * <p>
+ * Those rules do {@code result.put("approved", false)} and
+ * {@code ((StringBuilder) result.get("reasons")).append(...)}. This map translates both
+ * into calls on the {@link RuleVerdict} it is currently bound to, so existing rules keep
+ * working on the typed, pooled evaluation path without a per-trade HashMap.
+ */
+class LegacyRuleResultAdapter extends AbstractMap<String, Object> {
+
+    static final String APPROVED = "approved";
+    static final String REASONS = "reasons";
+
+    private RuleVerdict verdict;
+
+    void bind(RuleVerdict verdict) {
+        this.verdict = verdict;
+    }
+
+    void unbind() {
+        this.verdict = null;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (APPROVED.equals(key)) {
+            return verdict.isApproved();
+        }
+        if (REASONS.equals(key)) {
+            return verdict.getMessages();
+        }
+        return null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Object previous = get(key);
+        if (APPROVED.equals(key) && Boolean.FALSE.equals(value)) {
+            verdict.reject(ReasonCode.RULE_REJECTED);
+        } else if (REASONS.equals(key) && value != null) {
+            verdict.appendMessage(value.toString());
+        }
+        return previous;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return APPROVED.equals(key) || REASONS.equals(key);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return Set.of(Map.entry(APPROVED, verdict.isApproved()),
+                      Map.entry(REASONS, verdict.getMessages()));
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.entity.Trade.OrderType;
+import com.example.stockbrokerage.entity.Trade.TradeType;
+import com.example.stockbrokerage.repository.TradeRepository;
+import com.example.stockbrokerage.util.Money;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory trigger index of resting LIMIT, STOP and STOP_LIMIT orders, per symbol.
+ *
+ * Design decisions:
+ *  - Every resting order has one trigger price (the limit for LIMIT orders, the stop price for
+ *    armed stops) and fires either when the market falls to it (BUY limit, SELL stop) or rises
+ *    to it (SELL limit, BUY stop). Each symbol keeps one sorted set per direction — falling
+ *    triggers by descending price, rising triggers by ascending price — so the orders a new
+ *    price crosses are always a prefix: {@link #cross} pops exactly those and stops at the
+ *    first order that is not crossed. Cost scales with crossed orders, not open ones.
+ *  - Triggers are compared as {@link Money} units; ties are broken by trade id (oldest first).
+ *  - Crossed orders are removed from the index before they are returned, so a price seen twice
+ *    in quick succession cannot fire the same order twice. A failed execution is put back with
+ *    {@link #add}; a triggered STOP_LIMIT comes back as a LIMIT order.
+ *  - The index is derived state: it is rebuilt from the trades table on startup and then kept
+ *    current by {@link LimitOrderPlacedEvent}s and explicit removals. Execution re-reads the
+ *    trade, so a stale entry (e.g. cancelled on another node) fires into a no-op.
+ */
+@Component
+@Slf4j
+public class LimitOrderBook {
+
+    /** One resting order as seen by the trigger index. */
+    public record RestingOrder(Long tradeId, Long clientId, String symbol, TradeType side, OrderType orderType,
+                               long triggerUnits, long priceUnits, LocalDateTime expiryTime) {
+
+        static RestingOrder of(Trade trade) {
+            BigDecimal trigger = trade.getOrderType() != null && trade.getOrderType().isStop()
+                    ? trade.getStopPrice()
+                    : trade.getPrice();
+            return new RestingOrder(trade.getId(), trade.getClientId(), trade.getSymbol(), trade.getType(),
+                    trade.getOrderType(), Money.of(trigger), Money.of(trade.getPrice()), trade.getExpiryTime());
+        }
+
+        /** A STOP_LIMIT whose stop has been hit, resting from now on at its limit price. */
+        RestingOrder asLimit() {
+            return new RestingOrder(tradeId, clientId, symbol, side, OrderType.LIMIT, priceUnits, priceUnits, expiryTime);
+        }
+
+        /** True if the order fires when the price falls to its trigger, false if when it rises to it. */
+        boolean firesOnFall() {
+            return (side == TradeType.BUY) != (orderType != null && orderType.isStop());
+        }
+
+        boolean isExpired(LocalDateTime now) {
+            return expiryTime != null && expiryTime.isBefore(now);
+        }
+    }
+
+    private static final Comparator<RestingOrder> BY_ID = Comparator.comparing(RestingOrder::tradeId);
+    private static final Comparator<RestingOrder> FALLING =
+            Comparator.comparingLong(RestingOrder::triggerUnits).reversed().thenComparing(BY_ID);
+    private static final Comparator<RestingOrder> RISING =
+            Comparator.comparingLong(RestingOrder::triggerUnits).thenComparing(BY_ID);
+
+    private final TradeRepository tradeRepository;
+    private final Map<String, SymbolBook> books = new ConcurrentHashMap<>();
+    private final Map<Long, RestingOrder> byTradeId = new ConcurrentHashMap<>();
+
+    public LimitOrderBook(TradeRepository tradeRepository, MeterRegistry meterRegistry) {
+        this.tradeRepository = tradeRepository;
+        Gauge.builder("orders.limit.resting", byTradeId, Map::size)
+                .description("LIMIT and STOP orders resting in the trigger index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Trade> active = tradeRepository.findActiveRestingOrders(LocalDateTime.now());
+        books.clear();
+        byTradeId.clear();
+        active.forEach(this::add);
+        log.info("Order trigger index rebuilt: {} resting order(s) across {} symbol(s)", byTradeId.size(), books.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLimitOrderPlaced(LimitOrderPlacedEvent event) {
+        event.orders().forEach(this::add);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLimitOrderCancelled(LimitOrderCancelledEvent event) {
+        remove(event.tradeId());
+    }
+
+    public void add(Trade trade) {
+        if (trade.getId() == null || trade.getPrice() == null || trade.getType() == null) {
+            return;
+        }
+        if (trade.getOrderType() != null && trade.getOrderType().isStop() && trade.getStopPrice() == null) {
+            return;
+        }
+        add(RestingOrder.of(trade));
+    }
+
+    public void add(RestingOrder order) {
+        if (byTradeId.putIfAbsent(order.tradeId(), order) != null) {
+            return;
+        }
+        books.computeIfAbsent(order.symbol(), symbol -> new SymbolBook()).add(order);
+    }
+
+    public void remove(Long tradeId) {
+        RestingOrder order = byTradeId.remove(tradeId);
+        if (order != null) {
+            SymbolBook book = books.get(order.symbol());
+            if (book != null) {
+                book.remove(order);
+            }
+        }
+    }
+
+    /**
+     * Removes and returns every order on {@code symbol} that {@code price} crosses: falling
+     * triggers at or above the price, rising triggers at or below it. Orders past their expiry
+     * are dropped from the index but not returned.
+     */
+    public List<RestingOrder> cross(String symbol, BigDecimal price, LocalDateTime now) {
+        SymbolBook book = books.get(symbol);
+        if (book == null || price == null || price.signum() <= 0) {
+            return List.of();
+        }
+        List<RestingOrder> crossed = book.cross(Money.of(price));
+        if (crossed.isEmpty()) {
+            return crossed;
+        }
+        List<RestingOrder> fired = new ArrayList<>(crossed.size());
+        for (RestingOrder order : crossed) {
+            byTradeId.remove(order.tradeId());
+            if (!order.isExpired(now)) {
+                fired.add(order);
+            }
+        }
+        return fired;
+    }
+
+    /** Symbols that currently have at least one resting order. */
+    public Set<String> symbols() {
+        Set<String> symbols = new TreeSet<>();
+        books.forEach((symbol, book) -> {
+            if (!book.isEmpty()) {
+                symbols.add(symbol);
+            }
+        });
+        return symbols;
+    }
+
+    public int size() {
+        return byTradeId.size();
+    }
+
+    /** Both trigger directions of one symbol; guarded by its own monitor so symbols never contend. */
+    private static final class SymbolBook {
+
+        private final NavigableSet<RestingOrder> falling = new TreeSet<>(FALLING);
+        private final NavigableSet<RestingOrder> rising = new TreeSet<>(RISING);
+
+        synchronized void add(RestingOrder order) {
+            (order.firesOnFall() ? falling : rising).add(order);
+        }
+
+        synchronized void remove(RestingOrder order) {
+            (order.firesOnFall() ? falling : rising).remove(order);
+        }
+
+        synchronized List<RestingOrder> cross(long priceUnits) {
+            List<RestingOrder> crossed = new ArrayList<>();
+            while (!falling.isEmpty() && falling.first().triggerUnits() >= priceUnits) {
+                crossed.add(falling.pollFirst());
+            }
+            while (!rising.isEmpty() && rising.first().triggerUnits() <= priceUnits) {
+                crossed.add(rising.pollFirst());
+            }
+            return crossed;
+        }
+
+        synchronized boolean isEmpty() {
+            return falling.isEmpty() && rising.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.stockbrokerage.service;
+
+/**
+ * Published by {@link TradeService} when a resting order is cancelled. {@link LimitOrderBook} and
+ * {@link LimitOrderExpiryScheduler} drop it once the cancel has committed, so a cancel that rolls
+ * back leaves the order triggerable and expirable.
+ */
+public record LimitOrderCancelledEvent(Long tradeId) {
+}
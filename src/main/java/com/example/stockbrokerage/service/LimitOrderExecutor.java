@@ -0,0 +1,142 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.entity.Trade.OrderType;
+import com.example.stockbrokerage.entity.Trade.TradeStatus;
+import com.example.stockbrokerage.entity.Trade.TradeType;
+import com.example.stockbrokerage.repository.TradeRepository;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Stage;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Stopwatch;
+import com.example.stockbrokerage.util.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * State transitions of resting LIMIT, STOP and STOP_LIMIT orders: acting on a triggered order
+ * and expiring due ones.
+ * Called from {@link LimitOrderScheduler} (on the client's {@link OrderSequencer} lane) and
+ * {@link LimitOrderExpiryScheduler}, so it is the outermost service call there; it is exempted
+ * from rate limiting in throttle-config.yaml like the schedulers.
+ * Both paths lock the trade rows they read, so a trigger and an expiry of the same order cannot
+ * both succeed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LimitOrderExecutor {
+
+    private final TradeRepository tradeRepository;
+    private final AuditService auditService;
+    private final PortfolioService portfolioService;
+    private final AccountService accountService;
+    private final ClientService clientService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** What {@link #trigger} did with an order. */
+    public enum TriggerOutcome {
+        /** Executed (LIMIT or STOP). */
+        FILLED,
+        /** STOP_LIMIT whose stop was hit; now a PENDING LIMIT order at its limit price. */
+        CONVERTED_TO_LIMIT,
+        /** No longer pending or no longer of the triggered type; nothing changed. */
+        SKIPPED
+    }
+
+    /**
+     * Acts on an order whose trigger price was crossed: LIMIT and STOP orders execute at their
+     * order price, a STOP_LIMIT becomes a LIMIT order. Nothing happens if the trade is no longer
+     * PENDING (cancelled, expired, already filled) or its order type is no longer
+     * {@code triggeredType}. Stages are lapped into {@code stopwatch}.
+     */
+    @Transactional
+    public TriggerOutcome trigger(Long tradeId, OrderType triggeredType, BigDecimal marketPrice, Stopwatch stopwatch) {
+        Trade trade = tradeRepository.findByIdForUpdate(tradeId).orElse(null);
+        stopwatch.lap(Stage.ORDER_LOAD);
+        if (trade == null || trade.getStatus() != TradeStatus.PENDING || trade.getOrderType() != triggeredType) {
+            log.debug("Order {} is no longer a pending {}, skipping", tradeId, triggeredType);
+            return TriggerOutcome.SKIPPED;
+        }
+
+        if (trade.getOrderType() == OrderType.STOP_LIMIT) {
+            // Stop hit: the order now rests as a LIMIT order; reserved funds stay reserved
+            trade.setOrderType(OrderType.LIMIT);
+            tradeRepository.save(trade);
+            stopwatch.lap(Stage.PERSIST);
+            auditService.logTradeEvent(trade.getId(), "TRIGGER", "SYSTEM",
+                    "Stop %s hit at market price %s, resting as limit order at %s"
+                            .formatted(trade.getStopPrice(), marketPrice, trade.getPrice()));
+            stopwatch.lap(Stage.AUDIT);
+            log.info("Stop-limit order {} triggered, now a limit order at {}", trade.getId(), trade.getPrice());
+            return TriggerOutcome.CONVERTED_TO_LIMIT;
+        }
+
+        trade.setStatus(TradeStatus.EXECUTED);
+        trade.setTradeTime(LocalDateTime.now()); // Update to actual execution time
+
+        // Update portfolio and account
+        var client = clientService.getClientById(trade.getClientId());
+        stopwatch.lap(Stage.CLIENT_LOOKUP);
+        long tradeAmount = Money.notional(Money.of(trade.getPrice()), trade.getQuantity());
+
+        if (trade.getType() == TradeType.BUY) {
+            // For BUY: update portfolio, deduct funds (release reserved + deduct from cash)
+            portfolioService.updatePortfolio(client, trade.getSymbol(), trade.getQuantity(), trade.getPrice());
+            stopwatch.lap(Stage.PORTFOLIO);
+            accountService.deductFunds(trade.getClientId(), tradeAmount);
+        } else {
+            // For SELL: update portfolio (reduce quantity), add funds to cash
+            portfolioService.updatePortfolio(client, trade.getSymbol(), -trade.getQuantity(), trade.getPrice());
+            stopwatch.lap(Stage.PORTFOLIO);
+            accountService.addFunds(trade.getClientId(), tradeAmount);
+        }
+        stopwatch.lap(Stage.ACCOUNT);
+
+        tradeRepository.save(trade);
+        eventPublisher.publishEvent(new TradeExecutedEvent(List.of(trade)));
+        stopwatch.lap(Stage.PERSIST);
+        String kind = trade.getOrderType() == OrderType.STOP ? "Stop" : "Limit";
+        auditService.logTradeEvent(trade.getId(), "EXECUTE", "SYSTEM",
+                "%s order executed at market price %s".formatted(kind, marketPrice));
+        stopwatch.lap(Stage.AUDIT);
+        log.info("Successfully executed {} order {}", trade.getOrderType(), trade.getId());
+        return TriggerOutcome.FILLED;
+    }
+
+    /**
+     * Marks the still-PENDING orders among {@code tradeIds} EXPIRED with one bulk update and
+     * releases the funds reserved for the BUY orders, once per client. Returns the ids expired.
+     */
+    @Transactional
+    public List<Long> expire(Collection<Long> tradeIds) {
+        List<Trade> pending = tradeRepository.findPendingByIdInForUpdate(tradeIds);
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+        List<Long> expiredIds = pending.stream().map(Trade::getId).toList();
+        tradeRepository.updateStatus(expiredIds, TradeStatus.EXPIRED, LocalDateTime.now());
+
+        Map<Long, Long> reservedByClient = new HashMap<>();
+        for (Trade trade : pending) {
+            if (trade.getType() == TradeType.BUY) {
+                long tradeAmount = Money.notional(Money.of(trade.getPrice()), trade.getQuantity());
+                reservedByClient.merge(trade.getClientId(), tradeAmount, Money::add);
+            }
+            auditService.logTradeEvent(trade.getId(), "EXPIRE", "SYSTEM", "Limit order expired");
+        }
+        reservedByClient.forEach(accountService::releaseReservedFunds);
+
+        log.info("Expired {} limit order(s); released reserved funds for {} client(s)",
+                expiredIds.size(), reservedByClient.size());
+        return expiredIds;
+    }
+}
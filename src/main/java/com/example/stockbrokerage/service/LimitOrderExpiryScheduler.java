@@ -0,0 +1,138 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.repository.TradeRepository;
+import com.example.stockbrokerage.util.HierarchicalTimerWheel;
+import com.example.stockbrokerage.util.HierarchicalTimerWheel.Timeout;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expires resting LIMIT, STOP and STOP_LIMIT orders at their expiry time.
+ *
+ * Design decisions:
+ *  - Each order's expiry is scheduled on a {@link HierarchicalTimerWheel} (O(1) to schedule and
+ *    to cancel on fill or cancellation) instead of being discovered by scanning open orders.
+ *  - Every {@code orders.limit.expiry-tick-ms} the wheel is advanced and everything due is expired
+ *    together through {@link LimitOrderExecutor#expire}: one locking read, one bulk status
+ *    update and one reserved-funds release per client, in chunks of {@value #CHUNK_SIZE}.
+ *  - Rebuilt on startup from every PENDING resting order, so orders whose expiry passed while the
+ *    application was down are expired on the first tick. Orders that fail to expire are retried
+ *    on the next tick.
+ */
+@Component
+@Slf4j
+public class LimitOrderExpiryScheduler {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int WHEEL_BITS = 6;    // 64 slots per level
+    private static final int WHEEL_LEVELS = 4;  // 64^4 ticks: ~194 days at 1 s per tick
+
+    private final TradeRepository tradeRepository;
+    private final LimitOrderExecutor limitOrderExecutor;
+    private final LimitOrderBook limitOrderBook;
+    private final HierarchicalTimerWheel<Long> wheel;
+    private final Map<Long, Timeout<Long>> timeouts = new HashMap<>();
+    private final Counter expired;
+
+    public LimitOrderExpiryScheduler(TradeRepository tradeRepository,
+                                     LimitOrderExecutor limitOrderExecutor,
+                                     LimitOrderBook limitOrderBook,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${orders.limit.expiry-tick-ms:1000}") long tickMillis) {
+        this.tradeRepository = tradeRepository;
+        this.limitOrderExecutor = limitOrderExecutor;
+        this.limitOrderBook = limitOrderBook;
+        this.wheel = new HierarchicalTimerWheel<>(tickMillis, WHEEL_BITS, WHEEL_LEVELS, System.currentTimeMillis());
+        this.expired = Counter.builder("orders.limit.expired")
+                .description("LIMIT orders expired by the expiry wheel")
+                .register(meterRegistry);
+        Gauge.builder("orders.limit.expiry.scheduled", this, LimitOrderExpiryScheduler::scheduledCount)
+                .description("LIMIT order expiries waiting on the timer wheel")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Trade> pending = tradeRepository.findPendingRestingOrders();
+        pending.forEach(this::schedule);
+        log.info("Limit order expiry wheel loaded with {} order(s)", scheduledCount());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLimitOrderPlaced(LimitOrderPlacedEvent event) {
+        event.orders().forEach(this::schedule);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLimitOrderCancelled(LimitOrderCancelledEvent event) {
+        cancel(event.tradeId());
+    }
+
+    public synchronized void schedule(Trade trade) {
+        if (trade.getId() == null || trade.getExpiryTime() == null || timeouts.containsKey(trade.getId())) {
+            return;
+        }
+        long deadline = trade.getExpiryTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        timeouts.put(trade.getId(), wheel.schedule(trade.getId(), deadline));
+    }
+
+    /** Drops the pending expiry of a filled or cancelled order. */
+    public synchronized void cancel(Long tradeId) {
+        Timeout<Long> timeout = timeouts.remove(tradeId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orders.limit.expiry-tick-ms:1000}")
+    public void expireDue() {
+        List<Long> due = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(System.currentTimeMillis(), tradeId -> {
+                timeouts.remove(tradeId);
+                due.add(tradeId);
+            });
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        for (int from = 0; from < due.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = due.subList(from, Math.min(from + CHUNK_SIZE, due.size()));
+            try {
+                List<Long> expiredIds = limitOrderExecutor.expire(chunk);
+                expiredIds.forEach(limitOrderBook::remove);
+                expired.increment(expiredIds.size());
+            } catch (Exception e) {
+                log.error("Failed to expire {} limit order(s), retrying next tick: {}", chunk.size(), e.getMessage());
+                retry(chunk);
+            }
+        }
+    }
+
+    private synchronized void retry(List<Long> tradeIds) {
+        long now = System.currentTimeMillis();
+        for (Long tradeId : tradeIds) {
+            timeouts.computeIfAbsent(tradeId, id -> wheel.schedule(id, now));
+        }
+    }
+
+    private synchronized int scheduledCount() {
+        return wheel.size();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.entity.Trade;
+
+import java.util.List;
+
+/**
+ * Published by {@link TradeService} and {@link BatchTradeService} when LIMIT, STOP or STOP_LIMIT
+ * orders are left PENDING. {@link LimitOrderBook} indexes them once the surrounding transaction has committed,
+ * so a trigger can never fire for a row that is not yet visible.
+ */
+public record LimitOrderPlacedEvent(List<Trade> orders) {
+}
@@ -1,122 +1,123 @@
 package com.example.stockbrokerage.service;
 
-import com.example.stockbrokerage.entity.Trade;
-import com.example.stockbrokerage.entity.Trade.TradeStatus;
-import com.example.stockbrokerage.entity.Trade.TradeType;
-import com.example.stockbrokerage.repository.TradeRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.stockbrokerage.service.LimitOrderBook.RestingOrder;
+import com.example.stockbrokerage.service.LimitOrderExecutor.TriggerOutcome;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Outcome;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Path;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Stage;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Stopwatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * Triggers resting LIMIT, STOP and STOP_LIMIT orders when the market crosses their trigger price.
+ *
+ * Design decisions:
+ *  - Event driven: every {@link PriceUpdatedEvent} is matched against {@link LimitOrderBook},
+ *    which hands back only the orders that price crosses. Fills follow a price change within
+ *    milliseconds instead of waiting for a periodic scan of every open order.
+ *  - Each triggered order is handled on the owning client's {@link OrderSequencer} lane through
+ *    {@link LimitOrderExecutor}, in its own transaction, so it is serialised with the client's
+ *    new orders exactly like a synchronous trade. LIMIT and STOP orders fill; a STOP_LIMIT
+ *    re-enters the index as a LIMIT order and is immediately matched against the same price.
+ *  - Follow-up work runs off the lane thread, so re-matching never executes another client's
+ *    order inline on the wrong lane.
+ *  - A trigger that fails is put back in the index and retried on the next crossing price.
+ *  - Each trigger is timed from the crossing price through its lane wait and execution stages
+ *    into {@link OrderLatencyMetrics}, tagged with the order type it rested as.
+ *  - A light poll ({@code orders.limit.price-poll-ms}) refreshes one price per symbol that has
+ *    resting orders, so orders still trigger when nothing else is looking the symbol up.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class LimitOrderScheduler {
-    
-    private final TradeRepository tradeRepository;
+
     private final StockPriceService stockPriceService;
-    private final AuditService auditService;
-    private final PortfolioService portfolioService;
-    private final AccountService accountService;
-    private final ClientService clientService;
-    
+    private final LimitOrderBook limitOrderBook;
+    private final LimitOrderExecutor limitOrderExecutor;
+    private final OrderSequencer orderSequencer;
+    private final LimitOrderExpiryScheduler expiryScheduler;
+    private final OrderLatencyMetrics orderLatencyMetrics;
+    private final Counter triggered;
+
+    public LimitOrderScheduler(StockPriceService stockPriceService,
+                               LimitOrderBook limitOrderBook,
+                               LimitOrderExecutor limitOrderExecutor,
+                               OrderSequencer orderSequencer,
+                               LimitOrderExpiryScheduler expiryScheduler,
+                               OrderLatencyMetrics orderLatencyMetrics,
+                               MeterRegistry meterRegistry) {
+        this.stockPriceService = stockPriceService;
+        this.limitOrderBook = limitOrderBook;
+        this.limitOrderExecutor = limitOrderExecutor;
+        this.orderSequencer = orderSequencer;
+        this.expiryScheduler = expiryScheduler;
+        this.orderLatencyMetrics = orderLatencyMetrics;
+        this.triggered = Counter.builder("orders.limit.triggered")
+                .description("LIMIT orders fired by a crossing price")
+                .register(meterRegistry);
+    }
+
     /**
-     * Runs every 5 minutes to check and execute limit orders
+     * Refreshes the price of every symbol with resting orders in one batch lookup; each
+     * price found publishes a {@link PriceUpdatedEvent} which does the actual matching.
      */
-    @Scheduled(fixedRate = 300000) // 5 minutes in milliseconds
-    @Transactional
-    public void processLimitOrders() {
-        log.info("Starting limit order processing batch");
-        
-        LocalDateTime now = LocalDateTime.now();
-        List<Trade> pendingLimitOrders = tradeRepository.findActiveLimitOrders(now);
-        
-        if (pendingLimitOrders.isEmpty()) {
-            log.info("No pending limit orders to process");
+    @Scheduled(fixedDelayString = "${orders.limit.price-poll-ms:5000}")
+    public void pollPrices() {
+        Set<String> symbols = limitOrderBook.symbols();
+        if (symbols.isEmpty()) {
             return;
         }
-        
-        log.info("Found {} pending limit orders to evaluate", pendingLimitOrders.size());
-        
-        int executed = 0;
-        int expired = 0;
-        
-        for (Trade trade : pendingLimitOrders) {
+        try {
+            stockPriceService.refreshPrices(symbols);
+        } catch (Exception e) {
+            log.warn("Price refresh for {} symbol(s) failed: {}", symbols.size(), e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onPriceUpdated(PriceUpdatedEvent event) {
+        List<RestingOrder> crossed = limitOrderBook.cross(event.symbol(), event.price(), LocalDateTime.now());
+        for (RestingOrder order : crossed) {
+            triggered.increment();
+            log.info("{} {} order {} triggered: market price {} crosses its trigger",
+                    order.side(), order.orderType(), order.tradeId(), event.price());
+            Stopwatch stopwatch = orderLatencyMetrics.start(Path.TRIGGER);
             try {
-                // Check if order has expired
-                if (trade.getExpiryTime() != null && trade.getExpiryTime().isBefore(now)) {
-                    trade.setStatus(TradeStatus.EXPIRED);
-                    tradeRepository.save(trade);
-                    auditService.logTradeEvent(trade.getId(), "EXPIRE", "SYSTEM", "Limit order expired");
-                    expired++;
-                    log.info("Trade {} expired", trade.getId());
-                    continue;
-                }
-                
-                // Get current market price
-                BigDecimal currentPrice = stockPriceService.getCurrentPrice(trade.getSymbol());
-                
-                if (currentPrice.compareTo(BigDecimal.ZERO) == 0) {
-                    log.warn("Unable to get price for symbol {}, skipping trade {}", trade.getSymbol(), trade.getId());
-                    continue;
-                }
-                
-                boolean shouldExecute = false;
-                
-                // Check if price conditions are met
-                if (trade.getType() == TradeType.BUY) {
-                    // For BUY orders: execute if current price <= limit price
-                    if (currentPrice.compareTo(trade.getPrice()) <= 0) {
-                        shouldExecute = true;
-                        log.info("BUY limit order {} can be executed: current price {} <= limit price {}", 
-                                trade.getId(), currentPrice, trade.getPrice());
-                    }
-                } else if (trade.getType() == TradeType.SELL) {
-                    // For SELL orders: execute if current price >= limit price
-                    if (currentPrice.compareTo(trade.getPrice()) >= 0) {
-                        shouldExecute = true;
-                        log.info("SELL limit order {} can be executed: current price {} >= limit price {}", 
-                                trade.getId(), currentPrice, trade.getPrice());
-                    }
-                }
-                
-                if (shouldExecute) {
-                    trade.setStatus(TradeStatus.EXECUTED);
-                    trade.setTradeTime(now); // Update to actual execution time
-                    
-                    // Update portfolio and account
-                    var client = clientService.getClientById(trade.getClientId());
-                    BigDecimal tradeAmount = trade.getPrice().multiply(BigDecimal.valueOf(trade.getQuantity()));
-                    
-                    if (trade.getType() == TradeType.BUY) {
-                        // For BUY: update portfolio, deduct funds (release reserved + deduct from cash)
-                        portfolioService.updatePortfolio(client, trade.getSymbol(), trade.getQuantity(), trade.getPrice());
-                        accountService.deductFunds(trade.getClientId(), tradeAmount);
-                    } else {
-                        // For SELL: update portfolio (reduce quantity), add funds to cash
-                        portfolioService.updatePortfolio(client, trade.getSymbol(), -trade.getQuantity(), trade.getPrice());
-                        accountService.addFunds(trade.getClientId(), tradeAmount);
-                    }
-                    
-                    tradeRepository.save(trade);
-                    auditService.logTradeEvent(trade.getId(), "EXECUTE", "SYSTEM",
-                        "Limit order executed at market price %s".formatted(currentPrice));
-                    executed++;
-                    log.info("Successfully executed limit order {}", trade.getId());
-                }
-                
-            } catch (Exception e) {
-                log.error("Error processing limit order {}: {}", trade.getId(), e.getMessage(), e);
+                orderSequencer.submit(order.clientId(), () -> {
+                            stopwatch.lap(Stage.QUEUE);
+                            return limitOrderExecutor.trigger(order.tradeId(), order.orderType(), event.price(), stopwatch);
+                        })
+                        .whenCompleteAsync((outcome, error) -> {
+                            orderLatencyMetrics.record(stopwatch, order.orderType(),
+                                    error != null ? Outcome.ERROR : Outcome.of(outcome), order.tradeId());
+                            afterTrigger(order, event, outcome, error);
+                        });
+            } catch (RuntimeException e) {
+                log.warn("Could not queue order {}: {}", order.tradeId(), e.getMessage());
+                limitOrderBook.add(order);
             }
         }
-        
-        log.info("Limit order batch complete: {} executed, {} expired, {} still pending", 
-                executed, expired, (pendingLimitOrders.size() - executed - expired));
+    }
+
+    private void afterTrigger(RestingOrder order, PriceUpdatedEvent event, TriggerOutcome outcome, Throwable error) {
+        if (error != null) {
+            log.error("Error executing order {}: {}", order.tradeId(), error.getMessage());
+            limitOrderBook.add(order);
+        } else if (outcome == TriggerOutcome.FILLED) {
+            expiryScheduler.cancel(order.tradeId());
+        } else if (outcome == TriggerOutcome.CONVERTED_TO_LIMIT) {
+            // The stop is now a limit order; the price that triggered it may already cross its limit
+            limitOrderBook.add(order.asLimit());
+            onPriceUpdated(event);
+        }
     }
 }
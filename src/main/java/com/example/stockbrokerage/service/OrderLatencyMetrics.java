@@ -0,0 +1,192 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.entity.Trade.OrderType;
+import com.example.stockbrokerage.entity.Trade.TradeStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage latency of order execution, for synchronous orders ({@link TradeService}) and for
+ * triggered resting orders ({@link LimitOrderScheduler}).
+ *
+ * Design decisions:
+ *  - An order carries a {@link Stopwatch} that laps each stage into a primitive array; nothing
+ *    is published until the outcome is known, so every stage timer can be tagged with it.
+ *  - Timers {@code orders.execution.stage} and {@code orders.execution} (end to end) publish
+ *    percentile histograms, so p50/p99 can be aggregated across instances in Prometheus.
+ *    They are tagged {@code path}, {@code order.type} and {@code outcome}; each combination is
+ *    registered on first use and then read from an array.
+ *  - Per-order timing lines are logged at INFO only with {@code orders.metrics.log-timings}.
+ */
+@Component
+@Slf4j
+public class OrderLatencyMetrics {
+
+    private static final Duration MIN_EXPECTED = Duration.ofNanos(50_000);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(10);
+
+    /** Where the order is being executed. */
+    public enum Path {
+        /** POST /api/trades, synchronous or on a sequencer lane. */
+        API("api"),
+        /** A resting order fired by a crossing price. */
+        TRIGGER("trigger");
+
+        private final String tag;
+
+        Path(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum Stage {
+        /** Waiting for the client's sequencer lane. */
+        QUEUE("queue"),
+        /** Locking the resting trade row. */
+        ORDER_LOAD("order-load"),
+        CLIENT_LOOKUP("client-lookup"),
+        FRAUD("fraud"),
+        RULES("rules"),
+        PORTFOLIO("portfolio-update"),
+        ACCOUNT("account-update"),
+        AUDIT("audit"),
+        PERSIST("persist");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum Outcome {
+        EXECUTED, PENDING, REJECTED, CONVERTED_TO_LIMIT, SKIPPED, ERROR;
+
+        public static Outcome of(TradeStatus status) {
+            return switch (status) {
+                case EXECUTED -> EXECUTED;
+                case PENDING -> PENDING;
+                case REJECTED -> REJECTED;
+                default -> ERROR;
+            };
+        }
+
+        public static Outcome of(LimitOrderExecutor.TriggerOutcome outcome) {
+            return switch (outcome) {
+                case FILLED -> EXECUTED;
+                case CONVERTED_TO_LIMIT -> CONVERTED_TO_LIMIT;
+                case SKIPPED -> SKIPPED;
+            };
+        }
+    }
+
+    private static final Path[] PATHS = Path.values();
+    private static final Stage[] STAGES = Stage.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    /** Slot per stage plus one for the end-to-end timer. */
+    private static final int SLOTS = STAGES.length + 1;
+
+    private final MeterRegistry meterRegistry;
+    private final boolean logTimings;
+    /** Indexed by {@link #index}; filled lazily, a racing registration returns the same timer. */
+    private final Timer[] timers = new Timer[PATHS.length * ORDER_TYPES.length * OUTCOMES.length * SLOTS];
+
+    public OrderLatencyMetrics(MeterRegistry meterRegistry,
+                               @Value("${orders.metrics.log-timings:false}") boolean logTimings) {
+        this.meterRegistry = meterRegistry;
+        this.logTimings = logTimings;
+    }
+
+    public Stopwatch start(Path path) {
+        return new Stopwatch(path);
+    }
+
+    /** Publishes every stage the order went through, and its end-to-end time up to the last lap. */
+    public void record(Stopwatch stopwatch, OrderType orderType, Outcome outcome, Long tradeId) {
+        long[] nanos = stopwatch.nanos;
+        for (int s = 0; s < STAGES.length; s++) {
+            if (nanos[s] > 0) {
+                timer(stopwatch.path, orderType, outcome, s).record(nanos[s], TimeUnit.NANOSECONDS);
+            }
+        }
+        long total = stopwatch.last - stopwatch.started;
+        timer(stopwatch.path, orderType, outcome, STAGES.length).record(total, TimeUnit.NANOSECONDS);
+
+        if (logTimings) {
+            StringBuilder stages = new StringBuilder();
+            for (int s = 0; s < STAGES.length; s++) {
+                if (nanos[s] > 0) {
+                    stages.append(' ').append(STAGES[s].tag).append('=').append(nanos[s] / 1_000).append("µs");
+                }
+            }
+            log.info("Order {} ({} {}) {} in {}µs:{}", tradeId, stopwatch.path.tag, orderType, outcome,
+                    total / 1_000, stages);
+        }
+    }
+
+    private Timer timer(Path path, OrderType orderType, Outcome outcome, int slot) {
+        int index = index(path, orderType, outcome, slot);
+        Timer timer = timers[index];
+        if (timer == null) {
+            Timer.Builder builder = slot == STAGES.length
+                    ? Timer.builder("orders.execution").description("End-to-end order execution time")
+                    : Timer.builder("orders.execution.stage").description("Time spent in one order execution stage")
+                            .tag("stage", STAGES[slot].tag);
+            timer = builder
+                    .tag("path", path.tag)
+                    .tag("order.type", orderType.name())
+                    .tag("outcome", outcome.name())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED)
+                    .maximumExpectedValue(MAX_EXPECTED)
+                    .register(meterRegistry);
+            timers[index] = timer;
+        }
+        return timer;
+    }
+
+    private static int index(Path path, OrderType orderType, Outcome outcome, int slot) {
+        return ((path.ordinal() * ORDER_TYPES.length + orderType.ordinal()) * OUTCOMES.length + outcome.ordinal())
+                * SLOTS + slot;
+    }
+
+    /**
+     * Stage timings of one order, used by one thread at a time. {@link #lap} charges the
+     * time since the previous lap to a stage; {@link #skip} discards it.
+     */
+    public static final class Stopwatch {
+
+        private final Path path;
+        private final long[] nanos = new long[STAGES.length];
+        private final long started;
+        private long last;
+
+        private Stopwatch(Path path) {
+            this.path = path;
+            this.started = System.nanoTime();
+            this.last = started;
+        }
+
+        public void lap(Stage stage) {
+            long now = System.nanoTime();
+            nanos[stage.ordinal()] += now - last;
+            last = now;
+        }
+
+        public void skip() {
+            last = System.nanoTime();
+        }
+
+        /** Time charged to {@code stage} so far, in nanoseconds. */
+        public long elapsed(Stage stage) {
+            return nanos[stage.ordinal()];
+        }
+    }
+}
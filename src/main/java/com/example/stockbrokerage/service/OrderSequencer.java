@@ -0,0 +1,224 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.exception.RequestThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer order sequencing: every order for a given client runs on the same
+ * single-threaded lane, so a client's orders are processed strictly one at a time while
+ * different clients proceed in parallel on the other lanes.
+ *
+ * Design decisions:
+ *  - A fixed number of lanes (default: one per core), each a single worker thread draining
+ *    a bounded array-backed queue — the ring buffer. Client ids are hashed onto lanes, so
+ *    there is no per-client state to create or clean up.
+ *  - Because one client's orders never overlap, the Client/Account/Portfolio rows touched by
+ *    executeTrade are only ever written by one transaction at a time: no lock waits between
+ *    a client's own orders.
+ *  - A full lane rejects immediately with {@link RequestThrottledException} (HTTP 429) rather
+ *    than queueing unboundedly in front of the database.
+ *  - Work submitted from a lane thread for that same lane runs inline, so nested sequencing
+ *    of a client cannot deadlock on its own lane; work for another lane is queued there.
+ *  - A synchronous caller that times out withdraws its order if it has not started yet, so a
+ *    reported failure never runs later; an order already running is waited for instead.
+ */
+@Component
+@Slf4j
+public class OrderSequencer {
+
+    private static final String THREAD_PREFIX = "order-lane-";
+
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor[] lanes;
+    private final ThreadLocal<Integer> currentLane = new ThreadLocal<>();
+    private final Counter rejected;
+
+    public OrderSequencer(MeterRegistry meterRegistry,
+                          @Value("${orders.sequencer.enabled:true}") boolean enabled,
+                          @Value("${orders.sequencer.lanes:0}") int laneCount,
+                          @Value("${orders.sequencer.lane-capacity:1024}") int laneCapacity,
+                          @Value("${orders.sequencer.timeout-ms:30000}") long timeoutMillis) {
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutMillis;
+        int lanesToCreate = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.lanes = new ThreadPoolExecutor[lanesToCreate];
+        for (int i = 0; i < lanesToCreate; i++) {
+            String name = THREAD_PREFIX + i;
+            int index = i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(laneCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(() -> {
+                            currentLane.set(index);
+                            runnable.run();
+                        }, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+
+        this.rejected = Counter.builder("orders.sequencer.rejected")
+                .description("Orders rejected because their client's lane was full")
+                .register(meterRegistry);
+        Gauge.builder("orders.sequencer.queued", lanes, OrderSequencer::queuedOrders)
+                .description("Orders waiting across all sequencer lanes")
+                .register(meterRegistry);
+        Gauge.builder("orders.sequencer.lanes", lanes, l -> l.length)
+                .description("Number of single-threaded order lanes")
+                .register(meterRegistry);
+
+        log.info("Order sequencer {} with {} lane(s), capacity {} each",
+                enabled ? "enabled" : "disabled", lanesToCreate, laneCapacity);
+    }
+
+    /** Queues the task on the client's lane and returns without waiting for it. */
+    public <T> CompletableFuture<T> submit(Long clientId, Supplier<T> task) {
+        return enqueue(clientId, task).future;
+    }
+
+    /**
+     * Runs the task on the client's lane and waits for the result. Exceptions thrown by
+     * the task are rethrown unchanged so callers see the same errors as a direct call.
+     */
+    public <T> T execute(Long clientId, Supplier<T> task) {
+        LaneTask<T> laneTask = enqueue(clientId, task);
+        try {
+            return await(clientId, laneTask);
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (laneTask.cancel()) {
+                laneFor(clientId).remove(laneTask);
+            }
+            throw new RuntimeException("Interrupted while waiting for order execution");
+        }
+    }
+
+    /**
+     * Waits up to the timeout; past it, withdraws the order if it has not started, otherwise
+     * keeps waiting, since a running order will commit or fail on its own.
+     */
+    private <T> T await(Long clientId, LaneTask<T> laneTask) throws ExecutionException, InterruptedException {
+        try {
+            return laneTask.future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (laneTask.cancel()) {
+                laneFor(clientId).remove(laneTask);
+                throw new RuntimeException("Order for client " + clientId + " was still queued after "
+                        + timeoutMillis + " ms and has been withdrawn");
+            }
+            log.warn("Order for client {} still running after {} ms, waiting for it to finish", clientId, timeoutMillis);
+            return laneTask.future.get();
+        }
+    }
+
+    private <T> LaneTask<T> enqueue(Long clientId, Supplier<T> task) {
+        LaneTask<T> laneTask = new LaneTask<>(task);
+        int lane = laneIndex(clientId);
+        if (!enabled || Integer.valueOf(lane).equals(currentLane.get())) {
+            laneTask.run();
+            return laneTask;
+        }
+        try {
+            lanes[lane].execute(laneTask);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new RequestThrottledException("Too many pending orders for client " + clientId + ", retry shortly");
+        }
+        return laneTask;
+    }
+
+    int laneIndex(Long clientId) {
+        int h = clientId == null ? 0 : Long.hashCode(clientId);
+        h ^= (h >>> 16);
+        return Math.floorMod(h * 0x9E3779B9, lanes.length);
+    }
+
+    private ThreadPoolExecutor laneFor(Long clientId) {
+        return lanes[laneIndex(clientId)];
+    }
+
+    private static int queuedOrders(ThreadPoolExecutor[] lanes) {
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    /**
+     * A queued order that runs at most once: either the lane starts it or a timed-out caller
+     * withdraws it, whichever claims it first. Also skipped if its future was cancelled.
+     */
+    private static final class LaneTask<T> implements Runnable {
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        private final Supplier<T> task;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        LaneTask(Supplier<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true) || future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(task.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        /** Withdraws the order; false if it has already started. */
+        boolean cancel() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            future.cancel(false);
+            return true;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            try {
+                if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                    lane.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lane.shutdownNow();
+            }
+        }
+    }
+}
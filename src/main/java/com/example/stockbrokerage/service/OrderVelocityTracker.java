@@ -0,0 +1,155 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.util.Money;
+import com.example.stockbrokerage.util.SlidingWindowCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client order rate and notional rate over sliding windows, for burst detection in
+ * {@link FraudDetectionService}.
+ *
+ * Design decisions:
+ *  - Each client has two {@link SlidingWindowCounter} rings: orders in the last second
+ *    (10 × 100 ms slots) and orders plus notional in the last minute (60 × 1 s slots). A
+ *    submission is one synchronized update of both and three comparisons — no allocation,
+ *    no I/O — so it can run on every order.
+ *  - Every submission counts, including ones that end up rejected, so a client cannot retry
+ *    its way around the limit. A basket is one submission in the per-second window, but each
+ *    of its orders counts in the per-minute window.
+ *  - Windows of clients idle for a minute are dropped every minute, so the map holds only
+ *    recently active clients.
+ *  - A limit of 0 disables that check; {@code fraud.velocity.enabled=false} disables all three.
+ *  - Time is taken from {@link System#nanoTime()}, so wall-clock adjustments cannot open or
+ *    close a window.
+ */
+@Component
+public class OrderVelocityTracker {
+
+    private final boolean enabled;
+    private final long maxOrdersPerSecond;
+    private final long maxOrdersPerMinute;
+    private final long maxNotionalPerMinute;
+    private final Map<Long, ClientWindows> windows = new ConcurrentHashMap<>();
+    private final LongSupplier clockMillis;
+    private final Counter bursts;
+
+    @Autowired
+    public OrderVelocityTracker(MeterRegistry meterRegistry,
+                                @Value("${fraud.velocity.enabled:true}") boolean enabled,
+                                @Value("${fraud.velocity.max-orders-per-second:10}") long maxOrdersPerSecond,
+                                @Value("${fraud.velocity.max-orders-per-minute:120}") long maxOrdersPerMinute,
+                                @Value("${fraud.velocity.max-notional-per-minute:1000000}") long maxNotionalPerMinute) {
+        this(meterRegistry, enabled, maxOrdersPerSecond, maxOrdersPerMinute, maxNotionalPerMinute,
+                () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+    }
+
+    OrderVelocityTracker(MeterRegistry meterRegistry, boolean enabled, long maxOrdersPerSecond,
+                         long maxOrdersPerMinute, long maxNotionalPerMinute, LongSupplier clockMillis) {
+        this.enabled = enabled;
+        this.clockMillis = clockMillis;
+        this.maxOrdersPerSecond = maxOrdersPerSecond;
+        this.maxOrdersPerMinute = maxOrdersPerMinute;
+        this.maxNotionalPerMinute = Money.ofDollars(maxNotionalPerMinute);
+        this.bursts = Counter.builder("fraud.velocity.bursts")
+                .description("Order submissions rejected for exceeding a client's order or notional rate")
+                .register(meterRegistry);
+        Gauge.builder("fraud.velocity.clients", windows, Map::size)
+                .description("Clients with order rate windows")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records one submission of {@code orders} orders worth {@code notionalUnits} in total and
+     * returns the rejection reason if it takes the client over a limit, or null. The submission
+     * counts once towards the per-second burst limit, and every order counts towards the
+     * per-minute limit, so a basket is one burst but cannot carry more orders than singles could.
+     */
+    public String record(Long clientId, int orders, long notionalUnits) {
+        return record(clientId, orders, notionalUnits, clockMillis.getAsLong());
+    }
+
+    String record(Long clientId, int orders, long notionalUnits, long nowMillis) {
+        if (!enabled) {
+            return null;
+        }
+        long perSecond;
+        long perMinute;
+        long notionalPerMinute;
+        while (true) {
+            ClientWindows client = windows.computeIfAbsent(clientId, id -> new ClientWindows());
+            synchronized (client) {
+                if (client.evicted) {
+                    continue;
+                }
+                client.lastSecond.add(nowMillis, 0L);
+                client.lastMinute.add(nowMillis, orders, notionalUnits);
+                client.lastSeenMillis = nowMillis;
+                perSecond = client.lastSecond.count(nowMillis);
+                perMinute = client.lastMinute.count(nowMillis);
+                notionalPerMinute = client.lastMinute.sum(nowMillis);
+                break;
+            }
+        }
+
+        String reason = null;
+        if (maxOrdersPerSecond > 0 && perSecond > maxOrdersPerSecond) {
+            reason = "Order rate exceeded: %d orders in the last second (limit %d). "
+                    .formatted(perSecond, maxOrdersPerSecond);
+        } else if (maxOrdersPerMinute > 0 && perMinute > maxOrdersPerMinute) {
+            reason = "Order rate exceeded: %d orders in the last minute (limit %d). "
+                    .formatted(perMinute, maxOrdersPerMinute);
+        } else if (maxNotionalPerMinute > 0 && notionalPerMinute > maxNotionalPerMinute) {
+            reason = "Notional rate exceeded: %s in the last minute (limit %s). "
+                    .formatted(Money.toBigDecimal(notionalPerMinute).toPlainString(),
+                            Money.toBigDecimal(maxNotionalPerMinute).toPlainString());
+        }
+        if (reason != null) {
+            bursts.increment();
+        }
+        return reason;
+    }
+
+    /** Drops the windows of clients with no submission in the last minute; both are empty by then. */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        evictIdle(clockMillis.getAsLong());
+    }
+
+    void evictIdle(long nowMillis) {
+        for (Iterator<ClientWindows> it = windows.values().iterator(); it.hasNext(); ) {
+            ClientWindows client = it.next();
+            synchronized (client) {
+                if (nowMillis - client.lastSeenMillis >= client.lastMinute.windowMillis()) {
+                    // A record() that already holds this object retries with a fresh one
+                    client.evicted = true;
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    int size() {
+        return windows.size();
+    }
+
+    /** One client's rate windows; guarded by the object's monitor. */
+    private static final class ClientWindows {
+
+        private final SlidingWindowCounter lastSecond = new SlidingWindowCounter(10, 100);
+        private final SlidingWindowCounter lastMinute = new SlidingWindowCounter(60, 1_000);
+        private long lastSeenMillis;
+        private boolean evicted;
+    }
+}
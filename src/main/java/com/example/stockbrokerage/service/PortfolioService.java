@@ -7,13 +7,16 @@ import com.example.stockbrokerage.entity.Client;
 import com.example.stockbrokerage.entity.Portfolio;
 import com.example.stockbrokerage.repository.AccountRepository;
 import com.example.stockbrokerage.repository.PortfolioRepository;
+import com.example.stockbrokerage.util.Money;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,71 +28,94 @@ public class PortfolioService {
     private final StockPriceService stockPriceService;
     private final AccountRepository accountRepository;
     
-    public List<PortfolioResponse> getClientPortfolio(Long clientId) {
-        List<Portfolio> portfolios = portfolioRepository.findByClientId(clientId);
-        
-        return portfolios.stream()
-            .map(this::convertToResponse)
-            .collect(Collectors.toList());
+    /** Holdings valued at current prices; completes once the prices are in, without blocking on them. */
+    public CompletableFuture<List<PortfolioResponse>> getClientPortfolio(Long clientId) {
+        return valueAll(portfolioRepository.findByClientId(clientId)).thenApply(valuations -> valuations.stream()
+            .map(Valuation::toResponse)
+            .collect(Collectors.toList()));
     }
     
-    public PortfolioSummaryResponse getClientPortfolioSummary(Long clientId) {
-        // Get portfolio holdings
-        List<PortfolioResponse> holdings = getClientPortfolio(clientId);
+    /**
+     * Holdings and totals valued at current prices. The repository reads run on the caller's
+     * thread; only the price lookup completes later.
+     */
+    public CompletableFuture<PortfolioSummaryResponse> getClientPortfolioSummary(Long clientId) {
+        List<Portfolio> portfolios = portfolioRepository.findByClientId(clientId);
         
         // Get account information
         Account account = accountRepository.findByClientId(clientId)
             .orElseThrow(() -> new RuntimeException("Account not found for client: " + clientId));
         
+        // Value each holding; totals are summed in Money units, not BigDecimal
+        return valueAll(portfolios).thenApply(valuations -> summarize(account, valuations));
+    }
+    
+    private static PortfolioSummaryResponse summarize(Account account, List<Valuation> valuations) {
         // Calculate totals
-        BigDecimal totalPortfolioValue = holdings.stream()
-            .map(PortfolioResponse::getTotalValue)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal totalInvestedValue = holdings.stream()
-            .map(h -> h.getAveragePrice().multiply(BigDecimal.valueOf(h.getQuantity())))
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal totalProfitLoss = totalPortfolioValue.subtract(totalInvestedValue);
-        
-        BigDecimal totalProfitLossPercent = totalInvestedValue.compareTo(BigDecimal.ZERO) > 0
-            ? totalProfitLoss.divide(totalInvestedValue, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100))
-            : BigDecimal.ZERO;
+        long totalPortfolioValue = Money.ZERO;
+        long totalInvestedValue = Money.ZERO;
+        List<PortfolioResponse> holdings = new ArrayList<>(valuations.size());
+        for (Valuation valuation : valuations) {
+            totalPortfolioValue = Money.add(totalPortfolioValue, valuation.totalValue());
+            totalInvestedValue = Money.add(totalInvestedValue, valuation.investedValue());
+            holdings.add(valuation.toResponse());
+        }
+        long totalProfitLoss = Money.subtract(totalPortfolioValue, totalInvestedValue);
         
         return new PortfolioSummaryResponse(
             account.getCashBalance(),
             account.getReservedBalance(),
             account.getAvailableBalance(),
             holdings,
-            totalPortfolioValue,
-            totalInvestedValue,
-            totalProfitLoss,
-            totalProfitLossPercent
+            Money.toBigDecimal(totalPortfolioValue),
+            Money.toBigDecimal(totalInvestedValue),
+            Money.toBigDecimal(totalProfitLoss),
+            percentOf(totalProfitLoss, totalInvestedValue)
         );
     }
     
-    private PortfolioResponse convertToResponse(Portfolio portfolio) {
-        BigDecimal currentPrice = stockPriceService.getCurrentPrice(portfolio.getSymbol());
-        BigDecimal totalValue = currentPrice.multiply(BigDecimal.valueOf(portfolio.getQuantity()));
-        BigDecimal investedValue = portfolio.getAveragePrice().multiply(BigDecimal.valueOf(portfolio.getQuantity()));
-        BigDecimal profitLoss = totalValue.subtract(investedValue);
-        BigDecimal profitLossPercent = investedValue.compareTo(BigDecimal.ZERO) > 0
-            ? profitLoss.divide(investedValue, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100))
-            : BigDecimal.ZERO;
+    /** Values every holding with one batch price lookup for all of their symbols. */
+    private CompletableFuture<List<Valuation>> valueAll(List<Portfolio> portfolios) {
+        return stockPriceService.getCurrentPricesAsync(portfolios.stream().map(Portfolio::getSymbol).toList())
+            .thenApply(prices -> portfolios.stream()
+                .map(portfolio -> value(portfolio, prices.getOrDefault(portfolio.getSymbol(), BigDecimal.ZERO)))
+                .toList());
+    }
+    
+    private static Valuation value(Portfolio portfolio, BigDecimal currentPrice) {
+        long totalValue = Money.notional(Money.of(currentPrice), portfolio.getQuantity());
+        long investedValue = Money.notional(Money.of(portfolio.getAveragePrice()), portfolio.getQuantity());
         
         // Weight updates are now handled by the batch scheduler for better performance
         // No blocking operations during portfolio page load
         
-        return new PortfolioResponse(
-            portfolio.getId(),
-            portfolio.getSymbol(),
-            portfolio.getQuantity(),
-            portfolio.getAveragePrice(),
-            currentPrice,
-            totalValue,
-            profitLoss,
-            profitLossPercent
-        );
+        return new Valuation(portfolio, currentPrice, totalValue, investedValue);
+    }
+    
+    /** profit / invested × 100, to 4 decimal places as before; zero when nothing is invested. */
+    private static BigDecimal percentOf(long profitLoss, long investedValue) {
+        return investedValue > 0
+            ? BigDecimal.valueOf(profitLoss).divide(BigDecimal.valueOf(investedValue), 4, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100))
+            : BigDecimal.ZERO;
+    }
+    
+    /** One holding valued at the current price; amounts in {@link Money} units. */
+    private record Valuation(Portfolio portfolio, BigDecimal currentPrice, long totalValue, long investedValue) {
+        
+        PortfolioResponse toResponse() {
+            long profitLoss = Money.subtract(totalValue, investedValue);
+            return new PortfolioResponse(
+                portfolio.getId(),
+                portfolio.getSymbol(),
+                portfolio.getQuantity(),
+                portfolio.getAveragePrice(),
+                currentPrice,
+                Money.toBigDecimal(totalValue),
+                Money.toBigDecimal(profitLoss),
+                percentOf(profitLoss, investedValue)
+            );
+        }
     }
     
     public void updatePortfolio(Client client, String symbol, Integer quantity, BigDecimal price) {
@@ -0,0 +1,14 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.PreTradeVerdict.Finding;
+
+/** One stage of a {@link PreTradePipeline}. */
+@FunctionalInterface
+public interface PreTradeCheck {
+
+    /**
+     * Returns the blocking finding that rejects the order, or null to let it through.
+     * Non-blocking observations are recorded with {@link PreTradeContext#flag}.
+     */
+    Finding check(PreTradeContext context);
+}
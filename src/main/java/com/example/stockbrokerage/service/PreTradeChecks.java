@@ -0,0 +1,51 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.PreTradeVerdict;
+import com.example.stockbrokerage.dto.PreTradeVerdict.Finding;
+import com.example.stockbrokerage.dto.RuleVerdict;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Stage;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Stopwatch;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * The pre-trade pipeline of a single order: the fraud stages of {@link FraudDetectionService}
+ * (in-memory, cheap) and then rule evaluation (Drools or the native fast path), which only
+ * runs for orders the fraud stages let through. Both stages are lapped into the order's
+ * {@link Stopwatch}, if it has one.
+ */
+@Component
+public class PreTradeChecks {
+
+    private final PreTradePipeline pipeline;
+
+    public PreTradeChecks(FraudDetectionService fraudDetectionService, RuleEngineService ruleEngineService,
+                          MeterRegistry meterRegistry) {
+        this.pipeline = PreTradePipeline.builder("pretrade", meterRegistry)
+                .stage("fraud", lapped(Stage.FRAUD, context -> fraudDetectionService.screen(context).rejection()))
+                .stage("rules", lapped(Stage.RULES, context -> {
+                    RuleVerdict verdict = ruleEngineService.evaluateTrade(context.getTrade(), context.getClientId());
+                    return verdict.isApproved() ? null : Finding.rejectedByRules(verdict);
+                }))
+                .build();
+    }
+
+    private static PreTradeCheck lapped(Stage stage, PreTradeCheck check) {
+        return context -> {
+            Stopwatch stopwatch = context.getStopwatch();
+            if (stopwatch == null) {
+                return check.check(context);
+            }
+            stopwatch.skip();
+            try {
+                return check.check(context);
+            } finally {
+                stopwatch.lap(stage);
+            }
+        };
+    }
+
+    public PreTradeVerdict run(PreTradeContext context) {
+        return pipeline.run(context);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.PreTradeVerdict.Finding;
+import com.example.stockbrokerage.entity.Client;
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.util.Money;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything the pre-trade checks need about one order, loaded once by the caller and
+ * shared by every stage: the trade, its client, the client's balances and the order's
+ * notional. Batch callers also supply running totals across the basket.
+ */
+public class PreTradeContext {
+
+    private final Trade trade;
+    private final Client client;
+    private final AccountLedger.Snapshot account;
+    private final long notionalUnits;
+    private long todayTotalUnits = -1;
+    private Long availableUnits;
+    private String velocityReason;
+    private boolean velocityRecorded;
+    private List<Finding> flags = List.of();
+    private OrderLatencyMetrics.Stopwatch stopwatch;
+
+    public PreTradeContext(Trade trade, Client client, AccountLedger.Snapshot account) {
+        this.trade = trade;
+        this.client = client;
+        this.account = account;
+        this.notionalUnits = Money.notional(Money.of(trade.getPrice()), trade.getQuantity());
+    }
+
+    public Trade getTrade() {
+        return trade;
+    }
+
+    public Long getClientId() {
+        return trade.getClientId();
+    }
+
+    public Client getClient() {
+        return client;
+    }
+
+    public AccountLedger.Snapshot getAccount() {
+        return account;
+    }
+
+    /** Price × quantity in Money units. */
+    public long getNotionalUnits() {
+        return notionalUnits;
+    }
+
+    /** Notional placed earlier today, or -1 if the daily limit check should read the running counter. */
+    public long getTodayTotalUnits() {
+        return todayTotalUnits;
+    }
+
+    public void setTodayTotalUnits(long todayTotalUnits) {
+        this.todayTotalUnits = todayTotalUnits;
+    }
+
+    /** Available balance left for this order, or null if the balance check should read the account snapshot. */
+    public Long getAvailableUnits() {
+        return availableUnits;
+    }
+
+    public void setAvailableUnits(Long availableUnits) {
+        this.availableUnits = availableUnits;
+    }
+
+    public boolean isVelocityRecorded() {
+        return velocityRecorded;
+    }
+
+    public String getVelocityReason() {
+        return velocityReason;
+    }
+
+    /** Supplies an order-rate outcome already recorded for the whole basket. */
+    public void setVelocityOutcome(String velocityReason) {
+        this.velocityReason = velocityReason;
+        this.velocityRecorded = true;
+    }
+
+    /** Stage timings of the order, or null when the caller does not time stages. */
+    public OrderLatencyMetrics.Stopwatch getStopwatch() {
+        return stopwatch;
+    }
+
+    public void setStopwatch(OrderLatencyMetrics.Stopwatch stopwatch) {
+        this.stopwatch = stopwatch;
+    }
+
+    public void flag(Finding finding) {
+        if (flags.isEmpty()) {
+            flags = new ArrayList<>(2);
+        }
+        flags.add(finding);
+    }
+
+    public List<Finding> getFlags() {
+        return flags;
+    }
+}
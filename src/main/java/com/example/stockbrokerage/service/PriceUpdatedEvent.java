@@ -0,0 +1,10 @@
+package com.example.stockbrokerage.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Published by {@link StockPriceService} whenever a market price has been observed for a symbol.
+ * {@link LimitOrderScheduler} listens for it and fires the resting limit orders the price crosses.
+ */
+public record PriceUpdatedEvent(String symbol, BigDecimal price) {
+}
@@ -0,0 +1,571 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * In-process cache of the last price fetched per symbol, in front of {@link StockPriceService}'s
+ * upstream lookups.
+ *
+ * Design decisions:
+ *  - A price younger than {@code ttl-ms} is served without calling upstream. A hit in the last
+ *    {@code refresh-ahead-ms} before expiry also starts one background refresh of that symbol,
+ *    so symbols that keep being asked for are refreshed before they expire and never miss;
+ *    symbols nobody asks for simply age out.
+ *  - If the upstream lookup of an expired symbol fails (no price or an exception), the last
+ *    price is served as long as it is younger than {@code stale-ms} (stale-while-revalidate).
+ *    Past that, the failure is returned to the caller as before.
+ *  - Upstream lookups are coalesced per symbol with a {@link SingleFlight}: concurrent misses
+ *    (and refreshes) of one symbol share a single fetch and all receive its price. A caller
+ *    waits for someone else's fetch at most {@code coalesce-wait-ms}, then falls back to the
+ *    last known price like any other upstream failure. This applies with the cache disabled too.
+ *  - {@link #getAll} serves the cached symbols of a list and fetches the rest with one batch
+ *    call, so valuing a portfolio costs at most one upstream request per batch of symbols.
+ *    The batch registers its symbols in the same {@link SingleFlight}, so concurrent batches
+ *    and single lookups of a symbol share one fetch whichever of them starts it.
+ *  - {@link #getAsync} and {@link #getAllAsync} are the same lookups for request threads: the
+ *    loaders return futures, coalescing goes through the same flights without blocking, and
+ *    the result completes with the cached, fetched or stale price exactly as the blocking
+ *    forms would return it. Refresh-ahead still runs on the refresh pool.
+ *  - Entries are immutable and replaced as a whole; a hit is one map read and no lock.
+ *  - Bounded at {@code max-symbols}: past that, the least recently read tenth is evicted in
+ *    one pass, so eviction costs nothing on the hit path.
+ *  - Metrics: {@code prices.cache.requests} (result = hit / miss / stale),
+ *    {@code prices.cache.refreshes} (result = ok / failed), {@code prices.cache.evictions},
+ *    {@code prices.cache.coalesced}, {@code prices.cache.coalesce-timeouts},
+ *    {@code prices.cache.age} (age of each price served from the cache) and gauge
+ *    {@code prices.cache.symbols}.
+ */
+@Component
+@Slf4j
+public class QuoteCache {
+
+    private static final class Entry {
+
+        final BigDecimal price;
+        final long fetchedAt;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        volatile long lastRead;
+
+        Entry(BigDecimal price, long fetchedAt) {
+            this.price = price;
+            this.fetchedAt = fetchedAt;
+            this.lastRead = fetchedAt;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final SingleFlight<String, BigDecimal> flights = new SingleFlight<>();
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final long refreshAfterMillis;
+    private final long staleMillis;
+    private final int maxSymbols;
+    private final long coalesceWaitMillis;
+    private final Clock clock;
+    private final Executor refresher;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter staleHits;
+    private final Counter refreshesOk;
+    private final Counter refreshesFailed;
+    private final Counter evictions;
+    private final Counter coalesceTimeouts;
+    private final DistributionSummary servedAge;
+
+    @Autowired
+    public QuoteCache(MeterRegistry meterRegistry,
+                      @Value("${prices.cache.enabled:true}") boolean enabled,
+                      @Value("${prices.cache.ttl-ms:5000}") long ttlMillis,
+                      @Value("${prices.cache.refresh-ahead-ms:1000}") long refreshAheadMillis,
+                      @Value("${prices.cache.stale-ms:300000}") long staleMillis,
+                      @Value("${prices.cache.max-symbols:5000}") int maxSymbols,
+                      @Value("${prices.cache.coalesce-wait-ms:3000}") long coalesceWaitMillis,
+                      @Value("${prices.cache.refresh-threads:2}") int refreshThreads) {
+        this(meterRegistry, enabled, ttlMillis, refreshAheadMillis, staleMillis, maxSymbols, coalesceWaitMillis,
+                Clock.systemUTC(), refreshPool(refreshThreads, maxSymbols));
+    }
+
+    QuoteCache(MeterRegistry meterRegistry, boolean enabled, long ttlMillis, long refreshAheadMillis,
+               long staleMillis, int maxSymbols, long coalesceWaitMillis, Clock clock, Executor refresher) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        this.refreshAfterMillis = Math.max(0, ttlMillis - refreshAheadMillis);
+        this.staleMillis = Math.max(ttlMillis, staleMillis);
+        this.maxSymbols = maxSymbols;
+        this.coalesceWaitMillis = coalesceWaitMillis;
+        this.clock = clock;
+        this.refresher = refresher;
+        this.hits = requests(meterRegistry, "hit", "Price lookups served from the quote cache");
+        this.misses = requests(meterRegistry, "miss", "Price lookups that had to call upstream");
+        this.staleHits = requests(meterRegistry, "stale", "Price lookups served an expired price because upstream failed");
+        this.refreshesOk = refreshes(meterRegistry, "ok");
+        this.refreshesFailed = refreshes(meterRegistry, "failed");
+        this.evictions = Counter.builder("prices.cache.evictions")
+                .description("Symbols evicted from the quote cache to stay within max-symbols")
+                .register(meterRegistry);
+        this.coalesceTimeouts = Counter.builder("prices.cache.coalesce-timeouts")
+                .description("Lookups that gave up waiting for another caller's fetch of the same symbol")
+                .register(meterRegistry);
+        FunctionCounter.builder("prices.cache.coalesced", flights, SingleFlight::coalesced)
+                .description("Lookups that shared another caller's in-flight fetch of the same symbol")
+                .register(meterRegistry);
+        this.servedAge = DistributionSummary.builder("prices.cache.age")
+                .description("Age of prices served from the quote cache")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("prices.cache.symbols", entries, Map::size)
+                .description("Symbols currently held in the quote cache")
+                .register(meterRegistry);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result, String description) {
+        return Counter.builder("prices.cache.requests").tag("result", result).description(description)
+                .register(meterRegistry);
+    }
+
+    private static Counter refreshes(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("prices.cache.refreshes").tag("result", result)
+                .description("Background refresh-ahead lookups").register(meterRegistry);
+    }
+
+    private static ExecutorService refreshPool(int threads, int maxSymbols) {
+        AtomicInteger sequence = new AtomicInteger();
+        int size = Math.max(1, threads);
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxSymbols)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "quote-refresh-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Returns the cached price of {@code symbol}, or looks it up with {@code loader} when it is
+     * missing or expired. The loader returns a positive price, or zero / null / throws when
+     * upstream has none.
+     */
+    public BigDecimal get(String symbol, Function<String, BigDecimal> loader) {
+        if (!enabled) {
+            return fetchOrZero(symbol, loader);
+        }
+        long now = clock.millis();
+        BigDecimal cached = fresh(symbol, now, loader);
+        if (cached != null) {
+            return cached;
+        }
+
+        Entry entry = entries.get(symbol);
+        misses.increment();
+        BigDecimal price;
+        try {
+            price = fetch(symbol, loader);
+        } catch (TimeoutException e) {
+            coalesceTimeouts.increment();
+            return servableStale(entry, now) ? serveStale(symbol, entry, now, "timed out") : BigDecimal.ZERO;
+        } catch (RuntimeException e) {
+            if (servableStale(entry, now)) {
+                return serveStale(symbol, entry, now, e.getMessage());
+            }
+            throw e;
+        }
+        if (isPrice(price)) {
+            return price;
+        }
+        return servableStale(entry, now) ? serveStale(symbol, entry, now, "no price") : price;
+    }
+
+    /**
+     * Batch form of {@link #get}: cached prices are served as they are and the missing or
+     * expired symbols are looked up together with one {@code batchLoader} call, which returns
+     * the symbols it found a price for. Symbols another caller is already fetching, alone or in
+     * a batch, join that fetch instead, for at most {@code coalesce-wait-ms} in total. Returns
+     * the symbols that have a price, after the stale fallback; the others are absent.
+     * {@code loader} is used for refresh-ahead of cached symbols.
+     */
+    public Map<String, BigDecimal> getAll(Collection<String> symbols,
+                                          Function<List<String>, Map<String, BigDecimal>> batchLoader,
+                                          Function<String, BigDecimal> loader) {
+        Map<String, BigDecimal> prices = new HashMap<>();
+        List<String> toFetch = new ArrayList<>();
+        long now = clock.millis();
+        for (String symbol : new LinkedHashSet<>(symbols)) {
+            BigDecimal cached = enabled ? fresh(symbol, now, loader) : null;
+            if (cached != null) {
+                prices.put(symbol, cached);
+            } else {
+                toFetch.add(symbol);
+            }
+        }
+        if (toFetch.isEmpty()) {
+            return prices;
+        }
+
+        misses.increment(toFetch.size());
+        Map<String, CompletableFuture<BigDecimal>> fetches = fetchAll(toFetch, batchLoader);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(coalesceWaitMillis);
+        for (String symbol : toFetch) {
+            putPriceOrStale(prices, symbol, await(symbol, fetches.get(symbol), deadline), now);
+        }
+        return prices;
+    }
+
+    /**
+     * Non-blocking form of {@link #get}: {@code loader} returns a future of the price, and the
+     * result completes with what {@code get} would have returned, or exceptionally where it
+     * would have thrown.
+     */
+    public CompletableFuture<BigDecimal> getAsync(String symbol, Function<String, CompletableFuture<BigDecimal>> loader) {
+        long now = clock.millis();
+        if (enabled) {
+            BigDecimal cached = fresh(symbol, now, blocking(loader));
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            misses.increment();
+        }
+        Entry entry = entries.get(symbol);
+        return fetchAsync(symbol, loader).handle((price, error) -> {
+            if (error == null) {
+                return isPrice(price) || !servableStale(entry, now) ? price : serveStale(symbol, entry, now, "no price");
+            }
+            Throwable cause = unwrap(error);
+            if (cause instanceof TimeoutException) {
+                coalesceTimeouts.increment();
+                return servableStale(entry, now) ? serveStale(symbol, entry, now, "timed out") : BigDecimal.ZERO;
+            }
+            if (servableStale(entry, now)) {
+                return serveStale(symbol, entry, now, cause.getMessage());
+            }
+            throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+        });
+    }
+
+    /**
+     * Non-blocking form of {@link #getAll}, with loaders that return futures. Completes with
+     * the symbols that have a price, after the stale fallback; never completes exceptionally.
+     */
+    public CompletableFuture<Map<String, BigDecimal>> getAllAsync(
+            Collection<String> symbols,
+            Function<List<String>, CompletableFuture<Map<String, BigDecimal>>> batchLoader,
+            Function<String, CompletableFuture<BigDecimal>> loader) {
+        Map<String, BigDecimal> prices = new HashMap<>();
+        List<String> toFetch = new ArrayList<>();
+        long now = clock.millis();
+        for (String symbol : new LinkedHashSet<>(symbols)) {
+            BigDecimal cached = enabled ? fresh(symbol, now, blocking(loader)) : null;
+            if (cached != null) {
+                prices.put(symbol, cached);
+            } else {
+                toFetch.add(symbol);
+            }
+        }
+        if (toFetch.isEmpty()) {
+            return CompletableFuture.completedFuture(prices);
+        }
+
+        misses.increment(toFetch.size());
+        Map<String, CompletableFuture<BigDecimal>> fetches = fetchAllAsync(toFetch, batchLoader);
+        List<CompletableFuture<BigDecimal>> landed = toFetch.stream()
+                .map(symbol -> fetches.get(symbol).handle((price, error) -> landed(symbol, price, error)))
+                .toList();
+        return CompletableFuture.allOf(landed.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            for (int i = 0; i < toFetch.size(); i++) {
+                putPriceOrStale(prices, toFetch.get(i), landed.get(i).join(), now);
+            }
+            return prices;
+        });
+    }
+
+    private void putPriceOrStale(Map<String, BigDecimal> prices, String symbol, BigDecimal price, long now) {
+        if (isPrice(price)) {
+            prices.put(symbol, price);
+        } else {
+            Entry entry = entries.get(symbol);
+            if (servableStale(entry, now)) {
+                prices.put(symbol, serveStale(symbol, entry, now, "no price"));
+            }
+        }
+    }
+
+    /**
+     * Starts one {@code batchLoader} call for the symbols no other caller is fetching and joins
+     * the fetches in flight for the rest. The caller that runs the batch caches its prices; a
+     * failed batch is logged and prices none of its symbols.
+     */
+    private Map<String, CompletableFuture<BigDecimal>> fetchAll(
+            List<String> symbols, Function<List<String>, Map<String, BigDecimal>> batchLoader) {
+        return flights.executeAll(symbols, batch -> {
+            try {
+                Map<String, BigDecimal> fetched = batchLoader.apply(batch);
+                if (enabled) {
+                    fetched.forEach((symbol, price) -> {
+                        if (isPrice(price)) {
+                            put(symbol, price);
+                        }
+                    });
+                }
+                return fetched;
+            } catch (RuntimeException e) {
+                log.warn("Batch price lookup of {} symbol(s) failed: {}", batch.size(), e.getMessage());
+                return Map.of();
+            }
+        });
+    }
+
+    /** Non-blocking form of {@link #fetchAll}, with a batch loader that returns a future. */
+    private Map<String, CompletableFuture<BigDecimal>> fetchAllAsync(
+            List<String> symbols, Function<List<String>, CompletableFuture<Map<String, BigDecimal>>> batchLoader) {
+        return flights.executeAllAsync(symbols, batch -> {
+            CompletableFuture<Map<String, BigDecimal>> fetch;
+            try {
+                fetch = batchLoader.apply(batch);
+            } catch (RuntimeException e) {
+                fetch = CompletableFuture.failedFuture(e);
+            }
+            return fetch.thenApply(fetched -> {
+                if (enabled) {
+                    fetched.forEach((symbol, price) -> {
+                        if (isPrice(price)) {
+                            put(symbol, price);
+                        }
+                    });
+                }
+                return fetched;
+            }).exceptionally(e -> {
+                log.warn("Batch price lookup of {} symbol(s) failed: {}", batch.size(), unwrap(e).getMessage());
+                return Map.of();
+            });
+        }, coalesceWaitMillis);
+    }
+
+    /** The result of a fetch the batch started or joined, or null if it failed or timed out. */
+    private BigDecimal landed(String symbol, BigDecimal price, Throwable error) {
+        if (error == null) {
+            return price;
+        }
+        Throwable cause = unwrap(error);
+        if (cause instanceof TimeoutException) {
+            coalesceTimeouts.increment();
+        } else {
+            log.debug("Price lookup of {} failed: {}", symbol, cause.getMessage());
+        }
+        return null;
+    }
+
+    /** The result of a fetch the batch started or joined, or null if it failed or is not done by {@code deadline}. */
+    private BigDecimal await(String symbol, CompletableFuture<BigDecimal> fetch, long deadline) {
+        try {
+            return fetch.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            coalesceTimeouts.increment();
+        } catch (ExecutionException e) {
+            log.debug("Price lookup of {} failed: {}", symbol, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Looks all {@code symbols} up with one {@code batchLoader} call regardless of the cached
+     * prices' age and caches the results; the batch form of {@link #refresh}. Like
+     * {@link #getAll} it joins fetches already in flight, waits at most {@code coalesce-wait-ms}
+     * and returns only the symbols that got a price.
+     */
+    public Map<String, BigDecimal> refreshAll(Collection<String> symbols,
+                                              Function<List<String>, Map<String, BigDecimal>> batchLoader) {
+        List<String> distinct = List.copyOf(new LinkedHashSet<>(symbols));
+        if (distinct.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, CompletableFuture<BigDecimal>> fetches = fetchAll(distinct, batchLoader);
+        Map<String, BigDecimal> prices = new HashMap<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(coalesceWaitMillis);
+        for (String symbol : distinct) {
+            BigDecimal price = await(symbol, fetches.get(symbol), deadline);
+            if (isPrice(price)) {
+                prices.put(symbol, price);
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * Looks {@code symbol} up with {@code loader} regardless of the cached price's age and
+     * caches the result; for pollers that need a fresh price rather than a recent one. Joins
+     * a fetch of the symbol already in flight.
+     */
+    public BigDecimal refresh(String symbol, Function<String, BigDecimal> loader) {
+        return fetchOrZero(symbol, loader);
+    }
+
+    /** The cached price if younger than the TTL, or null; starts a refresh-ahead when due. */
+    private BigDecimal fresh(String symbol, long now, Function<String, BigDecimal> loader) {
+        Entry entry = entries.get(symbol);
+        if (entry == null) {
+            return null;
+        }
+        long age = now - entry.fetchedAt;
+        if (age >= ttlMillis) {
+            return null;
+        }
+        entry.lastRead = now;
+        hits.increment();
+        servedAge.record(age);
+        if (age >= refreshAfterMillis && entry.refreshing.compareAndSet(false, true)) {
+            refreshAhead(symbol, entry, loader);
+        }
+        return entry.price;
+    }
+
+    /** One upstream lookup per symbol at a time; the caller that runs it caches the result. */
+    private BigDecimal fetch(String symbol, Function<String, BigDecimal> loader) throws TimeoutException {
+        return flights.execute(symbol, s -> {
+            BigDecimal price = loader.apply(s);
+            if (enabled && isPrice(price)) {
+                put(s, price);
+            }
+            return price;
+        }, coalesceWaitMillis);
+    }
+
+    /** Non-blocking form of {@link #fetch}. */
+    private CompletableFuture<BigDecimal> fetchAsync(String symbol, Function<String, CompletableFuture<BigDecimal>> loader) {
+        return flights.executeAsync(symbol, s -> loader.apply(s).thenApply(price -> {
+            if (enabled && isPrice(price)) {
+                put(s, price);
+            }
+            return price;
+        }), coalesceWaitMillis);
+    }
+
+    /** An async loader for refresh-ahead, which runs on the refresh pool and may wait for it. */
+    private static Function<String, BigDecimal> blocking(Function<String, CompletableFuture<BigDecimal>> loader) {
+        return symbol -> loader.apply(symbol).join();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private BigDecimal fetchOrZero(String symbol, Function<String, BigDecimal> loader) {
+        try {
+            return fetch(symbol, loader);
+        } catch (TimeoutException e) {
+            coalesceTimeouts.increment();
+            return BigDecimal.ZERO;
+        }
+    }
+
+    private void refreshAhead(String symbol, Entry entry, Function<String, BigDecimal> loader) {
+        try {
+            refresher.execute(() -> {
+                try {
+                    if (flights.isInFlight(symbol)) {
+                        return; // a caller is already fetching it
+                    }
+                    BigDecimal price = fetch(symbol, loader);
+                    if (isPrice(price)) {
+                        refreshesOk.increment();
+                    } else {
+                        refreshesFailed.increment();
+                    }
+                } catch (RuntimeException | TimeoutException e) {
+                    refreshesFailed.increment();
+                    log.debug("Refresh-ahead of {} failed: {}", symbol, e.getMessage());
+                } finally {
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private boolean servableStale(Entry entry, long now) {
+        return entry != null && now - entry.fetchedAt < staleMillis;
+    }
+
+    private BigDecimal serveStale(String symbol, Entry entry, long now, String reason) {
+        long age = now - entry.fetchedAt;
+        log.warn("Price lookup for {} failed ({}), serving cached price {} from {} ms ago", symbol, reason, entry.price, age);
+        entry.lastRead = now;
+        staleHits.increment();
+        servedAge.record(age);
+        return entry.price;
+    }
+
+    private void put(String symbol, BigDecimal price) {
+        entries.put(symbol, new Entry(price, clock.millis()));
+        if (entries.size() > maxSymbols) {
+            evictLeastRecentlyRead();
+        }
+    }
+
+    private synchronized void evictLeastRecentlyRead() {
+        int excess = entries.size() - maxSymbols;
+        if (excess <= 0) {
+            return;
+        }
+        int toEvict = Math.max(excess, maxSymbols / 10);
+        List<Map.Entry<String, Entry>> oldest = entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().lastRead))
+                .limit(toEvict)
+                .toList();
+        for (Map.Entry<String, Entry> e : oldest) {
+            if (entries.remove(e.getKey(), e.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private static boolean isPrice(BigDecimal price) {
+        return price != null && price.signum() > 0;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refresher instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -12,6 +12,7 @@ import com.example.stockbrokerage.repository.PortfolioRepository;
 import com.example.stockbrokerage.repository.TradeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,6 +32,7 @@ public class ReconciliationService {
     private final PortfolioRepository portfolioRepository;
     private final AccountRepository accountRepository;
     private final ClientRepository clientRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Runs every minute to reconcile portfolio and account balances
@@ -141,19 +143,26 @@ public class ReconciliationService {
         BigDecimal expectedCashBalance = initialBalance.add(totalSellAmount).subtract(totalBuyAmount);
         
         // Update account if there's a discrepancy
+        boolean corrected = false;
         if (account.getCashBalance().compareTo(expectedCashBalance) != 0) {
             log.warn("Cash balance mismatch for client {}: expected {}, actual {}. Correcting...", 
                     client.getId(), expectedCashBalance, account.getCashBalance());
             account.setCashBalance(expectedCashBalance);
+            corrected = true;
         }
         
         if (account.getReservedBalance().compareTo(reservedAmount) != 0) {
             log.warn("Reserved balance mismatch for client {}: expected {}, actual {}. Correcting...", 
                     client.getId(), reservedAmount, account.getReservedBalance());
             account.setReservedBalance(reservedAmount);
+            corrected = true;
         }
         
         accountRepository.save(account);
+        if (corrected) {
+            // The in-memory ledger reloads the corrected balances once this transaction commits
+            eventPublisher.publishEvent(new AccountBalancesResetEvent(List.of(client.getId())));
+        }
         
         log.debug("Reconciliation complete for client {}: {} positions, cash={}, reserved={}", 
                 client.getId(), positions.size(), expectedCashBalance, reservedAmount);
@@ -0,0 +1,328 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.RuleBacktestRequest;
+import com.example.stockbrokerage.dto.RuleBacktestResponse;
+import com.example.stockbrokerage.dto.RuleBacktestResponse.RunStats;
+import com.example.stockbrokerage.dto.RuleRequest;
+import com.example.stockbrokerage.dto.RuleVerdict;
+import com.example.stockbrokerage.dto.RuleVerdict.ReasonCode;
+import com.example.stockbrokerage.entity.Rule;
+import com.example.stockbrokerage.entity.Rule.RuleLevel;
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.repository.RuleRepository;
+import com.example.stockbrokerage.repository.TradeRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replays recent trades through a candidate rule set and the active one, side by side.
+ *
+ * Design decisions:
+ *  - Both sets are compiled detached (see {@link RuleBaseCache#compileDetached}) from the same
+ *    rule lists the live cache would use, so the comparison is like-for-like and nothing live
+ *    is touched. The candidate is never saved.
+ *  - Each run evaluates its own copies of the trades, so rules that modify facts cannot leak
+ *    between runs or into the persistence context.
+ *  - Trades are split into one contiguous slice per worker on a shared, bounded pool of
+ *    {@code rules.backtest.threads} threads; the request's parallelism is capped at that.
+ *    Per-trade latency is recorded into a primitive array and sorted once at the end.
+ *  - Both sets get an untimed warm-up pass first, then {@link #MEASURED_ROUNDS} timed rounds
+ *    that alternate which set goes first, so neither one is measured on a colder JIT.
+ *  - Backtest compiles are kept out of {@code rules.compile.time}.
+ */
+@Service
+@Slf4j
+public class RuleBacktestService {
+
+    private static final int SAMPLE_SIZE = 20;
+    private static final int WARMUP_TRADES = 10_000;
+    private static final int MEASURED_ROUNDS = 2;
+
+    private final RuleRepository ruleRepository;
+    private final TradeRepository tradeRepository;
+    private final RuleBaseCache ruleBaseCache;
+    private final int threads;
+    private final ExecutorService pool;
+
+    public RuleBacktestService(RuleRepository ruleRepository,
+                               TradeRepository tradeRepository,
+                               RuleBaseCache ruleBaseCache,
+                               @Value("${rules.backtest.threads:0}") int threads) {
+        this.ruleRepository = ruleRepository;
+        this.tradeRepository = tradeRepository;
+        this.ruleBaseCache = ruleBaseCache;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.threads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "rule-backtest-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public RuleBacktestResponse backtest(RuleBacktestRequest request) {
+        LocalDateTime windowEnd = LocalDateTime.now();
+        LocalDateTime windowStart = windowEnd.minusDays(request.getDays());
+        List<Trade> trades = tradeRepository.findByTradeTimeBetween(windowStart, windowEnd,
+                PageRequest.of(0, request.getMaxTrades(), Sort.by(Sort.Direction.DESC, "tradeTime")));
+
+        List<Rule> activeRules = ruleRepository.findByActiveTrue();
+        Set<Long> excluded = new HashSet<>(request.getExcludeRuleIds());
+        List<Rule> candidateRules = new ArrayList<>();
+        for (Rule rule : activeRules) {
+            if (!excluded.contains(rule.getId())) {
+                candidateRules.add(rule);
+            }
+        }
+        for (RuleRequest candidate : request.getCandidateRules()) {
+            candidateRules.add(toRule(candidate));
+        }
+
+        int parallelism = request.getParallelism() != null
+                ? Math.min(request.getParallelism(), threads)
+                : threads;
+
+        log.info("Backtesting {} candidate rule(s) against {} trade(s) from the last {} day(s), parallelism={}",
+                candidateRules.size(), trades.size(), request.getDays(), parallelism);
+
+        Prepared activeSet = prepare("active", activeRules);
+        Prepared candidateSet = prepare("candidate", candidateRules);
+        try {
+            // Warm-up: untimed, so neither set's measured runs pay for JIT compilation
+            List<Trade> warmup = trades.subList(0, Math.min(WARMUP_TRADES, trades.size()));
+            replay(activeSet, warmup, parallelism);
+            replay(candidateSet, warmup, parallelism);
+
+            List<Replay> activeRuns = new ArrayList<>();
+            List<Replay> candidateRuns = new ArrayList<>();
+            for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                if (round % 2 == 0) {
+                    activeRuns.add(replay(activeSet, trades, parallelism));
+                    candidateRuns.add(replay(candidateSet, trades, parallelism));
+                } else {
+                    candidateRuns.add(replay(candidateSet, trades, parallelism));
+                    activeRuns.add(replay(activeSet, trades, parallelism));
+                }
+            }
+            Run active = summarize(activeSet, activeRuns);
+            Run candidate = summarize(candidateSet, candidateRuns);
+
+            List<Long> newlyRejected = new ArrayList<>();
+            List<Long> newlyApproved = new ArrayList<>();
+            for (int i = 0; i < trades.size(); i++) {
+                if (active.approved[i] && !candidate.approved[i]) {
+                    newlyRejected.add(trades.get(i).getId());
+                } else if (!active.approved[i] && candidate.approved[i]) {
+                    newlyApproved.add(trades.get(i).getId());
+                }
+            }
+
+            double activeTps = active.stats.getTradesPerSecond();
+            double throughputChange = activeTps > 0
+                    ? (candidate.stats.getTradesPerSecond() - activeTps) * 100.0 / activeTps
+                    : 0.0;
+
+            return RuleBacktestResponse.builder()
+                    .windowStart(windowStart)
+                    .windowEnd(windowEnd)
+                    .tradesReplayed(trades.size())
+                    .parallelism(parallelism)
+                    .active(active.stats)
+                    .candidate(candidate.stats)
+                    .newlyRejected(newlyRejected.size())
+                    .newlyApproved(newlyApproved.size())
+                    .newlyRejectedSample(newlyRejected.subList(0, Math.min(SAMPLE_SIZE, newlyRejected.size())))
+                    .newlyApprovedSample(newlyApproved.subList(0, Math.min(SAMPLE_SIZE, newlyApproved.size())))
+                    .throughputChangePercent(throughputChange)
+                    .build();
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Backtest pool is busy with other backtests, try again later");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private Prepared prepare(String name, List<Rule> rules) {
+        long compileStart = System.nanoTime();
+        RuleSnapshot snapshot = compile(name, rules);
+        return new Prepared(name, rules.size(), snapshot, (System.nanoTime() - compileStart) / 1_000_000);
+    }
+
+    /** One pass of {@code trades} through a prepared set. */
+    private Replay replay(Prepared set, List<Trade> trades, int parallelism) {
+        RuleSnapshot snapshot = set.snapshot();
+        List<Trade> copies = trades.stream().map(RuleBacktestService::copyOf).toList();
+        boolean[] approved = new boolean[copies.size()];
+        long[] latencies = new long[copies.size()];
+
+        int sliceSize = Math.max(1, (copies.size() + parallelism - 1) / parallelism);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        long wallStart = System.nanoTime();
+        for (int from = 0; from < copies.size(); from += sliceSize) {
+            int start = from;
+            int end = Math.min(copies.size(), from + sliceSize);
+            futures.add(CompletableFuture.runAsync(() -> {
+                RuleVerdict verdict = new RuleVerdict();
+                for (int i = start; i < end; i++) {
+                    verdict.reset();
+                    long t0 = System.nanoTime();
+                    snapshot.evaluate(copies.get(i), verdict);
+                    latencies[i] = System.nanoTime() - t0;
+                    approved[i] = verdict.isApproved();
+                }
+            }, pool));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        return new Replay(approved, latencies, System.nanoTime() - wallStart);
+    }
+
+    /** Verdicts of the first measured run; latencies and throughput over all of them. */
+    private Run summarize(Prepared set, List<Replay> runs) {
+        boolean[] approved = runs.get(0).approved();
+        int tradeCount = approved.length;
+        long[] latencies = new long[tradeCount * runs.size()];
+        long wallNanos = 0;
+        for (int i = 0; i < runs.size(); i++) {
+            System.arraycopy(runs.get(i).latencies(), 0, latencies, i * tradeCount, tradeCount);
+            wallNanos += runs.get(i).wallNanos();
+        }
+        int approvedCount = 0;
+        for (boolean a : approved) {
+            if (a) {
+                approvedCount++;
+            }
+        }
+        Arrays.sort(latencies);
+
+        RunStats stats = RunStats.builder()
+                .ruleCount(set.ruleCount())
+                .compileMillis(set.compileMillis())
+                .approved(approvedCount)
+                .rejected(tradeCount - approvedCount)
+                .p50Micros(percentileMicros(latencies, 0.50))
+                .p95Micros(percentileMicros(latencies, 0.95))
+                .p99Micros(percentileMicros(latencies, 0.99))
+                .maxMicros(latencies.length > 0 ? latencies[latencies.length - 1] / 1_000.0 : 0.0)
+                .tradesPerSecond(wallNanos > 0 ? latencies.length * 1_000_000_000.0 / wallNanos : 0.0)
+                .build();
+        log.info("Backtest run '{}': {} rule(s), {}/{} approved, p99={}us, {} trades/s over {} round(s)",
+                set.name(), set.ruleCount(), approvedCount, tradeCount, stats.getP99Micros(),
+                (long) stats.getTradesPerSecond(), runs.size());
+        return new Run(stats, approved);
+    }
+
+    /** Splits rules into the same shared base and per-client overlays that {@link RuleBaseCache} builds. */
+    private RuleSnapshot compile(String name, List<Rule> rules) {
+        List<Rule> sharedRules = new ArrayList<>();
+        Map<Long, List<Rule>> clientRules = new HashMap<>();
+        for (Rule rule : rules) {
+            if (rule.getLevel() == RuleLevel.CLIENT) {
+                if (rule.getClientId() != null) {
+                    clientRules.computeIfAbsent(rule.getClientId(), id -> new ArrayList<>()).add(rule);
+                }
+            } else {
+                sharedRules.add(rule);
+            }
+        }
+
+        try {
+            CompiledRules shared = ruleBaseCache.compileDetached(name + "-shared", sharedRules);
+            Map<Long, CompiledRules> overlays = new HashMap<>();
+            for (Map.Entry<Long, List<Rule>> entry : clientRules.entrySet()) {
+                overlays.put(entry.getKey(),
+                        ruleBaseCache.compileDetached(name + "-client-" + entry.getKey(), entry.getValue()));
+            }
+            return new RuleSnapshot(shared, overlays);
+        } catch (Exception e) {
+            throw new RuntimeException("Backtest aborted, " + name + " rule set does not compile: " + e.getMessage());
+        }
+    }
+
+    private static Rule toRule(RuleRequest request) {
+        return Rule.builder()
+                .ruleName(request.getRuleName())
+                .description(request.getDescription())
+                .ruleType(request.getRuleType())
+                .level(request.getLevel())
+                .clientId(request.getClientId())
+                .ruleContent(request.getRuleContent())
+                .active(true)
+                .priority(request.getPriority())
+                .build();
+    }
+
+    private static Trade copyOf(Trade trade) {
+        return Trade.builder()
+                .id(trade.getId())
+                .clientId(trade.getClientId())
+                .symbol(trade.getSymbol())
+                .quantity(trade.getQuantity())
+                .price(trade.getPrice())
+                .type(trade.getType())
+                .orderType(trade.getOrderType())
+                .stopPrice(trade.getStopPrice())
+                .status(trade.getStatus())
+                .tradeTime(trade.getTradeTime())
+                .expiryTime(trade.getExpiryTime())
+                .build();
+    }
+
+    private static double percentileMicros(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1_000.0;
+    }
+
+    private record Prepared(String name, int ruleCount, RuleSnapshot snapshot, long compileMillis) {
+    }
+
+    private record Replay(boolean[] approved, long[] latencies, long wallNanos) {
+    }
+
+    private record Run(RunStats stats, boolean[] approved) {
+    }
+
+    private record RuleSnapshot(CompiledRules shared, Map<Long, CompiledRules> overlays) {
+
+        void evaluate(Trade trade, RuleVerdict verdict) {
+            try {
+                if (shared != null) {
+                    shared.evaluate(trade, verdict);
+                }
+                CompiledRules overlay = overlays.get(trade.getClientId());
+                if (overlay != null) {
+                    overlay.evaluate(trade, verdict);
+                }
+            } catch (Exception e) {
+                verdict.reject(ReasonCode.RULE_EVALUATION_ERROR, "Rule evaluation error: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.entity.Rule;
+import com.example.stockbrokerage.entity.Rule.RuleLevel;
+import com.example.stockbrokerage.repository.RuleRepository;
+import com.example.stockbrokerage.util.SingleFlight;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message;
+import org.kie.api.builder.ReleaseId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the pre-compiled rule sets used by {@link RuleEngineService}.
+ *
+ * Layout:
+ *  - One shared {@link CompiledRuleSet} with every active APPLICATION and TRADE rule.
+ *  - One small {@link ClientOverlay} per client that has active CLIENT rules, compiled
+ *    on first use and kept in a size-bounded LRU map so inactive clients are evicted.
+ *  - Evaluating a trade for client X touches the shared base plus X's overlay only.
+ *
+ * Design decisions:
+ *  - DRL compilation never happens on the order path for an active client; only the
+ *    first trade of a client whose overlay was evicted (or never built) compiles inline.
+ *  - A {@link RuleSetChangedEvent} recompiles just the scopes it names — a CLIENT rule
+ *    edit rebuilds that client's overlay, leaving the shared base and all other clients alone.
+ *  - Concurrent misses for one client share a single compile. Every overlay build takes its
+ *    version before reading the rules and is installed only over an older version, so a miss
+ *    that read the rules before a change can never replace the overlay built after it.
+ *  - Snapshots are immutable and versioned, and swapped in atomically; a failed rebuild
+ *    keeps the previous good version.
+ *  - Simple RISK_LIMIT / PRICE_VALIDATION / POSITION_LIMIT rules written as a JSON threshold
+ *    spec skip Drools entirely and run as native predicates (see {@link CompiledRules}).
+ */
+@Component
+@Slf4j
+public class RuleBaseCache {
+
+    private static final String RELEASE_GROUP = "com.example.stockbrokerage";
+    private static final long OVERLAY_COMPILE_WAIT_MILLIS = 30_000;
+
+    private final RuleRepository ruleRepository;
+    private final int sessionPoolSize;
+    private final KieServices kieServices = KieServices.Factory.get();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicReference<CompiledRuleSet> shared = new AtomicReference<>();
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    /** Clients that currently have at least one active CLIENT rule (copy-on-write). */
+    private volatile Set<Long> clientsWithRules = Set.of();
+
+    /** Access-ordered LRU of per-client overlays; eldest entry is dropped past maxClientOverlays. */
+    private final Map<Long, ClientOverlay> overlays;
+    private final SingleFlight<Long, ClientOverlay> overlayBuilds = new SingleFlight<>();
+
+    private final Timer compileTimer;
+    private final Counter compileFailures;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter overlayEvictions;
+
+    public RuleBaseCache(RuleRepository ruleRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${rules.client-overlay-cache-size:10000}") int maxClientOverlays,
+                         @Value("${rules.session-pool-size:32}") int sessionPoolSize) {
+        this.ruleRepository = ruleRepository;
+        this.sessionPoolSize = sessionPoolSize;
+        this.overlays = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ClientOverlay> eldest) {
+                if (size() > maxClientOverlays) {
+                    overlayEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        });
+
+        this.compileTimer = Timer.builder("rules.compile.time")
+                .description("Time spent compiling rules into a KieBase")
+                .register(meterRegistry);
+        this.compileFailures = Counter.builder("rules.compile.failures")
+                .description("Rule set rebuilds rejected because of DRL compilation errors")
+                .register(meterRegistry);
+        this.cacheHits = Counter.builder("rules.cache.requests")
+                .tag("result", "hit")
+                .description("Trade evaluations served from pre-compiled rule bases")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("rules.cache.requests")
+                .tag("result", "miss")
+                .description("Trade evaluations that had to compile rules inline")
+                .register(meterRegistry);
+        this.overlayEvictions = Counter.builder("rules.overlay.evictions")
+                .description("Per-client rule overlays evicted from the LRU cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("rules.overlay.coalesced", overlayBuilds, SingleFlight::coalesced)
+                .description("Overlay cache misses that waited for another caller's compile of the same client")
+                .register(meterRegistry);
+        Gauge.builder("rules.version", shared, ref -> ref.get() != null ? ref.get().version() : 0)
+                .description("Version of the shared rule set currently used for trade evaluation")
+                .register(meterRegistry);
+        Gauge.builder("rules.active.count", shared, ref -> ref.get() != null ? ref.get().ruleCount() : 0)
+                .description("Number of active rules in the shared compiled rule set")
+                .register(meterRegistry);
+        Gauge.builder("rules.overlay.cached", overlays, Map::size)
+                .description("Per-client rule overlays currently held in memory")
+                .register(meterRegistry);
+    }
+
+    // ── Lookup (order hot path) ────────────────────────────────────────────
+
+    /**
+     * Returns the shared compiled rule set. Only compiles inline if no snapshot
+     * exists yet (i.e. a trade arrived before the startup build finished).
+     */
+    public CompiledRuleSet getShared() {
+        CompiledRuleSet snapshot = shared.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        cacheMisses.increment();
+        rebuildShared();
+        return shared.get();
+    }
+
+    /**
+     * Returns the overlay for the given client, or null if the client has no CLIENT rules.
+     * Clients without rules are answered from an in-memory set — no DB access.
+     */
+    public ClientOverlay getOverlay(Long clientId) {
+        if (clientId == null || !clientsWithRules.contains(clientId)) {
+            cacheHits.increment();
+            return null;
+        }
+        ClientOverlay overlay = overlays.get(clientId);
+        if (overlay != null) {
+            cacheHits.increment();
+            return overlay;
+        }
+        cacheMisses.increment();
+        try {
+            return overlayBuilds.execute(clientId, this::rebuildOverlay, OVERLAY_COMPILE_WAIT_MILLIS);
+        } catch (TimeoutException e) {
+            log.error("Overlay for client {} still compiling after {} ms", clientId, OVERLAY_COMPILE_WAIT_MILLIS);
+            return new ClientOverlay(clientId, 0, null, true);
+        }
+    }
+
+    // ── Rebuild triggers ───────────────────────────────────────────────────
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildShared();
+    }
+
+    /**
+     * Recompiles the scopes touched by a rule change after it has been committed,
+     * on the async executor, so admin requests do not wait for DRL compilation either.
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRuleSetChanged(RuleSetChangedEvent event) {
+        log.info("Rule {} {} — rebuilding shared={} clients={}",
+                event.ruleId(), event.action(), event.sharedScope(), event.clientIds());
+        if (event.sharedScope()) {
+            rebuildShared();
+        }
+        for (Long clientId : event.clientIds()) {
+            refreshClient(clientId);
+        }
+    }
+
+    /**
+     * Loads every active APPLICATION and TRADE rule, compiles them into the shared base
+     * and swaps the result in. Also refreshes the set of clients that own CLIENT rules.
+     */
+    public synchronized void rebuildShared() {
+        long version = versionSequence.incrementAndGet();
+        try {
+            List<Rule> sharedRules = new ArrayList<>(ruleRepository.findByLevelAndActiveTrue(RuleLevel.APPLICATION));
+            sharedRules.addAll(ruleRepository.findByLevelAndActiveTrue(RuleLevel.TRADE));
+
+            CompiledRules compiled = sharedRules.isEmpty() ? null : compile("shared", version, sharedRules);
+            shared.set(new CompiledRuleSet(version, compiled, sharedRules.size(), Instant.now(), false));
+            clientsWithRules = Set.copyOf(ruleRepository.findClientIdsWithActiveClientRules());
+
+            log.info("Compiled shared rule set v{}: {} active rule(s); {} client(s) with overlay rules",
+                    version, sharedRules.size(), clientsWithRules.size());
+
+        } catch (Exception e) {
+            compileFailures.increment();
+            CompiledRuleSet previous = shared.get();
+            if (previous != null) {
+                log.error("Shared rule set v{} failed to compile — keeping v{}: {}",
+                        version, previous.version(), e.getMessage());
+            } else {
+                log.error("Shared rule set v{} failed to compile and no previous version is available", version, e);
+                shared.set(new CompiledRuleSet(version, null, 0, Instant.now(), true));
+            }
+        }
+    }
+
+    /**
+     * Re-reads whether the client still has CLIENT rules and, if its overlay is cached or being
+     * compiled by a miss right now, recompiles it. The miss may have read the rules before the
+     * change; this newer build wins over it. Other clients are compiled lazily on their next trade.
+     */
+    private void refreshClient(Long clientId) {
+        long version = versionSequence.incrementAndGet();
+        List<Rule> clientRules = ruleRepository.findByLevelAndClientIdAndActiveTrue(RuleLevel.CLIENT, clientId);
+        Set<Long> updated = new HashSet<>(clientsWithRules);
+        if (clientRules.isEmpty()) {
+            updated.remove(clientId);
+            overlays.remove(clientId);
+        } else {
+            updated.add(clientId);
+        }
+        clientsWithRules = Set.copyOf(updated);
+
+        if (!clientRules.isEmpty() && (overlays.containsKey(clientId) || overlayBuilds.isInFlight(clientId))) {
+            compileOverlay(clientId, version, clientRules);
+        }
+    }
+
+    private ClientOverlay rebuildOverlay(Long clientId) {
+        long version = versionSequence.incrementAndGet();
+        return compileOverlay(clientId, version,
+                ruleRepository.findByLevelAndClientIdAndActiveTrue(RuleLevel.CLIENT, clientId));
+    }
+
+    /**
+     * Compiles and installs an overlay of {@code version}, taken before {@code clientRules} were
+     * read. Returns the overlay installed afterwards, which is a newer one if it got there first.
+     */
+    private ClientOverlay compileOverlay(Long clientId, long version, List<Rule> clientRules) {
+        ClientOverlay overlay;
+        try {
+            CompiledRules compiled = clientRules.isEmpty() ? null : compile("client-" + clientId, version, clientRules);
+            overlay = new ClientOverlay(clientId, version, compiled, false);
+        } catch (Exception e) {
+            compileFailures.increment();
+            ClientOverlay previous = overlays.get(clientId);
+            if (previous != null && !previous.compilationFailed()) {
+                log.error("Overlay v{} for client {} failed to compile — keeping v{}: {}",
+                        version, clientId, previous.version(), e.getMessage());
+                return previous;
+            }
+            log.error("Overlay v{} for client {} failed to compile: {}", version, clientId, e.getMessage());
+            overlay = new ClientOverlay(clientId, version, null, true);
+        }
+        ClientOverlay built = overlay;
+        return overlays.compute(clientId, (id, present) ->
+                present == null || present.version() < built.version() ? built : present);
+    }
+
+    // ── Compilation ────────────────────────────────────────────────────────
+
+    /**
+     * Compiles rules into a standalone {@link CompiledRules} that is neither installed nor
+     * cached — for what-if evaluation such as backtests. Returns null for an empty list and
+     * throws on compilation errors. Not recorded in {@code rules.compile.time}, which only
+     * covers the rule sets used for live trades.
+     */
+    public CompiledRules compileDetached(String name, List<Rule> rules) {
+        return rules.isEmpty() ? null : build("detached-" + name, versionSequence.incrementAndGet(), rules);
+    }
+
+    /** {@link #build} for the live rule sets, timed into {@code rules.compile.time}. */
+    private CompiledRules compile(String name, long version, List<Rule> rules) {
+        long start = System.nanoTime();
+        try {
+            return build(name, version, rules);
+        } finally {
+            compileTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Compiles the given rules. Threshold specs (see {@link ThresholdRule}) become native
+     * predicates; everything else is compiled into a standalone KieBase wrapped in a session
+     * pool. An invalid spec fails the whole build, exactly like a DRL syntax error.
+     */
+    private CompiledRules build(String name, long version, List<Rule> rules) {
+        List<ThresholdRule> thresholds = new ArrayList<>();
+        List<Rule> drlRules = new ArrayList<>();
+        for (Rule rule : rules) {
+            if (ThresholdRule.isThresholdSpec(rule)) {
+                thresholds.add(ThresholdRule.compile(rule, objectMapper));
+            } else {
+                drlRules.add(rule);
+            }
+        }
+        RuleSessionPool sessions = drlRules.isEmpty() ? null : compileDrl(name, version, drlRules);
+        log.debug("Compiled {} v{}: {} native threshold rule(s), {} DRL rule(s)",
+                name, version, thresholds.size(), drlRules.size());
+        return new CompiledRules(thresholds.toArray(new ThresholdRule[0]), sessions);
+    }
+
+    /**
+     * A unique ReleaseId per build keeps concurrent or successive builds from overwriting
+     * each other in the shared KieRepository; the module is removed again once the
+     * container has been created.
+     */
+    private RuleSessionPool compileDrl(String name, long version, List<Rule> rules) {
+        ReleaseId releaseId = kieServices.newReleaseId(RELEASE_GROUP, "rules-" + name, "1.0." + version);
+        KieFileSystem kfs = kieServices.newKieFileSystem();
+        kfs.generateAndWritePomXML(releaseId);
+
+        for (Rule rule : rules) {
+            kfs.write("src/main/resources/rules/rule_" + rule.getId() + ".drl", rule.getRuleContent());
+        }
+
+        KieBuilder kb = kieServices.newKieBuilder(kfs);
+        kb.buildAll();
+
+        if (kb.getResults().hasMessages(Message.Level.ERROR)) {
+            throw new RuntimeException("Rule compilation error in " + name + ": " + kb.getResults().getMessages());
+        }
+
+        try {
+            return new RuleSessionPool(kieServices.newKieContainer(releaseId), sessionPoolSize);
+        } finally {
+            kieServices.getRepository().removeKieModule(releaseId);
+        }
+    }
+
+    // ── Snapshot types ─────────────────────────────────────────────────────
+
+    /**
+     * Immutable result of one shared (APPLICATION + TRADE) build.
+     * {@code rules} is null when there are no shared rules;
+     * {@code compilationFailed} is only set when no good version has ever been built.
+     */
+    public record CompiledRuleSet(long version,
+                                  CompiledRules rules,
+                                  int ruleCount,
+                                  Instant compiledAt,
+                                  boolean compilationFailed) {
+    }
+
+    /**
+     * Compiled CLIENT rules for a single client. {@code compilationFailed} is set when the
+     * client's rules do not compile and there was no earlier good overlay to fall back to.
+     */
+    public record ClientOverlay(Long clientId, long version, CompiledRules rules, boolean compilationFailed) {
+    }
+}
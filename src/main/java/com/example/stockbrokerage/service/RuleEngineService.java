@@ -1,20 +1,17 @@
 package com.example.stockbrokerage.service;
 
-import com.example.stockbrokerage.entity.Rule;
-import com.example.stockbrokerage.entity.Rule.RuleLevel;
+import com.example.stockbrokerage.dto.RuleVerdict;
+import com.example.stockbrokerage.dto.RuleVerdict.ReasonCode;
 import com.example.stockbrokerage.entity.Trade;
-import com.example.stockbrokerage.repository.RuleRepository;
+import com.example.stockbrokerage.jfr.RuleEvaluationEvent;
+import com.example.stockbrokerage.service.RuleBaseCache.ClientOverlay;
+import com.example.stockbrokerage.service.RuleBaseCache.CompiledRuleSet;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.kie.api.KieServices;
-import org.kie.api.builder.KieBuilder;
-import org.kie.api.builder.KieFileSystem;
-import org.kie.api.builder.KieRepository;
-import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,74 +19,122 @@ import java.util.Map;
 @RequiredArgsConstructor
 @Slf4j
 public class RuleEngineService {
-    
-    private final RuleRepository ruleRepository;
-    private final KieServices kieServices = KieServices.Factory.get();
-    
-    public Map<String, Object> evaluateTrade(Trade trade, Long clientId) {
-        Map<String, Object> result = new HashMap<>();
-        result.put("approved", true);
-        result.put("reasons", new StringBuilder());
-        
+
+    private final RuleBaseCache ruleBaseCache;
+
+    public RuleVerdict evaluateTrade(Trade trade, Long clientId) {
+        RuleVerdict verdict = new RuleVerdict();
+        evaluateTrade(trade, clientId, verdict);
+        return verdict;
+    }
+
+    /**
+     * Evaluates the trade into a caller-supplied verdict, so callers that process many
+     * trades can reuse one instance (call {@link RuleVerdict#reset()} between trades).
+     * Each call is recorded as a {@link RuleEvaluationEvent} when a flight recording enables it.
+     */
+    public void evaluateTrade(Trade trade, Long clientId, RuleVerdict verdict) {
+        RuleEvaluationEvent event = new RuleEvaluationEvent();
+        event.begin();
+        boolean timed = event.isEnabled();
         try {
-            // Load active rules
-            List<Rule> applicationRules = ruleRepository.findByLevelAndActiveTrue(RuleLevel.APPLICATION);
-            List<Rule> clientRules = ruleRepository.findByClientIdAndActiveTrue(clientId);
-            List<Rule> tradeRules = ruleRepository.findByLevelAndActiveTrue(RuleLevel.TRADE);
-            
+            // Rules are compiled ahead of time: the shared APPLICATION/TRADE base
+            // plus, if the client has CLIENT rules, that client's own overlay
+            CompiledRuleSet sharedRules = ruleBaseCache.getShared();
+            ClientOverlay clientRules = ruleBaseCache.getOverlay(clientId);
+            event.clientOverlay = clientRules != null;
+
+            if (sharedRules.compilationFailed() || (clientRules != null && clientRules.compilationFailed())) {
+                verdict.reject(ReasonCode.RULE_COMPILATION_ERROR, "Rule compilation error");
+                return;
+            }
+
             // If no rules exist, skip rule evaluation and approve
-            if (applicationRules.isEmpty() && clientRules.isEmpty() && tradeRules.isEmpty()) {
+            if (sharedRules.rules() == null && clientRules == null) {
                 log.debug("No active rules found, trade approved by default");
-                return result;
+                return;
+            }
+
+            if (sharedRules.rules() != null) {
+                long start = timed ? System.nanoTime() : 0;
+                sharedRules.rules().evaluate(trade, verdict);
+                event.sharedRules = timed ? System.nanoTime() - start : 0;
+            }
+            if (clientRules != null && clientRules.rules() != null) {
+                long start = timed ? System.nanoTime() : 0;
+                clientRules.rules().evaluate(trade, verdict);
+                event.clientRules = timed ? System.nanoTime() - start : 0;
+            }
+
+        } catch (Exception e) {
+            log.error("Error evaluating rules", e);
+            verdict.reject(ReasonCode.RULE_EVALUATION_ERROR, "Rule evaluation error: " + e.getMessage());
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.clientId = clientId != null ? clientId : 0;
+                event.symbol = trade.getSymbol();
+                event.outcome = verdict.isApproved() ? "APPROVED" : verdict.getReasons().toString();
+                event.commit();
             }
-            
-            // Create KIE container with rules
-            KieFileSystem kfs = kieServices.newKieFileSystem();
-            
-            int ruleIndex = 0;
-            for (Rule rule : applicationRules) {
-                String resourcePath = "src/main/resources/rules/app_rule_" + ruleIndex++ + ".drl";
-                kfs.write(resourcePath, rule.getRuleContent());
+        }
+    }
+
+    /**
+     * Evaluates a batch of trades (bulk order entry, imports) and returns one verdict per
+     * trade, in input order. Each trade is checked against the shared rules plus its own
+     * client's overlay, exactly as {@link #evaluateTrade(Trade, Long)} would.
+     * <p>
+     * The rule set lookup, session borrow and overlay lookup happen once per batch (per
+     * client for overlays) instead of once per trade. Trades still fire in their own
+     * stateless execution so rules cannot match facts across trades.
+     */
+    public List<RuleVerdict> evaluateTrades(List<Trade> trades) {
+        List<RuleVerdict> verdicts = new ArrayList<>(trades.size());
+        for (int i = 0; i < trades.size(); i++) {
+            verdicts.add(new RuleVerdict());
+        }
+        if (trades.isEmpty()) {
+            return verdicts;
+        }
+
+        try {
+            CompiledRuleSet sharedRules = ruleBaseCache.getShared();
+            if (sharedRules.compilationFailed()) {
+                verdicts.forEach(v -> v.reject(ReasonCode.RULE_COMPILATION_ERROR, "Rule compilation error"));
+                return verdicts;
             }
-            
-            for (Rule rule : clientRules) {
-                String resourcePath = "src/main/resources/rules/client_rule_" + ruleIndex++ + ".drl";
-                kfs.write(resourcePath, rule.getRuleContent());
+            if (sharedRules.rules() != null) {
+                sharedRules.rules().evaluateAll(trades, verdicts);
             }
-            
-            for (Rule rule : tradeRules) {
-                String resourcePath = "src/main/resources/rules/trade_rule_" + ruleIndex++ + ".drl";
-                kfs.write(resourcePath, rule.getRuleContent());
+
+            // Group by client so each overlay is looked up and borrowed once
+            Map<Long, List<Integer>> indexesByClient = new LinkedHashMap<>();
+            for (int i = 0; i < trades.size(); i++) {
+                indexesByClient.computeIfAbsent(trades.get(i).getClientId(), id -> new ArrayList<>()).add(i);
             }
-            
-            KieBuilder kb = kieServices.newKieBuilder(kfs);
-            kb.buildAll();
-            
-            if (kb.getResults().hasMessages(org.kie.api.builder.Message.Level.ERROR)) {
-                log.error("Rule compilation errors: {}", kb.getResults().getMessages());
-                result.put("approved", false);
-                result.put("reasons", "Rule compilation error");
-                return result;
+            for (Map.Entry<Long, List<Integer>> entry : indexesByClient.entrySet()) {
+                ClientOverlay clientRules = ruleBaseCache.getOverlay(entry.getKey());
+                if (clientRules == null) {
+                    continue;
+                }
+                List<Trade> clientTrades = new ArrayList<>(entry.getValue().size());
+                List<RuleVerdict> clientVerdicts = new ArrayList<>(entry.getValue().size());
+                for (int index : entry.getValue()) {
+                    clientTrades.add(trades.get(index));
+                    clientVerdicts.add(verdicts.get(index));
+                }
+                if (clientRules.compilationFailed()) {
+                    clientVerdicts.forEach(v -> v.reject(ReasonCode.RULE_COMPILATION_ERROR, "Rule compilation error"));
+                } else if (clientRules.rules() != null) {
+                    clientRules.rules().evaluateAll(clientTrades, clientVerdicts);
+                }
             }
-            
-            KieRepository kieRepository = kieServices.getRepository();
-            KieContainer kContainer = kieServices.newKieContainer(kieRepository.getDefaultReleaseId());
-            KieSession kSession = kContainer.newKieSession();
-            
-            // Insert trade into session
-            kSession.insert(trade);
-            kSession.setGlobal("result", result);
-            
-            // Fire all rules
-            kSession.fireAllRules();
-            kSession.dispose();
-            
+
         } catch (Exception e) {
-            log.error("Error evaluating rules", e);
-            result.put("approved", false);
-            result.put("reasons", "Rule evaluation error: " + e.getMessage());
+            log.error("Error evaluating rules for batch of {} trades", trades.size(), e);
+            verdicts.forEach(v -> v.reject(ReasonCode.RULE_EVALUATION_ERROR, "Rule evaluation error: " + e.getMessage()));
         }
-        
-        return result;
+        return verdicts;
     }
 }
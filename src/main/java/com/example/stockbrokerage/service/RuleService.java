@@ -9,10 +9,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +24,7 @@ public class RuleService {
     
     private final RuleRepository ruleRepository;
     private final AuditService auditService;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional
     @CacheEvict(value = "rules", allEntries = true)
@@ -39,6 +43,7 @@ public class RuleService {
         
         Rule saved = ruleRepository.save(rule);
         auditService.logRuleEvent(saved.getId(), "CREATE", createdBy, "Rule created: " + saved.getRuleName());
+        publishRuleChange(saved.getId(), "CREATE", saved);
         log.info("Rule created: {}", saved.getRuleName());
         
         return saved;
@@ -70,6 +75,7 @@ public class RuleService {
     @CacheEvict(value = "rules", allEntries = true)
     public Rule updateRule(Long id, RuleRequest request, String updatedBy) {
         Rule rule = getRuleById(id);
+        Rule previousScope = Rule.builder().level(rule.getLevel()).clientId(rule.getClientId()).build();
         
         rule.setRuleName(request.getRuleName());
         rule.setDescription(request.getDescription());
@@ -82,6 +88,7 @@ public class RuleService {
         
         Rule updated = ruleRepository.save(rule);
         auditService.logRuleEvent(id, "UPDATE", updatedBy, "Rule updated: " + updated.getRuleName());
+        publishRuleChange(id, "UPDATE", previousScope, updated);
         
         return updated;
     }
@@ -89,7 +96,31 @@ public class RuleService {
     @Transactional
     @CacheEvict(value = "rules", allEntries = true)
     public void deleteRule(Long id, String deletedBy) {
+        Rule existing = ruleRepository.findById(id).orElse(null);
         ruleRepository.deleteById(id);
         auditService.logRuleEvent(id, "DELETE", deletedBy, "Rule deleted");
+        if (existing != null) {
+            publishRuleChange(id, "DELETE", existing);
+        }
+    }
+    
+    /**
+     * Tells the compiled rule cache which scopes changed: APPLICATION/TRADE rules live in the
+     * shared base, CLIENT rules only in their client's overlay. For updates both the old and
+     * the new scope are passed so a rule moving between clients invalidates both.
+     */
+    private void publishRuleChange(Long ruleId, String action, Rule... affected) {
+        boolean sharedScope = false;
+        Set<Long> clientIds = new HashSet<>();
+        for (Rule rule : affected) {
+            if (rule.getLevel() == RuleLevel.CLIENT) {
+                if (rule.getClientId() != null) {
+                    clientIds.add(rule.getClientId());
+                }
+            } else {
+                sharedScope = true;
+            }
+        }
+        eventPublisher.publishEvent(new RuleSetChangedEvent(ruleId, action, sharedScope, Set.copyOf(clientIds)));
     }
 }
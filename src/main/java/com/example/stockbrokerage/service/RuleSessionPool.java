@@ -0,0 +1,116 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.RuleVerdict;
+import com.example.stockbrokerage.entity.Trade;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSessionsPool;
+import org.kie.api.runtime.StatelessKieSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reusable stateless rule sessions for one compiled KieBase.
+ *
+ * Design decisions:
+ *  - Sessions come from the container's Drools {@link KieSessionsPool}, so the working memory
+ *    behind each stateless execution is reset and reused rather than allocated per trade.
+ *  - Each pooled entry also owns its legacy-result adapter and fact list; globals are bound
+ *    to the caller's {@link RuleVerdict} while the entry is borrowed, so no per-trade map,
+ *    StringBuilder or list is allocated.
+ *  - Borrow/return uses a lock-free queue. When it is empty a new entry is created; at most
+ *    {@code maxIdle} entries are kept after a burst.
+ */
+public final class RuleSessionPool {
+
+    private static final Logger RULE_LOGGER = LoggerFactory.getLogger("com.example.stockbrokerage.rules");
+
+    private final KieBase kieBase;
+    private final KieSessionsPool droolsPool;
+    private final int maxIdle;
+    private final ConcurrentLinkedQueue<PooledSession> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    RuleSessionPool(KieContainer container, int maxIdle) {
+        this.kieBase = container.getKieBase();
+        this.droolsPool = container.newKieSessionsPool(maxIdle);
+        this.maxIdle = maxIdle;
+    }
+
+    public KieBase getKieBase() {
+        return kieBase;
+    }
+
+    /** Fires every rule in this base against the trade, recording rejections in the verdict. */
+    public void evaluate(Trade trade, RuleVerdict verdict) {
+        PooledSession session = borrow();
+        try {
+            session.execute(trade, verdict);
+        } finally {
+            release(session);
+        }
+    }
+
+    /**
+     * Fires every rule against each trade in turn on a single borrowed session, recording
+     * into the verdict at the same index. Saves the per-trade borrow, global binding and
+     * pool hand-off of calling {@link #evaluate} in a loop.
+     */
+    public void evaluateAll(List<Trade> trades, List<RuleVerdict> verdicts) {
+        PooledSession session = borrow();
+        try {
+            for (int i = 0; i < trades.size(); i++) {
+                session.execute(trades.get(i), verdicts.get(i));
+            }
+        } finally {
+            release(session);
+        }
+    }
+
+    private PooledSession borrow() {
+        PooledSession session = idle.poll();
+        if (session != null) {
+            idleCount.decrementAndGet();
+            return session;
+        }
+        return new PooledSession(droolsPool.newStatelessKieSession());
+    }
+
+    private void release(PooledSession session) {
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(session);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    private static final class PooledSession {
+
+        private final StatelessKieSession session;
+        private final LegacyRuleResultAdapter legacyResult = new LegacyRuleResultAdapter();
+        private final List<Object> facts = new ArrayList<>(2);
+
+        PooledSession(StatelessKieSession session) {
+            this.session = session;
+            session.setGlobal("result", legacyResult);
+            session.setGlobal("logger", RULE_LOGGER);
+        }
+
+        void execute(Trade trade, RuleVerdict verdict) {
+            legacyResult.bind(verdict);
+            facts.add(trade);
+            facts.add(verdict);
+            try {
+                session.execute(facts);
+            } finally {
+                facts.clear();
+                legacyResult.unbind();
+            }
+        }
+    }
+}
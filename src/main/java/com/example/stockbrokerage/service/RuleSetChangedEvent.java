@@ -0,0 +1,13 @@
+package com.example.stockbrokerage.service;
+
+import java.util.Set;
+
+/**
+ * Published by {@link RuleService} whenever a rule is created, updated or deleted.
+ * {@link RuleBaseCache} listens for it (after the surrounding transaction commits)
+ * and recompiles only the part of the rule set the change touched:
+ * the shared APPLICATION/TRADE base when {@code sharedScope} is set, and the
+ * per-client overlays of {@code clientIds}.
+ */
+public record RuleSetChangedEvent(Long ruleId, String action, boolean sharedScope, Set<Long> clientIds) {
+}
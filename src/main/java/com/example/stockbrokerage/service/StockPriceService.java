@@ -3,15 +3,24 @@ package com.example.stockbrokerage.service;
 import com.example.stockbrokerage.client.YahooFinanceClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service facade for stock price lookups.
  * All HTTP communication with Yahoo Finance is delegated to {@link YahooFinanceClient},
  * making this class fully testable without any network dependency.
+ * Prices are served through {@link QuoteCache}, so a symbol priced seconds ago does not wait
+ * on Yahoo again. Every price actually fetched from upstream (including background refreshes)
+ * is published as a {@link PriceUpdatedEvent}, which is what drives limit order triggering.
+ * The {@code *Async} lookups go through the same cache with the client's non-blocking calls,
+ * for request threads that should not wait on Yahoo.
  */
 @Service
 @RequiredArgsConstructor
@@ -19,13 +28,46 @@ import java.util.Map;
 public class StockPriceService {
 
     private final YahooFinanceClient yahooFinanceClient;
+    private final ApplicationEventPublisher eventPublisher;
+    private final QuoteCache quoteCache;
     
     /**
-     * Fetch current stock price from Yahoo Finance API.
+     * Current stock price: cached if fetched within the cache TTL, otherwise from Yahoo Finance.
      * The client implementation tries multiple endpoints in order to avoid rate limiting.
      */
     public BigDecimal getCurrentPrice(String symbol) {
-        return yahooFinanceClient.getCurrentPrice(symbol);
+        return quoteCache.get(symbol, this::fetchPrice);
+    }
+    
+    /**
+     * Current prices of several symbols: cached ones as they are, the rest fetched from Yahoo
+     * Finance in batches. Symbols without a price are absent from the result.
+     */
+    public Map<String, BigDecimal> getCurrentPrices(Collection<String> symbols) {
+        return quoteCache.getAll(symbols, this::fetchPrices, this::fetchPrice);
+    }
+    
+    /** Non-blocking form of {@link #getCurrentPrice}. */
+    public CompletableFuture<BigDecimal> getCurrentPriceAsync(String symbol) {
+        return quoteCache.getAsync(symbol, this::fetchPriceAsync);
+    }
+    
+    /** Non-blocking form of {@link #getCurrentPrices}. */
+    public CompletableFuture<Map<String, BigDecimal>> getCurrentPricesAsync(Collection<String> symbols) {
+        return quoteCache.getAllAsync(symbols, this::fetchPricesAsync, this::fetchPriceAsync);
+    }
+    
+    /**
+     * Fetches the price from Yahoo Finance regardless of the cache, for pollers that need
+     * every market move rather than a recent price.
+     */
+    public BigDecimal refreshPrice(String symbol) {
+        return quoteCache.refresh(symbol, this::fetchPrice);
+    }
+    
+    /** Batch form of {@link #refreshPrice}. */
+    public Map<String, BigDecimal> refreshPrices(Collection<String> symbols) {
+        return quoteCache.refreshAll(symbols, this::fetchPrices);
     }
     
     /**
@@ -34,4 +76,37 @@ public class StockPriceService {
     public Map<String, Object> getQuote(String symbol) {
         return yahooFinanceClient.getQuote(symbol);
     }
+    
+    /** Non-blocking form of {@link #getQuote}; the quote is not cached. */
+    public CompletableFuture<Map<String, Object>> getQuoteAsync(String symbol) {
+        return yahooFinanceClient.getQuoteAsync(symbol);
+    }
+    
+    private BigDecimal fetchPrice(String symbol) {
+        return published(symbol, yahooFinanceClient.getCurrentPrice(symbol));
+    }
+    
+    private Map<String, BigDecimal> fetchPrices(List<String> symbols) {
+        return published(yahooFinanceClient.getCurrentPrices(symbols));
+    }
+    
+    private CompletableFuture<BigDecimal> fetchPriceAsync(String symbol) {
+        return yahooFinanceClient.getCurrentPriceAsync(symbol).thenApply(price -> published(symbol, price));
+    }
+    
+    private CompletableFuture<Map<String, BigDecimal>> fetchPricesAsync(List<String> symbols) {
+        return yahooFinanceClient.getCurrentPricesAsync(symbols).thenApply(this::published);
+    }
+    
+    private Map<String, BigDecimal> published(Map<String, BigDecimal> prices) {
+        prices.forEach(this::published);
+        return prices;
+    }
+    
+    private BigDecimal published(String symbol, BigDecimal price) {
+        if (price != null && price.signum() > 0) {
+            eventPublisher.publishEvent(new PriceUpdatedEvent(symbol, price));
+        }
+        return price;
+    }
 }
@@ -0,0 +1,117 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.RuleVerdict.ReasonCode;
+import com.example.stockbrokerage.entity.Rule;
+import com.example.stockbrokerage.entity.Rule.RuleType;
+import com.example.stockbrokerage.entity.Trade.TradeType;
+import com.example.stockbrokerage.util.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A simple threshold rule compiled from a JSON spec in {@code Rule.ruleContent} and evaluated
+ * as plain Java, bypassing Drools.
+ * <p>
+ * Only RISK_LIMIT, PRICE_VALIDATION and POSITION_LIMIT rules may use a spec; anything else,
+ * or content that is not a JSON object, is compiled as DRL. Example spec:
+ * <pre>
+ * { "metric": "NOTIONAL", "max": 250000, "side": "BUY", "message": "Buy notional above 250k" }
+ * </pre>
+ * {@code metric} is one of PRICE, QUANTITY or NOTIONAL; {@code min} and {@code max} are optional
+ * inclusive bounds; {@code side} optionally limits the rule to BUY or SELL orders.
+ * <p>
+ * Bounds are converted once, at compile time, to {@link Money} units, so
+ * evaluation is primitive comparisons only — no reflection and no BigDecimal allocation.
+ */
+final class ThresholdRule {
+
+    private static final Set<RuleType> FAST_PATH_TYPES =
+            EnumSet.of(RuleType.RISK_LIMIT, RuleType.PRICE_VALIDATION, RuleType.POSITION_LIMIT);
+
+    enum Metric { PRICE, QUANTITY, NOTIONAL }
+
+    /** Shape of the JSON spec, bound with Jackson at compile time only. */
+    record Spec(Metric metric, BigDecimal min, BigDecimal max, TradeType side, String message) {
+    }
+
+    private final Metric metric;
+    private final TradeType side;
+    private final long min;
+    private final long max;
+    private final ReasonCode reason;
+    private final String message;
+
+    private ThresholdRule(Metric metric, TradeType side, long min, long max, ReasonCode reason, String message) {
+        this.metric = metric;
+        this.side = side;
+        this.min = min;
+        this.max = max;
+        this.reason = reason;
+        this.message = message;
+    }
+
+    static boolean isThresholdSpec(Rule rule) {
+        return FAST_PATH_TYPES.contains(rule.getRuleType())
+                && rule.getRuleContent() != null
+                && rule.getRuleContent().stripLeading().startsWith("{");
+    }
+
+    static ThresholdRule compile(Rule rule, ObjectMapper mapper) {
+        Spec spec;
+        try {
+            spec = mapper.readValue(rule.getRuleContent(), Spec.class);
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid threshold spec in rule " + rule.getRuleName() + ": " + e.getMessage());
+        }
+        if (spec.metric() == null || (spec.min() == null && spec.max() == null)) {
+            throw new RuntimeException("Threshold spec in rule " + rule.getRuleName() + " needs a metric and a min or max");
+        }
+
+        long min = spec.min() != null ? toUnits(spec.metric(), spec.min()) : Long.MIN_VALUE;
+        long max = spec.max() != null ? toUnits(spec.metric(), spec.max()) : Long.MAX_VALUE;
+        String message = spec.message() != null
+                ? spec.message()
+                : "%s rule '%s' violated.".formatted(spec.metric(), rule.getRuleName());
+
+        return new ThresholdRule(spec.metric(), spec.side(), min, max, reasonFor(rule.getRuleType()), message);
+    }
+
+    /** True if the trade falls outside this rule's bounds; arguments are already in fixed-point units. */
+    boolean violates(TradeType type, long priceUnits, long quantity, long notionalUnits) {
+        if (side != null && side != type) {
+            return false;
+        }
+        long value = switch (metric) {
+            case PRICE -> priceUnits;
+            case QUANTITY -> quantity;
+            case NOTIONAL -> notionalUnits;
+        };
+        return value < min || value > max;
+    }
+
+    ReasonCode reason() {
+        return reason;
+    }
+
+    String message() {
+        return message;
+    }
+
+    private static long toUnits(Metric metric, BigDecimal bound) {
+        return metric == Metric.QUANTITY
+                ? bound.setScale(0, RoundingMode.HALF_UP).longValueExact()
+                : Money.of(bound);
+    }
+
+    private static ReasonCode reasonFor(RuleType type) {
+        return switch (type) {
+            case PRICE_VALIDATION -> ReasonCode.PRICE_OUT_OF_RANGE;
+            case POSITION_LIMIT -> ReasonCode.POSITION_LIMIT_EXCEEDED;
+            default -> ReasonCode.RISK_LIMIT_EXCEEDED;
+        };
+    }
+}
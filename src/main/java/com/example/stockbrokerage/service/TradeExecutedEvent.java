@@ -0,0 +1,13 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.entity.Trade;
+
+import java.util.List;
+
+/**
+ * Published by {@link TradeService}, {@link BatchTradeService} and {@link LimitOrderExecutor}
+ * when orders fill. {@link TradeSizeAnomalyModel} learns their sizes once the fill has committed,
+ * so orders that are rejected, never fill or roll back do not move a client's baseline.
+ */
+public record TradeExecutedEvent(List<Trade> fills) {
+}
@@ -1,19 +1,26 @@
 package com.example.stockbrokerage.service;
 
+import com.example.stockbrokerage.dto.PreTradeVerdict;
+import com.example.stockbrokerage.dto.PreTradeVerdict.ReasonCode;
 import com.example.stockbrokerage.dto.TradeRequest;
 import com.example.stockbrokerage.dto.TradeResponse;
 import com.example.stockbrokerage.entity.Client;
 import com.example.stockbrokerage.entity.Trade;
 import com.example.stockbrokerage.entity.Trade.TradeStatus;
+import com.example.stockbrokerage.jfr.TradeExecutionEvent;
 import com.example.stockbrokerage.repository.TradeRepository;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Outcome;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Path;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Stage;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Stopwatch;
+import com.example.stockbrokerage.util.Money;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,21 +30,64 @@ public class TradeService {
     
     private final TradeRepository tradeRepository;
     private final ClientService clientService;
-    private final FraudDetectionService fraudDetectionService;
-    private final RuleEngineService ruleEngineService;
+    private final PreTradeChecks preTradeChecks;
+    private final AccountLedger accountLedger;
     private final AuditService auditService;
     private final PortfolioService portfolioService;
     private final AccountService accountService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderLatencyMetrics orderLatencyMetrics;
     
     @Transactional
     public TradeResponse executeTrade(TradeRequest request) {
-        long startTime = System.nanoTime();
-        
+        // Set default order type if not provided
+        Trade.OrderType orderType = request.getOrderType() != null ? request.getOrderType() : Trade.OrderType.MARKET;
+        TradeExecutionEvent event = new TradeExecutionEvent();
+        event.begin();
+        Stopwatch stopwatch = orderLatencyMetrics.start(Path.API);
+        TradeResponse response = null;
+        try {
+            response = placeOrder(request, orderType, stopwatch);
+            return response;
+        } finally {
+            Outcome outcome = response == null ? Outcome.ERROR : Outcome.of(response.getStatus());
+            orderLatencyMetrics.record(stopwatch, orderType, outcome, response == null ? null : response.getId());
+            commitEvent(event, request, orderType, outcome, response, stopwatch);
+        }
+    }
+    
+    /** Flight recorder event of one executeTrade call; costs nothing unless a recording enables it. */
+    private void commitEvent(TradeExecutionEvent event, TradeRequest request, Trade.OrderType orderType,
+                             Outcome outcome, TradeResponse response, Stopwatch stopwatch) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.tradeId = response != null && response.getId() != null ? response.getId() : 0;
+        event.clientId = request.getClientId() != null ? request.getClientId() : 0;
+        event.symbol = request.getSymbol();
+        event.side = request.getType() != null ? request.getType().name() : null;
+        event.orderType = orderType.name();
+        event.outcome = outcome.name();
+        event.reason = response != null ? response.getFraudCheckReason() : null;
+        event.clientLookup = stopwatch.elapsed(Stage.CLIENT_LOOKUP);
+        event.fraud = stopwatch.elapsed(Stage.FRAUD);
+        event.rules = stopwatch.elapsed(Stage.RULES);
+        event.portfolioUpdate = stopwatch.elapsed(Stage.PORTFOLIO);
+        event.accountUpdate = stopwatch.elapsed(Stage.ACCOUNT);
+        event.audit = stopwatch.elapsed(Stage.AUDIT);
+        event.persist = stopwatch.elapsed(Stage.PERSIST);
+        event.commit();
+    }
+    
+    private TradeResponse placeOrder(TradeRequest request, Trade.OrderType orderType, Stopwatch stopwatch) {
         // Validate client exists
         Client client = clientService.getClientById(request.getClientId());
+        stopwatch.lap(Stage.CLIENT_LOOKUP);
         
-        // Set default order type if not provided
-        Trade.OrderType orderType = request.getOrderType() != null ? request.getOrderType() : Trade.OrderType.MARKET;
+        if (orderType.isStop() && request.getStopPrice() == null) {
+            throw new RuntimeException("Stop price is required for " + orderType + " orders");
+        }
         
         // Create trade entity
         Trade trade = Trade.builder()
@@ -47,50 +97,48 @@ public class TradeService {
             .price(request.getPrice())
             .type(request.getType())
             .orderType(orderType)
+            .stopPrice(orderType.isStop() ? request.getStopPrice() : null)
             .status(TradeStatus.PENDING)
             .tradeTime(java.time.LocalDateTime.now())
             .build();
         
-        // Set expiry time to end of day for day orders
-        if (orderType == Trade.OrderType.LIMIT) {
+        // Set expiry time to end of day for day orders (LIMIT, STOP and STOP_LIMIT)
+        if (orderType != Trade.OrderType.MARKET) {
             trade.setExpiryTime(java.time.LocalDateTime.now().toLocalDate().atTime(23, 59, 59));
         }
         
-        // Run fraud detection
-        Map<String, Object> fraudResult = fraudDetectionService.checkForFraud(trade);
-        trade.setFraudCheckPassed((Boolean) fraudResult.get("passed"));
-        trade.setFraudCheckReason((String) fraudResult.get("reason"));
+        // Pre-trade checks: fraud stages, then rules; the client and balances are loaded once here
+        PreTradeContext context = new PreTradeContext(trade, client, accountLedger.snapshot(client.getId()));
+        context.setStopwatch(stopwatch);
+        PreTradeVerdict verdict = preTradeChecks.run(context);
+        boolean ruleRejected = verdict.code() == ReasonCode.RULE_REJECTED;
+        trade.setFraudCheckPassed(verdict.isApproved() || ruleRejected);
+        trade.setFraudCheckReason(verdict.describe());
         
         if (!trade.getFraudCheckPassed()) {
             trade.setStatus(TradeStatus.REJECTED);
             Trade saved = tradeRepository.save(trade);
+            stopwatch.lap(Stage.PERSIST);
             auditService.logTradeEvent(saved.getId(), "REJECT", "SYSTEM", "Failed fraud check: " + trade.getFraudCheckReason());
-            
-            long duration = System.nanoTime() - startTime;
-            log.info("Trade rejected in {} ns", duration);
+            stopwatch.lap(Stage.AUDIT);
             
             return mapToResponse(saved);
         }
         
-        // Apply rule engine
-        Map<String, Object> ruleResult = ruleEngineService.evaluateTrade(trade, request.getClientId());
-        
-        if (!(Boolean) ruleResult.get("approved")) {
+        if (ruleRejected) {
             trade.setStatus(TradeStatus.REJECTED);
-            trade.setFraudCheckReason((String) ruleResult.get("reasons"));
             Trade saved = tradeRepository.save(trade);
+            stopwatch.lap(Stage.PERSIST);
             auditService.logTradeEvent(saved.getId(), "REJECT", "SYSTEM", "Failed rule validation");
-            
-            long duration = System.nanoTime() - startTime;
-            log.info("Trade rejected by rules in {} ns", duration);
+            stopwatch.lap(Stage.AUDIT);
             
             return mapToResponse(saved);
         }
         
         // Execute trade based on order type
         // For MARKET orders, execute immediately
-        // For LIMIT orders, keep as PENDING until price condition is met
-        BigDecimal tradeAmount = trade.getPrice().multiply(BigDecimal.valueOf(trade.getQuantity()));
+        // For LIMIT and STOP orders, keep as PENDING until price condition is met
+        long tradeAmount = Money.notional(Money.of(trade.getPrice()), trade.getQuantity());
         
         if (orderType == Trade.OrderType.MARKET) {
             trade.setStatus(TradeStatus.EXECUTED);
@@ -98,28 +146,38 @@ public class TradeService {
             // Update portfolio and account based on trade type
             if (trade.getType() == Trade.TradeType.BUY) {
                 portfolioService.updatePortfolio(client, trade.getSymbol(), trade.getQuantity(), trade.getPrice());
+                stopwatch.lap(Stage.PORTFOLIO);
                 accountService.deductFunds(client.getId(), tradeAmount);
             } else {
                 portfolioService.updatePortfolio(client, trade.getSymbol(), -trade.getQuantity(), trade.getPrice());
+                stopwatch.lap(Stage.PORTFOLIO);
                 accountService.addFunds(client.getId(), tradeAmount);
             }
+            stopwatch.lap(Stage.ACCOUNT);
             
             auditService.logTradeEvent(null, "EXECUTE", "SYSTEM", "Market order executed successfully");
         } else {
-            // Limit orders remain PENDING - reserve funds for BUY orders
+            // Limit and stop orders remain PENDING - reserve funds for BUY orders
             trade.setStatus(TradeStatus.PENDING);
             
             if (trade.getType() == Trade.TradeType.BUY) {
                 accountService.reserveFunds(client.getId(), tradeAmount);
+                stopwatch.lap(Stage.ACCOUNT);
             }
             
-            auditService.logTradeEvent(null, "CREATE", "SYSTEM", "Limit order created, awaiting execution");
+            auditService.logTradeEvent(null, "CREATE", "SYSTEM", orderType.isStop()
+                ? "Stop order armed at %s, awaiting trigger".formatted(trade.getStopPrice())
+                : "Limit order created, awaiting execution");
         }
+        stopwatch.lap(Stage.AUDIT);
         
         Trade saved = tradeRepository.save(trade);
-        
-        long duration = System.nanoTime() - startTime;
-        log.info("Trade {} in {} ns ({}ms)", trade.getStatus(), duration, duration / 1_000_000);
+        if (saved.getStatus() == TradeStatus.PENDING) {
+            eventPublisher.publishEvent(new LimitOrderPlacedEvent(List.of(saved)));
+        } else {
+            eventPublisher.publishEvent(new TradeExecutedEvent(List.of(saved)));
+        }
+        stopwatch.lap(Stage.PERSIST);
         
         return mapToResponse(saved);
     }
@@ -150,16 +208,24 @@ public class TradeService {
     
     @Transactional
     public void cancelTrade(Long id) {
-        Trade trade = tradeRepository.findById(id)
+        // Locked like LimitOrderExecutor#trigger and #expire, so a cancel and a fill or expiry
+        // of the same order cannot both succeed
+        Trade trade = tradeRepository.findByIdForUpdate(id)
             .orElseThrow(() -> new RuntimeException("Trade not found with id: " + id));
         
-        if (trade.getStatus() == TradeStatus.EXECUTED) {
-            throw new RuntimeException("Cannot cancel executed trade");
+        if (trade.getStatus() != TradeStatus.PENDING) {
+            throw new RuntimeException("Cannot cancel " + trade.getStatus().name().toLowerCase() + " trade");
         }
         
         trade.setStatus(TradeStatus.CANCELLED);
         tradeRepository.save(trade);
+        if (trade.getType() == Trade.TradeType.BUY) {
+            accountService.releaseReservedFunds(trade.getClientId(),
+                Money.notional(Money.of(trade.getPrice()), trade.getQuantity()));
+        }
         auditService.logTradeEvent(id, "CANCEL", "SYSTEM", "Trade cancelled");
+        // Leaves the trigger index and the expiry wheel after commit
+        eventPublisher.publishEvent(new LimitOrderCancelledEvent(id));
     }
     
     private TradeResponse mapToResponse(Trade trade) {
@@ -171,6 +237,7 @@ public class TradeService {
             .price(trade.getPrice())
             .type(trade.getType())
             .orderType(trade.getOrderType())
+            .stopPrice(trade.getStopPrice())
             .status(trade.getStatus())
             .tradeTime(trade.getTradeTime())
             .expiryTime(trade.getExpiryTime())
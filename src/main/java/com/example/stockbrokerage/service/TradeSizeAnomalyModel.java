@@ -0,0 +1,252 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.entity.TradeSizeProfile;
+import com.example.stockbrokerage.entity.TradeSizeProfile.Scope;
+import com.example.stockbrokerage.repository.TradeSizeProfileRepository;
+import com.example.stockbrokerage.util.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming trade-size statistics per client and per symbol, scoring each new order against
+ * them as a z-score and learning from executed orders.
+ *
+ * Design decisions:
+ *  - Each profile is a {@code double[]} of samples, mean and variance for two measures,
+ *    ln(1 + notional dollars) and ln(1 + quantity). Trade sizes are heavy-tailed; in log space
+ *    a z-score means "this many times larger than usual" rather than being dominated by a few
+ *    huge trades.
+ *  - Updates are Welford-style until {@code 1/alpha} samples, then exponentially weighted
+ *    with weight {@code alpha}, so a profile starts as an exact average and then tracks drift.
+ *  - Scoring only reads the profiles. They learn from fills alone ({@link TradeExecutedEvent},
+ *    after commit), so orders that are rejected, never fill or are themselves flagged cannot
+ *    walk a client's baseline up. Both are a synchronized block on the profile array: O(1), no
+ *    allocation beyond the result, no I/O.
+ *  - Only large orders are anomalous (the upper tail); a profile with fewer than
+ *    {@code min-samples} samples does not score, and the standard deviation is floored so a
+ *    client who always trades the same size is not flagged for a small change.
+ *  - Profiles are loaded on startup and changed ones are upserted every
+ *    {@code persist-interval-ms} and on shutdown, so a restart does not reset the model.
+ */
+@Component
+@Slf4j
+public class TradeSizeAnomalyModel {
+
+    private static final int SAMPLES = 0;
+    private static final int NOTIONAL_MEAN = 1;
+    private static final int NOTIONAL_VARIANCE = 2;
+    private static final int QUANTITY_MEAN = 3;
+    private static final int QUANTITY_VARIANCE = 4;
+    private static final int PROFILE_LENGTH = 5;
+
+    /** Floor on the standard deviation, in log units (about ±30 % in size). */
+    private static final double MIN_STDDEV = 0.25;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO trade_size_profiles (scope, subject, samples, notional_mean, notional_variance,
+                                             quantity_mean, quantity_variance, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (scope, subject) DO UPDATE SET
+                samples = EXCLUDED.samples,
+                notional_mean = EXCLUDED.notional_mean,
+                notional_variance = EXCLUDED.notional_variance,
+                quantity_mean = EXCLUDED.quantity_mean,
+                quantity_variance = EXCLUDED.quantity_variance,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    /** Outcome of scoring one order. {@code scored} is false while neither profile has enough history. */
+    public record Assessment(boolean scored, boolean anomalous, double score, String reason) {
+
+        static final Assessment NOT_SCORED = new Assessment(false, false, 0, null);
+    }
+
+    private record ProfileKey(Scope scope, String subject) {
+    }
+
+    private final TradeSizeProfileRepository profileRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final double alpha;
+    private final double zThreshold;
+    private final long minSamples;
+    private final Map<ProfileKey, double[]> profiles = new ConcurrentHashMap<>();
+    private final Set<ProfileKey> dirty = ConcurrentHashMap.newKeySet();
+    private final Counter anomalies;
+
+    public TradeSizeAnomalyModel(TradeSizeProfileRepository profileRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${fraud.anomaly.enabled:true}") boolean enabled,
+                                 @Value("${fraud.anomaly.alpha:0.05}") double alpha,
+                                 @Value("${fraud.anomaly.z-threshold:4.0}") double zThreshold,
+                                 @Value("${fraud.anomaly.min-samples:20}") long minSamples) {
+        this.profileRepository = profileRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.alpha = alpha;
+        this.zThreshold = zThreshold;
+        this.minSamples = minSamples;
+        this.anomalies = Counter.builder("fraud.anomaly.flagged")
+                .description("Orders flagged as unusually large for their client or symbol")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<TradeSizeProfile> stored = profileRepository.findAll();
+        for (TradeSizeProfile p : stored) {
+            double[] profile = new double[PROFILE_LENGTH];
+            profile[SAMPLES] = p.getSamples();
+            profile[NOTIONAL_MEAN] = p.getNotionalMean();
+            profile[NOTIONAL_VARIANCE] = p.getNotionalVariance();
+            profile[QUANTITY_MEAN] = p.getQuantityMean();
+            profile[QUANTITY_VARIANCE] = p.getQuantityVariance();
+            profiles.put(new ProfileKey(p.getScope(), p.getSubject()), profile);
+        }
+        log.info("Trade size anomaly model loaded: {} profile(s)", stored.size());
+    }
+
+    /** Scores an order against its client's and symbol's history without changing either. */
+    public Assessment score(Long clientId, String symbol, long notionalUnits, int quantity) {
+        if (!enabled) {
+            return Assessment.NOT_SCORED;
+        }
+        double notional = logNotional(notionalUnits);
+        double shares = logQuantity(quantity);
+
+        double clientScore = score(new ProfileKey(Scope.CLIENT, String.valueOf(clientId)), notional, shares);
+        double symbolScore = symbol == null
+                ? Double.NaN
+                : score(new ProfileKey(Scope.SYMBOL, symbol), notional, shares);
+        if (Double.isNaN(clientScore) && Double.isNaN(symbolScore)) {
+            return Assessment.NOT_SCORED;
+        }
+
+        boolean clientWorse = Double.isNaN(symbolScore) || (!Double.isNaN(clientScore) && clientScore >= symbolScore);
+        double score = clientWorse ? clientScore : symbolScore;
+        if (score < zThreshold) {
+            return new Assessment(true, false, score, null);
+        }
+        anomalies.increment();
+        String reason = "Unusual trade size flagged for review (z=%.1f vs %s history). "
+                .formatted(score, clientWorse ? "client" : "symbol");
+        return new Assessment(true, true, score, reason);
+    }
+
+    /** Adds an executed order to its client's and symbol's history. */
+    public void observe(Long clientId, String symbol, long notionalUnits, int quantity) {
+        if (!enabled) {
+            return;
+        }
+        double notional = logNotional(notionalUnits);
+        double shares = logQuantity(quantity);
+        update(new ProfileKey(Scope.CLIENT, String.valueOf(clientId)), notional, shares);
+        if (symbol != null) {
+            update(new ProfileKey(Scope.SYMBOL, symbol), notional, shares);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTradeExecuted(TradeExecutedEvent event) {
+        for (Trade fill : event.fills()) {
+            observe(fill.getClientId(), fill.getSymbol(),
+                    Money.notional(Money.of(fill.getPrice()), fill.getQuantity()), fill.getQuantity());
+        }
+    }
+
+    /** Returns the larger z-score of the two measures, or NaN if the profile is not warm yet. */
+    private double score(ProfileKey key, double notional, double shares) {
+        double[] profile = profiles.get(key);
+        if (profile == null) {
+            return Double.NaN;
+        }
+        synchronized (profile) {
+            if (profile[SAMPLES] < minSamples) {
+                return Double.NaN;
+            }
+            return Math.max(
+                    zScore(notional, profile[NOTIONAL_MEAN], profile[NOTIONAL_VARIANCE]),
+                    zScore(shares, profile[QUANTITY_MEAN], profile[QUANTITY_VARIANCE]));
+        }
+    }
+
+    private void update(ProfileKey key, double notional, double shares) {
+        double[] profile = profiles.computeIfAbsent(key, k -> new double[PROFILE_LENGTH]);
+        synchronized (profile) {
+            profile[SAMPLES]++;
+            double weight = Math.max(alpha, 1.0 / profile[SAMPLES]);
+            update(profile, NOTIONAL_MEAN, NOTIONAL_VARIANCE, notional, weight);
+            update(profile, QUANTITY_MEAN, QUANTITY_VARIANCE, shares, weight);
+        }
+        dirty.add(key);
+    }
+
+    private static double logNotional(long notionalUnits) {
+        return Math.log1p(Math.max(0, notionalUnits) / (double) Money.UNITS_PER_DOLLAR);
+    }
+
+    private static double logQuantity(int quantity) {
+        return Math.log1p(Math.max(0, quantity));
+    }
+
+    private static double zScore(double x, double mean, double variance) {
+        return (x - mean) / Math.max(Math.sqrt(variance), MIN_STDDEV);
+    }
+
+    /** One step of the weighted mean/variance recurrence; weight 1/n gives Welford's exact running variance. */
+    private static void update(double[] profile, int meanIndex, int varianceIndex, double x, double weight) {
+        double delta = x - profile[meanIndex];
+        profile[meanIndex] += weight * delta;
+        profile[varianceIndex] = (1 - weight) * (profile[varianceIndex] + weight * delta * delta);
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.anomaly.persist-interval-ms:60000}",
+               initialDelayString = "${fraud.anomaly.persist-interval-ms:60000}")
+    @PreDestroy
+    public void persist() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(dirty.size());
+        for (ProfileKey key : List.copyOf(dirty)) {
+            dirty.remove(key);
+            double[] profile = profiles.get(key);
+            synchronized (profile) {
+                rows.add(new Object[] {key.scope().name(), key.subject(), (long) profile[SAMPLES],
+                        profile[NOTIONAL_MEAN], profile[NOTIONAL_VARIANCE],
+                        profile[QUANTITY_MEAN], profile[QUANTITY_VARIANCE], now});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+            log.debug("Persisted {} trade size profile(s)", rows.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not persist trade size profiles, will retry: {}", e.getMessage());
+            rows.forEach(row -> dirty.add(new ProfileKey(Scope.valueOf((String) row[0]), (String) row[1])));
+        }
+    }
+
+    public int size() {
+        return profiles.size();
+    }
+}
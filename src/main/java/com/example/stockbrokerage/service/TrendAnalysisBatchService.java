@@ -48,6 +48,9 @@ public class TrendAnalysisBatchService {
             
             log.info("Analyzing trends for {} unique symbols", portfoliosBySymbol.size());
             
+            // One batch price lookup for every symbol instead of one per holding
+            Map<String, BigDecimal> prices = stockPriceService.getCurrentPrices(portfoliosBySymbol.keySet());
+            
             // Analyze trends and update weights in parallel
             List<CompletableFuture<Void>> futures = portfoliosBySymbol.entrySet().stream()
                 .map(entry -> CompletableFuture.runAsync(() -> {
@@ -59,7 +62,7 @@ public class TrendAnalysisBatchService {
                         trendAnalysisService.analyzeTrend(symbol);
                         
                         // Update weights based on actual performance
-                        updateWeightsForSymbol(symbol, portfolios);
+                        updateWeightsForSymbol(symbol, portfolios, prices.getOrDefault(symbol, BigDecimal.ZERO));
                         
                         log.debug("Completed trend analysis and weight update for {}", symbol);
                     } catch (Exception e) {
@@ -78,14 +81,13 @@ public class TrendAnalysisBatchService {
         }
     }
     
-    private void updateWeightsForSymbol(String symbol, List<Portfolio> portfolios) {
+    private void updateWeightsForSymbol(String symbol, List<Portfolio> portfolios, BigDecimal currentPrice) {
         try {
             // Calculate average P/L% across all holdings of this symbol
             BigDecimal totalProfitLossPercent = BigDecimal.ZERO;
             int validCount = 0;
             
             for (Portfolio portfolio : portfolios) {
-                BigDecimal currentPrice = stockPriceService.getCurrentPrice(symbol);
                 BigDecimal totalValue = currentPrice.multiply(BigDecimal.valueOf(portfolio.getQuantity()));
                 BigDecimal investedValue = portfolio.getAveragePrice().multiply(BigDecimal.valueOf(portfolio.getQuantity()));
                 
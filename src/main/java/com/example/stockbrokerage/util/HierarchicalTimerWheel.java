@@ -0,0 +1,190 @@
+package com.example.stockbrokerage.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel: schedules and cancels deadlines in O(1) and hands out everything
+ * due at each tick in one pass.
+ *
+ * Design decisions:
+ *  - {@code levels} wheels of {@code 2^bits} slots each; level L slots are {@code 2^(bits*L)}
+ *    ticks wide. A deadline lives on the lowest level whose slot prefix it shares with the
+ *    current tick and is cascaded one level down when time reaches its slot, so each entry is
+ *    touched at most {@code levels} times before it fires.
+ *  - Deadlines beyond the top wheel wait in an overflow list that is re-sorted each time the
+ *    top wheel wraps.
+ *  - Slots are intrusive doubly linked lists; {@link Timeout#cancel()} unlinks in O(1).
+ *  - Deadlines are rounded up to the next tick: nothing fires early, and at most one tick late.
+ *  - Not thread-safe; callers synchronise.
+ */
+public final class HierarchicalTimerWheel<T> {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final Bucket<T>[][] wheels;
+    private final Bucket<T> overflow = new Bucket<>();
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimerWheel(long tickMillis, int bits, int levels, long startMillis) {
+        if (tickMillis <= 0 || bits < 1 || levels < 1 || (long) bits * levels > 62) {
+            throw new IllegalArgumentException("Invalid timer wheel geometry");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.wheels = new Bucket[levels][1 << bits];
+        for (Bucket<T>[] wheel : wheels) {
+            for (int i = 0; i < wheel.length; i++) {
+                wheel[i] = new Bucket<>();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /** Schedules {@code item} to be handed out by the first {@link #advance} at or after {@code deadlineMillis}. */
+    public Timeout<T> schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.floorDiv(deadlineMillis, tickMillis);
+        if (Math.floorMod(deadlineMillis, tickMillis) != 0) {
+            deadlineTick++;
+        }
+        Timeout<T> timeout = new Timeout<>(this, item, Math.max(deadlineTick, currentTick + 1));
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Moves time forward to {@code nowMillis}, passing every entry that became due to {@code expired},
+     * tick by tick.
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            Bucket<T> due = wheels[0][(int) (currentTick & mask)];
+            for (Timeout<T> t = due.detachAll(); t != null; ) {
+                Timeout<T> next = t.next;
+                t.next = null;
+                t.bucket = null;
+                size--;
+                expired.accept(t.item);
+                t = next;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Re-sorts the slots of every level whose lower levels just wrapped, highest level first. */
+    private void cascade() {
+        int top = 0;
+        while (top < wheels.length && (currentTick & ((1L << (bits * (top + 1))) - 1)) == 0) {
+            top++;
+        }
+        if (top == wheels.length) {
+            redistribute(overflow);
+            top--;
+        }
+        for (int level = top; level >= 1; level--) {
+            redistribute(wheels[level][(int) ((currentTick >>> (bits * level)) & mask)]);
+        }
+    }
+
+    private void redistribute(Bucket<T> bucket) {
+        for (Timeout<T> t = bucket.detachAll(); t != null; ) {
+            Timeout<T> next = t.next;
+            t.next = null;
+            place(t);
+            t = next;
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long deadline = Math.max(timeout.deadlineTick, currentTick);
+        for (int level = 0; level < wheels.length; level++) {
+            int shift = bits * (level + 1);
+            if ((deadline >>> shift) == (currentTick >>> shift)) {
+                wheels[level][(int) ((deadline >>> (bits * level)) & mask)].add(timeout);
+                return;
+            }
+        }
+        overflow.add(timeout);
+    }
+
+    /** Handle to a scheduled entry. */
+    public static final class Timeout<T> {
+
+        private final HierarchicalTimerWheel<T> wheel;
+        private final T item;
+        private final long deadlineTick;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(HierarchicalTimerWheel<T> wheel, T item, long deadlineTick) {
+            this.wheel = wheel;
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T item() {
+            return item;
+        }
+
+        /** Removes the entry if it has not fired yet; returns whether it was still pending. */
+        public boolean cancel() {
+            if (bucket == null) {
+                return false;
+            }
+            bucket.remove(this);
+            wheel.size--;
+            return true;
+        }
+    }
+
+    private static final class Bucket<T> {
+
+        private Timeout<T> head;
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        /** Empties the bucket and returns its former entries as a singly linked chain. */
+        Timeout<T> detachAll() {
+            Timeout<T> chain = head;
+            head = null;
+            for (Timeout<T> t = chain; t != null; t = t.next) {
+                t.bucket = null;
+                t.prev = null;
+            }
+            return chain;
+        }
+    }
+}
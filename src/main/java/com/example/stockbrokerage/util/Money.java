@@ -0,0 +1,66 @@
+package com.example.stockbrokerage.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money arithmetic on plain {@code long}s, 1 unit = 0.0001 (the scale of
+ * {@code Trade.price}).
+ *
+ * Design decisions:
+ *  - Amounts are raw longs rather than a wrapper object, so sums, notionals and limit checks
+ *    on the hot path allocate nothing and stay in registers.
+ *  - BigDecimal is only used at the boundaries: {@link #of} when a value is read from an
+ *    entity or request, {@link #toBigDecimal} when it is written back to JPA or JSON.
+ *  - Arithmetic is overflow-checked ({@link ArithmeticException}); the range is ±922 trillion
+ *    dollars, far beyond any notional this system handles. {@link #notionalSaturated} is for
+ *    comparisons that must never throw.
+ */
+public final class Money {
+
+    public static final int SCALE = 4;
+    public static final long UNITS_PER_DOLLAR = 10_000L;
+    public static final long ZERO = 0L;
+
+    private Money() {
+    }
+
+    /** Converts a decimal amount to units, rounding half-up beyond 4 decimal places. Null is zero. */
+    public static long of(BigDecimal amount) {
+        if (amount == null) {
+            return ZERO;
+        }
+        return amount.movePointRight(SCALE).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static long ofDollars(long dollars) {
+        return Math.multiplyExact(dollars, UNITS_PER_DOLLAR);
+    }
+
+    public static BigDecimal toBigDecimal(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    /** Price × quantity, both already in units / shares. */
+    public static long notional(long priceUnits, long quantity) {
+        return Math.multiplyExact(priceUnits, quantity);
+    }
+
+    /** Like {@link #notional} but clamps to Long.MIN/MAX_VALUE instead of throwing on overflow. */
+    public static long notionalSaturated(long priceUnits, long quantity) {
+        long hi = Math.multiplyHigh(priceUnits, quantity);
+        long lo = priceUnits * quantity;
+        if ((hi == 0 && lo >= 0) || (hi == -1 && lo < 0)) {
+            return lo;
+        }
+        return hi < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+}
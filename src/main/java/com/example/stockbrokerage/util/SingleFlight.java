@@ -0,0 +1,190 @@
+package com.example.stockbrokerage.util;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent calls for the same key into one: the first caller runs the call, every
+ * caller arriving while it is in flight waits for and receives the same result.
+ *
+ * Design decisions:
+ *  - The leader runs the call on its own thread; no executor and no extra thread hop.
+ *  - Followers wait at most {@code timeoutMillis} and then get a {@link TimeoutException}; the
+ *    flight itself carries on and still completes for everyone else. A leader that re-enters
+ *    its own key would wait on itself, so the bound also prevents that deadlock.
+ *  - A failed call fails every waiter with the same exception; nothing is cached, the next
+ *    call after the flight lands starts a new one.
+ *  - {@link #executeAll} claims several keys for one batch call; single and batch callers of a
+ *    key join each other's flights alike.
+ *  - {@link #executeAsync} and {@link #executeAllAsync} take calls that return a future and
+ *    block nobody: the flight lands when the call's future does, and a follower gets a copy of
+ *    it that fails with {@link TimeoutException} after {@code timeoutMillis}. Blocking and
+ *    non-blocking callers of a key share the same flights.
+ *  - Thread-safe.
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Runs {@code call} for {@code key}, or waits up to {@code timeoutMillis} for the call
+     * already in flight for it.
+     */
+    public V execute(K key, Function<? super K, ? extends V> call, long timeoutMillis) throws TimeoutException {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing, timeoutMillis);
+        }
+        try {
+            V result = call.apply(key);
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Batch form of {@link #execute}: runs {@code call} once for the keys not already in flight
+     * and joins the flights of the others, without waiting for them. The result has one future
+     * per distinct key, in order. Claimed keys are complete on return, with the value the call
+     * returned for them or null, or exceptionally with what it threw; joined keys complete when
+     * their flight lands. Never throws; the caller decides how long to wait.
+     */
+    public Map<K, CompletableFuture<V>> executeAll(Collection<K> keys,
+                                                   Function<? super List<K>, ? extends Map<K, ? extends V>> call) {
+        Map<K, CompletableFuture<V>> results = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> claimed = new LinkedHashMap<>();
+        for (K key : new LinkedHashSet<>(keys)) {
+            CompletableFuture<V> flight = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+            if (existing != null) {
+                coalesced.incrementAndGet();
+                results.put(key, existing);
+            } else {
+                claimed.put(key, flight);
+                results.put(key, flight);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return results;
+        }
+        try {
+            Map<K, ? extends V> values = call.apply(List.copyOf(claimed.keySet()));
+            claimed.forEach((key, flight) -> flight.complete(values != null ? values.get(key) : null));
+        } catch (RuntimeException | Error e) {
+            claimed.values().forEach(flight -> flight.completeExceptionally(e));
+        } finally {
+            claimed.forEach(inFlight::remove);
+        }
+        return results;
+    }
+
+    /**
+     * Non-blocking form of {@link #execute}: starts {@code call} for {@code key}, or joins the
+     * call already in flight for it. A joined flight fails with {@link TimeoutException} if it
+     * has not landed within {@code timeoutMillis}.
+     */
+    public CompletableFuture<V> executeAsync(K key, Function<? super K, ? extends CompletableFuture<? extends V>> call,
+                                             long timeoutMillis) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing.copy().orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        try {
+            call.apply(key).whenComplete((value, error) -> land(key, flight, value, error));
+        } catch (RuntimeException | Error e) {
+            land(key, flight, null, e);
+        }
+        return flight.copy();
+    }
+
+    /**
+     * Non-blocking form of {@link #executeAll}: starts {@code call} once for the keys not
+     * already in flight and joins the flights of the others. The result has one future per
+     * distinct key, in order; claimed keys complete when the call's future does, joined keys
+     * when their flight lands or, at the latest, after {@code timeoutMillis} with a
+     * {@link TimeoutException}. Never throws.
+     */
+    public Map<K, CompletableFuture<V>> executeAllAsync(
+            Collection<K> keys,
+            Function<? super List<K>, ? extends CompletableFuture<? extends Map<K, ? extends V>>> call,
+            long timeoutMillis) {
+        Map<K, CompletableFuture<V>> results = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> claimed = new LinkedHashMap<>();
+        for (K key : new LinkedHashSet<>(keys)) {
+            CompletableFuture<V> flight = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+            if (existing != null) {
+                coalesced.incrementAndGet();
+                results.put(key, existing.copy().orTimeout(timeoutMillis, TimeUnit.MILLISECONDS));
+            } else {
+                claimed.put(key, flight);
+                results.put(key, flight.copy());
+            }
+        }
+        if (claimed.isEmpty()) {
+            return results;
+        }
+        try {
+            call.apply(List.copyOf(claimed.keySet())).whenComplete((values, error) -> claimed.forEach((key, flight) ->
+                    land(key, flight, error == null && values != null ? values.get(key) : null, error)));
+        } catch (RuntimeException | Error e) {
+            claimed.forEach((key, flight) -> land(key, flight, null, e));
+        }
+        return results;
+    }
+
+    private void land(K key, CompletableFuture<V> flight, V value, Throwable error) {
+        inFlight.remove(key, flight);
+        if (error != null) {
+            flight.completeExceptionally(error);
+        } else {
+            flight.complete(value);
+        }
+    }
+
+    private V await(CompletableFuture<V> flight, long timeoutMillis) throws TimeoutException {
+        try {
+            return flight.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting for in-flight call");
+        }
+    }
+
+    public boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    /** Calls that joined a flight instead of running their own, since creation. */
+    public long coalesced() {
+        return coalesced.get();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.stockbrokerage.util;
+
+import java.util.Arrays;
+
+/**
+ * Event count and value sum over a sliding time window, kept in a fixed ring of time slots.
+ *
+ * Design decisions:
+ *  - The window is {@code slots} slots of {@code slotMillis} each. Every slot holds the count
+ *    and sum of the events that fell into it; running totals over all slots are kept alongside,
+ *    so reading them is O(1) and moving time forward clears only the slots it passes.
+ *  - The window slides in whole slots: it covers the current, partly elapsed slot plus the
+ *    {@code slots - 1} before it. Finer slots make it more exact at the same cost per event.
+ *  - Timestamps that go backwards are counted in the newest slot.
+ *  - Primitive arrays allocated once; recording and reading allocate nothing.
+ *  - Not thread-safe; callers synchronise.
+ */
+public final class SlidingWindowCounter {
+
+    private final long slotMillis;
+    private final long[] counts;
+    private final long[] sums;
+    private long count;
+    private long sum;
+    private long headSlot = Long.MIN_VALUE;
+
+    public SlidingWindowCounter(int slots, long slotMillis) {
+        if (slots < 1 || slotMillis <= 0) {
+            throw new IllegalArgumentException("Invalid sliding window geometry");
+        }
+        this.slotMillis = slotMillis;
+        this.counts = new long[slots];
+        this.sums = new long[slots];
+    }
+
+    /** Records one event carrying {@code value} at {@code nowMillis}. */
+    public void add(long nowMillis, long value) {
+        add(nowMillis, 1, value);
+    }
+
+    /** Records {@code events} events carrying {@code value} between them at {@code nowMillis}. */
+    public void add(long nowMillis, long events, long value) {
+        advance(nowMillis);
+        int index = (int) Math.floorMod(headSlot, (long) counts.length);
+        counts[index] += events;
+        sums[index] += value;
+        count += events;
+        sum += value;
+    }
+
+    /** Events in the window ending at {@code nowMillis}. */
+    public long count(long nowMillis) {
+        advance(nowMillis);
+        return count;
+    }
+
+    /** Sum of event values in the window ending at {@code nowMillis}. */
+    public long sum(long nowMillis) {
+        advance(nowMillis);
+        return sum;
+    }
+
+    public long windowMillis() {
+        return slotMillis * counts.length;
+    }
+
+    private void advance(long nowMillis) {
+        long slot = Math.floorDiv(nowMillis, slotMillis);
+        if (slot <= headSlot) {
+            return;
+        }
+        if (headSlot == Long.MIN_VALUE || slot - headSlot >= counts.length) {
+            Arrays.fill(counts, 0L);
+            Arrays.fill(sums, 0L);
+            count = 0;
+            sum = 0;
+        } else {
+            for (long s = headSlot + 1; s <= slot; s++) {
+                int index = (int) Math.floorMod(s, (long) counts.length);
+                count -= counts[index];
+                sum -= sums[index];
+                counts[index] = 0;
+                sums[index] = 0;
+            }
+        }
+        headSlot = slot;
+    }
+}
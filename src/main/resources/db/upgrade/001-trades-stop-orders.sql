@@ -0,0 +1,19 @@
+-- STOP and STOP_LIMIT orders.
+--
+-- Hibernate created trades.order_type with check (order_type in ('MARKET','LIMIT')).
+-- ddl-auto: update adds the stop_price column but never rewrites an existing check
+-- constraint, so a database created before these order types rejects every STOP and
+-- STOP_LIMIT insert until this script has run. New databases do not need it.
+--
+-- Safe to run more than once:
+--   docker exec -i stockdb-postgres psql -U stockuser -d stockdb < src/main/resources/db/upgrade/001-trades-stop-orders.sql
+
+BEGIN;
+
+ALTER TABLE trades DROP CONSTRAINT IF EXISTS trades_order_type_check;
+ALTER TABLE trades ADD CONSTRAINT trades_order_type_check
+    CHECK (order_type IN ('MARKET', 'LIMIT', 'STOP', 'STOP_LIMIT'));
+
+ALTER TABLE trades ADD COLUMN IF NOT EXISTS stop_price numeric(19, 4);
+
+COMMIT;
@@ -0,0 +1,49 @@
+package com.example.stockbrokerage.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EndpointStatsTest {
+
+    private final EndpointStats stats = new EndpointStats(500);
+
+    @Test
+    void p90_overTheRecentWindow_orDefaultWithoutSamples() {
+        assertThat(stats.p90Millis("v7/quote")).isEqualTo(500);
+
+        for (int ms = 1; ms <= 100; ms++) {
+            stats.recordSuccess("v7/quote", TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+        assertThat(stats.p90Millis("v7/quote")).isEqualTo(90);
+
+        for (int i = 0; i < EndpointStats.WINDOW; i++) {
+            stats.recordSuccess("v7/quote", TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        assertThat(stats.p90Millis("v7/quote")).isEqualTo(5);
+    }
+
+    @Test
+    void rank_prefersFastReliableEndpoints_andKeepsOrderOnTies() {
+        List<String> endpoints = List.of("v7/quote", "v8/chart", "v6/quote");
+        assertThat(stats.rank(endpoints)).containsExactlyElementsOf(endpoints);
+
+        for (int i = 0; i < 20; i++) {
+            stats.recordSuccess("v7/quote", TimeUnit.MILLISECONDS.toNanos(300));
+            stats.recordSuccess("v8/chart", TimeUnit.MILLISECONDS.toNanos(80));
+            stats.recordFailure("v6/quote", TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        assertThat(stats.rank(endpoints)).containsExactly("v8/chart", "v7/quote", "v6/quote");
+    }
+
+    @Test
+    void abandonedAttempts_countTowardsLatencyButNotFailures() {
+        stats.recordAbandoned("v7/quote", TimeUnit.SECONDS.toNanos(2));
+
+        assertThat(stats.p90Millis("v7/quote")).isEqualTo(2_000);
+        assertThat(stats.successRate("v7/quote")).isEqualTo(1.0);
+    }
+}
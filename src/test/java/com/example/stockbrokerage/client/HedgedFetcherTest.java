@@ -0,0 +1,127 @@
+package com.example.stockbrokerage.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgedFetcherTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final EndpointStats stats = new EndpointStats(20);
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    @Test
+    void fastPreferredEndpoint_isTheOnlyOneCalled() {
+        HedgedFetcher fetcher = fetcher(
+                endpoint("v7/quote", symbol -> CompletableFuture.completedFuture(new BigDecimal("190.5"))),
+                endpoint("v8/chart", symbol -> CompletableFuture.completedFuture(new BigDecimal("190.4"))));
+
+        assertThat(fetcher.fetch("AAPL")).isEqualByComparingTo("190.5");
+        assertThat(calls).containsOnlyKeys("v7/quote");
+        assertThat(hedges()).isZero();
+    }
+
+    @Test
+    void slowPreferredEndpoint_isHedgedAfterItsP90_andCancelled() {
+        CompletableFuture<BigDecimal> hung = new CompletableFuture<>();
+        HedgedFetcher fetcher = fetcher(
+                endpoint("v7/quote", symbol -> hung),
+                endpoint("v8/chart", symbol -> CompletableFuture.supplyAsync(() -> new BigDecimal("410"))));
+
+        assertThat(fetcher.fetch("MSFT")).isEqualByComparingTo("410");
+        assertThat(hung).isCancelled();
+        assertThat(hedges()).isEqualTo(1);
+        assertThat(stats.successRate("v7/quote")).isEqualTo(1.0);
+    }
+
+    @Test
+    void failingEndpoint_startsTheNextAtOnce_andDropsInTheRanking() {
+        HedgedFetcher fetcher = fetcher(
+                endpoint("v7/quote", symbol -> after(5, () -> {
+                    throw new IllegalStateException("429");
+                })),
+                endpoint("v8/chart", symbol -> after(5, () -> BigDecimal.ZERO)),
+                endpoint("v6/quote", symbol -> CompletableFuture.completedFuture(new BigDecimal("880"))));
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(fetcher.fetch("NVDA")).isEqualByComparingTo("880");
+        }
+
+        assertThat(stats.rank(List.of("v7/quote", "v8/chart", "v6/quote"))).first().isEqualTo("v6/quote");
+        assertThat(calls.get("v7/quote")).hasValueLessThan(10);
+        assertThat(calls.get("v6/quote")).hasValue(10);
+    }
+
+    @Test
+    void localRejection_handsOverAtOnce_andLeavesTheEndpointStatsAlone() {
+        HedgedFetcher fetcher = fetcher(
+                endpoint("v7/quote", symbol -> CompletableFuture.failedFuture(
+                        new RejectedExecutionException("More than 32 Yahoo Finance requests in flight"))),
+                endpoint("v8/chart", symbol -> CompletableFuture.completedFuture(new BigDecimal("175"))));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(fetcher.fetch("AMD")).isEqualByComparingTo("175");
+        }
+
+        assertThat(stats.successRate("v7/quote")).isEqualTo(1.0);
+        assertThat(stats.p90Millis("v7/quote")).isEqualTo(20);
+        assertThat(stats.rank(List.of("v7/quote", "v8/chart"))).first().isEqualTo("v8/chart");
+    }
+
+    @Test
+    void noEndpointHasAPrice_returnsZero() {
+        HedgedFetcher fetcher = fetcher(
+                endpoint("v7/quote", symbol -> CompletableFuture.completedFuture(BigDecimal.ZERO)),
+                endpoint("v8/chart", symbol -> CompletableFuture.failedFuture(new IllegalStateException("down"))));
+
+        assertThat(fetcher.fetch("XYZ")).isEqualByComparingTo("0");
+        assertThat(calls).containsOnlyKeys("v7/quote", "v8/chart");
+    }
+
+    @Test
+    void fetchAsync_completesWithZeroAtTheTimeout_andCancelsEveryAttempt() {
+        CompletableFuture<BigDecimal> first = new CompletableFuture<>();
+        CompletableFuture<BigDecimal> second = new CompletableFuture<>();
+        HedgedFetcher fetcher = new HedgedFetcher(List.of(endpoint("v7/quote", symbol -> first),
+                endpoint("v8/chart", symbol -> second)), stats, registry, 1, 100);
+
+        CompletableFuture<BigDecimal> price = fetcher.fetchAsync("AMZN");
+        assertThat(price).isNotDone();
+
+        assertThat(price.join()).isEqualByComparingTo("0");
+        assertThat(first).isCancelled();
+        assertThat(second).isCancelled();
+    }
+
+    private HedgedFetcher fetcher(HedgedFetcher.Endpoint... endpoints) {
+        return new HedgedFetcher(List.of(endpoints), stats, registry, 1, 2_000);
+    }
+
+    private HedgedFetcher.Endpoint endpoint(String name,
+                                            Function<String, CompletableFuture<BigDecimal>> fetch) {
+        return new HedgedFetcher.Endpoint(name, symbol -> {
+            calls.computeIfAbsent(name, n -> new AtomicInteger()).incrementAndGet();
+            return fetch.apply(symbol);
+        });
+    }
+
+    private static CompletableFuture<BigDecimal> after(long millis, Supplier<BigDecimal> answer) {
+        return CompletableFuture.supplyAsync(answer, CompletableFuture.delayedExecutor(millis, TimeUnit.MILLISECONDS));
+    }
+
+    private double hedges() {
+        return registry.get("prices.yahoo.hedges").counter().count();
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +25,8 @@ import java.util.Map;
  * <ul>
  *   <li>{@link #getCurrentPrice} — a stable value in the range [100, 999] derived from
  *       the symbol's hash code (e.g. AAPL → always the same number).</li>
+ *   <li>{@link #getCurrentPrices} — the same value as {@link #getCurrentPrice} for every
+ *       symbol requested.</li>
  *   <li>{@link #getHistoricalPrices} — a list of {@code 4 680} values that form a
  *       deterministic random walk seeded from the symbol hash.</li>
  *   <li>{@link #getQuote} — a minimal Yahoo-Finance-shaped {@code Map} containing
@@ -45,6 +48,16 @@ public class MockYahooFinanceClient implements YahooFinanceClient {
         return price;
     }
 
+    @Override
+    public Map<String, BigDecimal> getCurrentPrices(Collection<String> symbols) {
+        Map<String, BigDecimal> prices = new HashMap<>();
+        for (String symbol : symbols) {
+            prices.put(symbol, seedPrice(symbol));
+        }
+        log.debug("[MockYahooFinanceClient] getCurrentPrices({} symbols)", prices.size());
+        return prices;
+    }
+
     @Override
     public Map<String, Object> getQuote(String symbol) {
         BigDecimal price = seedPrice(symbol);
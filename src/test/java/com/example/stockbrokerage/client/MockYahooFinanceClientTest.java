@@ -46,6 +46,13 @@ class MockYahooFinanceClientTest {
         assertThat(price).isBetween(BigDecimal.valueOf(100), BigDecimal.valueOf(999));
     }
 
+    @Test
+    void getCurrentPrices_matchesSingleSymbolPrices() {
+        Map<String, BigDecimal> prices = client.getCurrentPrices(List.of("AAPL", "NVDA", "TQQQ"));
+        assertThat(prices).hasSize(3);
+        assertThat(prices.get("NVDA")).isEqualByComparingTo(client.getCurrentPrice("NVDA"));
+    }
+
     // -------------------------------------------------------------------------
     // getHistoricalPrices
     // -------------------------------------------------------------------------
@@ -0,0 +1,61 @@
+package com.example.stockbrokerage.config;
+
+import com.example.stockbrokerage.jfr.ScheduledJobEvent;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ScheduledJobRecordingAspectTest {
+
+    private final ScheduledJobRecordingAspect aspect = new ScheduledJobRecordingAspect();
+
+    @Test
+    void recordsEachRunWithJobNameAndOutcome(@TempDir Path dir) throws Throwable {
+        Path file = dir.resolve("jobs.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ScheduledJobEvent.class);
+            recording.start();
+
+            assertThat(aspect.recordRun(joinPoint("reconcileAccounts", null))).isEqualTo("done");
+            assertThatThrownBy(() -> aspect.recordRun(joinPoint("pollPrices", new IllegalStateException("down"))))
+                    .isInstanceOf(IllegalStateException.class);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("com.example.stockbrokerage.ScheduledJob"))
+                .toList();
+        assertThat(events).extracting(e -> e.getString("job"))
+                .containsExactly("ScheduledJobRecordingAspectTest.reconcileAccounts",
+                        "ScheduledJobRecordingAspectTest.pollPrices");
+        assertThat(events).extracting(e -> e.getString("outcome")).containsExactly("OK", "IllegalStateException");
+    }
+
+    private ProceedingJoinPoint joinPoint(String method, RuntimeException failure) throws Throwable {
+        Signature signature = mock(Signature.class);
+        when(signature.getDeclaringType()).thenReturn(ScheduledJobRecordingAspectTest.class);
+        when(signature.getName()).thenReturn(method);
+        ProceedingJoinPoint pjp = mock(ProceedingJoinPoint.class);
+        when(pjp.getSignature()).thenReturn(signature);
+        if (failure != null) {
+            when(pjp.proceed()).thenThrow(failure);
+        } else {
+            when(pjp.proceed()).thenReturn("done");
+        }
+        return pjp;
+    }
+}
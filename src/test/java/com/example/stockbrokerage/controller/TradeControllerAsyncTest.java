@@ -0,0 +1,151 @@
+package com.example.stockbrokerage.controller;
+
+import com.example.stockbrokerage.dto.TradeRequest;
+import com.example.stockbrokerage.dto.TradeResponse;
+import com.example.stockbrokerage.entity.Trade.TradeStatus;
+import com.example.stockbrokerage.entity.Trade.TradeType;
+import com.example.stockbrokerage.exception.GlobalExceptionHandler;
+import com.example.stockbrokerage.service.AsyncOrderPipeline;
+import com.example.stockbrokerage.service.BatchTradeService;
+import com.example.stockbrokerage.service.OrderSequencer;
+import com.example.stockbrokerage.service.TradeService;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TradeControllerAsyncTest {
+
+    private static final String ORDER = """
+            { "clientId": 1, "symbol": "AAPL", "quantity": 10, "price": 150.00, "type": "BUY" }
+            """;
+
+    private final TradeService tradeService = mock(TradeService.class);
+    private final OrderSequencer sequencer = new OrderSequencer(new SimpleMeterRegistry(), true, 2, 16, 5_000);
+    private final AsyncOrderPipeline pipeline =
+            new AsyncOrderPipeline(sequencer, tradeService, new SimpleMeterRegistry(), 5_000, 10);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        TradeController controller = new TradeController(tradeService, sequencer, pipeline, mock(BatchTradeService.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        sequencer.shutdown();
+    }
+
+    @Test
+    void acceptedOrder_isPendingUntilExecutionFinishes() throws Exception {
+        executionWaitsForRelease();
+
+        MvcResult accepted = mockMvc.perform(post("/api/trades/async")
+                        .contentType(MediaType.APPLICATION_JSON).content(ORDER))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(jsonPath("$.completed").value(false))
+                .andReturn();
+        String orderId = JsonPath.read(accepted.getResponse().getContentAsString(), "$.orderId");
+        assertThat(accepted.getResponse().getHeader("Location")).isEqualTo("/api/trades/async/" + orderId);
+
+        mockMvc.perform(get("/api/trades/async/{orderId}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PENDING"));
+
+        release.countDown();
+        awaitCompletion(orderId);
+
+        mockMvc.perform(get("/api/trades/async/{orderId}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("EXECUTED"))
+                .andExpect(jsonPath("$.tradeId").value(7))
+                .andExpect(jsonPath("$.completed").value(true));
+    }
+
+    @Test
+    void failedExecution_endsRejectedWithTheReason() throws Exception {
+        when(tradeService.executeTrade(any())).thenThrow(new IllegalStateException("Insufficient funds"));
+
+        MvcResult accepted = mockMvc.perform(post("/api/trades/async")
+                        .contentType(MediaType.APPLICATION_JSON).content(ORDER))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        String orderId = JsonPath.read(accepted.getResponse().getContentAsString(), "$.orderId");
+        awaitCompletion(orderId);
+
+        mockMvc.perform(get("/api/trades/async/{orderId}", orderId))
+                .andExpect(jsonPath("$.status").value("REJECTED"))
+                .andExpect(jsonPath("$.reason").value("Insufficient funds"));
+    }
+
+    @Test
+    void unknownOrderId_isABadRequest() throws Exception {
+        mockMvc.perform(get("/api/trades/async/{orderId}", "no-such-order"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Order not found or expired: no-such-order"));
+    }
+
+    @Test
+    void orderStream_sendsEachStatusAndCompletesAfterTheFinalEvent() throws Exception {
+        executionWaitsForRelease();
+        String orderId = pipeline.accept(TradeRequest.builder()
+                .clientId(1L).symbol("AAPL").quantity(10).price(BigDecimal.valueOf(150))
+                .type(TradeType.BUY).build()).getOrderId();
+
+        MvcResult stream = mockMvc.perform(get("/api/trades/async/{orderId}/events", orderId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        release.countDown();
+        // Returns once the emitter has completed; throws if it is still open
+        stream.getAsyncResult(5_000);
+
+        String events = stream.getResponse().getContentAsString();
+        assertThat(events).contains("event:order-status");
+        int pending = events.indexOf("\"status\":\"PENDING\"");
+        int executed = events.indexOf("\"status\":\"EXECUTED\"");
+        assertThat(pending).isNotNegative();
+        assertThat(executed).isGreaterThan(pending);
+        assertThat(events.indexOf("\"completed\":true")).isGreaterThan(pending);
+    }
+
+    private void executionWaitsForRelease() {
+        when(tradeService.executeTrade(any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return TradeResponse.builder().id(7L).clientId(1L).symbol("AAPL").status(TradeStatus.EXECUTED).build();
+        });
+    }
+
+    private void awaitCompletion(String orderId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!pipeline.getStatus(orderId).isCompleted() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(pipeline.getStatus(orderId).isCompleted()).isTrue();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.entity.Account;
+import com.example.stockbrokerage.repository.AccountRepository;
+import com.example.stockbrokerage.util.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccountLedgerTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final AccountLedger ledger = new AccountLedger(accountRepository, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        Account account = new Account();
+        account.setId(7L);
+        account.setCashBalance(new BigDecimal("1000.00"));
+        account.setReservedBalance(new BigDecimal("100.00"));
+        when(accountRepository.findByClientId(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.addToBalances(any(), any(), any(), any())).thenReturn(1);
+        when(accountRepository.addToBalancesIfAvailable(any(), any(), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void operations_updateMemory_andWriteThroughAsIncrements() {
+        ledger.reserve(1L, Money.ofDollars(400));
+        ledger.settle(1L, Money.ofDollars(400));
+        ledger.credit(1L, Money.ofDollars(50));
+
+        AccountLedger.Snapshot snapshot = ledger.snapshot(1L);
+        assertThat(snapshot.accountId()).isEqualTo(7L);
+        assertThat(snapshot.cashUnits()).isEqualTo(Money.ofDollars(650));
+        assertThat(snapshot.reservedUnits()).isEqualTo(Money.ofDollars(100));
+        assertThat(snapshot.availableUnits()).isEqualTo(Money.ofDollars(550));
+
+        // Loaded once, then served from memory
+        verify(accountRepository, times(1)).findByClientId(1L);
+        verify(accountRepository).addToBalancesIfAvailable(eq(1L), eq(Money.toBigDecimal(0)),
+                eq(Money.toBigDecimal(Money.ofDollars(400))), any());
+    }
+
+    @Test
+    void checkedOperations_failOnInsufficientAvailableBalance_withoutWriting() {
+        assertThatThrownBy(() -> ledger.reserve(1L, Money.ofDollars(901)))
+                .hasMessage("Insufficient available balance");
+        assertThatThrownBy(() -> ledger.withdraw(1L, Money.ofDollars(901)))
+                .hasMessage("Insufficient available balance for withdrawal");
+
+        assertThat(ledger.snapshot(1L).availableUnits()).isEqualTo(Money.ofDollars(900));
+        verify(accountRepository, never()).addToBalancesIfAvailable(any(), any(), any(), any());
+    }
+
+    @Test
+    void refusedGuardedWrite_undoesMemory_andReloads() {
+        when(accountRepository.addToBalancesIfAvailable(any(), any(), any(), any())).thenReturn(0);
+
+        assertThatThrownBy(() -> ledger.withdraw(1L, Money.ofDollars(500)))
+                .hasMessage("Insufficient available balance for withdrawal");
+
+        assertThat(ledger.size()).isZero();
+        assertThat(ledger.snapshot(1L).cashUnits()).isEqualTo(Money.ofDollars(1000));
+        verify(accountRepository, times(2)).findByClientId(1L);
+    }
+
+    @Test
+    void resetEvent_dropsEntries() {
+        ledger.snapshot(1L);
+        ledger.onAccountBalancesReset(new AccountBalancesResetEvent(List.of(1L)));
+
+        assertThat(ledger.size()).isZero();
+    }
+
+    @Test
+    void amounts_roundHalfAwayFromZeroToCents() {
+        assertThat(AccountLedger.toCents(Money.of(new BigDecimal("10.0049")))).isEqualTo(Money.of(new BigDecimal("10.00")));
+        assertThat(AccountLedger.toCents(Money.of(new BigDecimal("10.0050")))).isEqualTo(Money.of(new BigDecimal("10.01")));
+        assertThat(AccountLedger.toCents(Money.of(new BigDecimal("-10.0050")))).isEqualTo(Money.of(new BigDecimal("-10.01")));
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.BatchTradeRequest;
+import com.example.stockbrokerage.dto.BatchTradeResponse;
+import com.example.stockbrokerage.dto.PreTradeVerdict;
+import com.example.stockbrokerage.dto.PreTradeVerdict.Finding;
+import com.example.stockbrokerage.dto.PreTradeVerdict.ReasonCode;
+import com.example.stockbrokerage.dto.RuleVerdict;
+import com.example.stockbrokerage.dto.TradeRequest;
+import com.example.stockbrokerage.dto.TradeResponse;
+import com.example.stockbrokerage.entity.Client;
+import com.example.stockbrokerage.entity.Portfolio;
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.entity.Trade.OrderType;
+import com.example.stockbrokerage.entity.Trade.TradeStatus;
+import com.example.stockbrokerage.entity.Trade.TradeType;
+import com.example.stockbrokerage.repository.PortfolioRepository;
+import com.example.stockbrokerage.util.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchTradeServiceTest {
+
+    private final ClientService clientService = mock(ClientService.class);
+    private final FraudDetectionService fraudDetectionService = mock(FraudDetectionService.class);
+    private final RuleEngineService ruleEngineService = mock(RuleEngineService.class);
+    private final AccountLedger accountLedger = mock(AccountLedger.class);
+    private final PortfolioRepository portfolioRepository = mock(PortfolioRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final BatchTradeService service = new BatchTradeService(clientService, fraudDetectionService,
+            ruleEngineService, accountLedger, portfolioRepository, mock(JdbcTemplate.class), eventPublisher);
+
+    private final Client client = Client.builder().id(1L).status(Client.ClientStatus.ACTIVE).build();
+
+    @BeforeEach
+    void setUp() {
+        when(clientService.getClientById(1L)).thenReturn(client);
+        when(accountLedger.snapshot(1L)).thenReturn(new AccountLedger.Snapshot(10L, Money.ofDollars(10_000), 0L));
+        when(fraudDetectionService.screen(anyList())).thenAnswer(invocation ->
+                Collections.nCopies(invocation.<List<?>>getArgument(0).size(), PreTradeVerdict.APPROVED));
+        when(ruleEngineService.evaluateTrades(anyList())).thenAnswer(invocation -> {
+            List<RuleVerdict> verdicts = new ArrayList<>();
+            for (Trade trade : invocation.<List<Trade>>getArgument(0)) {
+                RuleVerdict verdict = new RuleVerdict();
+                if (trade.getQuantity() == 13) {
+                    verdict.reject(RuleVerdict.ReasonCode.RISK_LIMIT_EXCEEDED, "Unlucky quantity");
+                }
+                verdicts.add(verdict);
+            }
+            return verdicts;
+        });
+    }
+
+    @Test
+    void buysBeyondTheRunningBalance_areRejected_andTheNetChangeIsAppliedOnce() {
+        // Five $8,000 BUYs against $10,000: only the first one is covered
+        List<TradeRequest> orders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orders.add(order(TradeType.BUY, OrderType.MARKET, "MSFT", 80, 100));
+        }
+
+        BatchTradeResponse response = service.executeBatch(new BatchTradeRequest(orders));
+
+        assertThat(response.getExecuted()).isEqualTo(1);
+        assertThat(response.getRejected()).isEqualTo(4);
+        assertThat(response.getResults().subList(1, 5))
+                .extracting(TradeResponse::getFraudCheckReason)
+                .containsOnly("Insufficient available balance");
+        verify(accountLedger).adjust(1L, -Money.ofDollars(8_000), -Money.ofDollars(8_000));
+    }
+
+    @Test
+    void sellsBeyondThePositionHeld_areRejected_andPositionsNetWithinTheBasket() {
+        Portfolio apple = new Portfolio();
+        apple.setClient(client);
+        apple.setSymbol("AAPL");
+        apple.setQuantity(10);
+        apple.setAveragePrice(BigDecimal.valueOf(100));
+        when(portfolioRepository.findByClientAndSymbol(client, "AAPL")).thenReturn(Optional.of(apple));
+        when(portfolioRepository.findByClientAndSymbol(client, "MSFT")).thenReturn(Optional.empty());
+
+        BatchTradeResponse response = service.executeBatch(new BatchTradeRequest(List.of(
+                order(TradeType.SELL, OrderType.MARKET, "MSFT", 5, 60),     // nothing held yet
+                order(TradeType.BUY, OrderType.MARKET, "MSFT", 10, 50),
+                order(TradeType.SELL, OrderType.MARKET, "MSFT", 4, 60),     // sells shares bought above
+                order(TradeType.SELL, OrderType.MARKET, "MSFT", 7, 60),     // only 6 left
+                order(TradeType.SELL, OrderType.MARKET, "AAPL", 10, 120)))); // closes the position
+
+        assertThat(response.getResults()).extracting(TradeResponse::getStatus).containsExactly(
+                TradeStatus.REJECTED, TradeStatus.EXECUTED, TradeStatus.EXECUTED, TradeStatus.REJECTED, TradeStatus.EXECUTED);
+        assertThat(response.getResults().get(0).getFraudCheckReason()).isEqualTo("Insufficient position: 0 of MSFT held");
+        assertThat(response.getResults().get(3).getFraudCheckReason()).isEqualTo("Insufficient position: 6 of MSFT held");
+
+        ArgumentCaptor<Portfolio> saved = ArgumentCaptor.forClass(Portfolio.class);
+        verify(portfolioRepository).save(saved.capture());
+        assertThat(saved.getValue().getSymbol()).isEqualTo("MSFT");
+        assertThat(saved.getValue().getQuantity()).isEqualTo(6);
+        verify(portfolioRepository).delete(apple);
+
+        // Cash: -500 + 240 + 1,200; reserve: -500, as AccountService#deductFunds does for the BUY
+        verify(accountLedger).adjust(1L, Money.ofDollars(940), Money.ofDollars(-500));
+    }
+
+    @Test
+    void fraudAndRuleRejections_rejectOnlyThoseOrders_andRestingBuysReserveFunds() {
+        PreTradeVerdict dailyLimit = PreTradeVerdict.rejected(
+                Finding.reject(ReasonCode.DAILY_LIMIT_EXCEEDED, "Daily trade limit exceeded."), "daily-limit", List.of());
+        when(fraudDetectionService.screen(anyList())).thenReturn(
+                List.of(PreTradeVerdict.APPROVED, dailyLimit, PreTradeVerdict.APPROVED));
+
+        BatchTradeResponse response = service.executeBatch(new BatchTradeRequest(List.of(
+                order(TradeType.BUY, OrderType.LIMIT, "MSFT", 10, 100),
+                order(TradeType.BUY, OrderType.MARKET, "MSFT", 10, 100),
+                order(TradeType.BUY, OrderType.MARKET, "MSFT", 13, 100))));
+
+        assertThat(response.getPending()).isEqualTo(1);
+        assertThat(response.getRejected()).isEqualTo(2);
+        assertThat(response.getResults().get(1).getFraudCheckReason()).isEqualTo("Daily trade limit exceeded.");
+        assertThat(response.getResults().get(2).getFraudCheckReason()).isEqualTo("Unlucky quantity");
+        // Only the resting BUY touches the account: it reserves $1,000
+        verify(accountLedger).adjust(1L, 0L, Money.ofDollars(1_000));
+        verify(portfolioRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(any(LimitOrderPlacedEvent.class));
+    }
+
+    private static TradeRequest order(TradeType type, OrderType orderType, String symbol, int quantity, long price) {
+        return TradeRequest.builder()
+                .clientId(1L)
+                .symbol(symbol)
+                .quantity(quantity)
+                .price(BigDecimal.valueOf(price))
+                .type(type)
+                .orderType(orderType)
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.repository.TradeRepository;
+import com.example.stockbrokerage.util.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DailyNotionalCountersTest {
+
+    private final TradeRepository tradeRepository = mock(TradeRepository.class);
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-03-02T10:00:00Z"));
+    private final DailyNotionalCounters counters =
+            new DailyNotionalCounters(tradeRepository, new SimpleMeterRegistry(), clock);
+
+    @Test
+    void seedsFromTradesTable_thenCountsInMemory() {
+        List<Object[]> seed = new ArrayList<>();
+        seed.add(new Object[] {1L, new BigDecimal("1500.0000")});
+        when(tradeRepository.sumNotionalByClientSince(any())).thenReturn(seed);
+
+        counters.record(1L, Money.ofDollars(250));
+        counters.record(2L, Money.ofDollars(10));
+
+        assertThat(counters.total(1L)).isEqualTo(Money.ofDollars(1750));
+        assertThat(counters.total(2L)).isEqualTo(Money.ofDollars(10));
+        assertThat(counters.total(3L)).isZero();
+        verify(tradeRepository, times(1)).sumNotionalByClientSince(any());
+    }
+
+    @Test
+    void dateRollover_reseedsForTheNewDay() {
+        when(tradeRepository.sumNotionalByClientSince(any())).thenReturn(List.of());
+        counters.record(1L, Money.ofDollars(500));
+
+        clock.instant = Instant.parse("2026-03-03T00:00:01Z");
+
+        assertThat(counters.total(1L)).isZero();
+        assertThat(counters.date()).isEqualTo(LocalDate.of(2026, 3, 3));
+        verify(tradeRepository).sumNotionalByClientSince(LocalDate.of(2026, 3, 3).atStartOfDay());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
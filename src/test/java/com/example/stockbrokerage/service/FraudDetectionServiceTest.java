@@ -0,0 +1,100 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.PreTradeVerdict;
+import com.example.stockbrokerage.dto.PreTradeVerdict.ReasonCode;
+import com.example.stockbrokerage.entity.Client;
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.entity.Trade.OrderType;
+import com.example.stockbrokerage.entity.Trade.TradeType;
+import com.example.stockbrokerage.util.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FraudDetectionServiceTest {
+
+    private static final LocalDateTime MARKET_HOURS = LocalDate.now().atTime(LocalTime.of(11, 0));
+
+    private final DailyNotionalCounters dailyNotionalCounters = mock(DailyNotionalCounters.class);
+    private final TradeSizeAnomalyModel tradeSizeAnomalyModel = mock(TradeSizeAnomalyModel.class);
+    private final Client client = Client.builder().id(1L).status(Client.ClientStatus.ACTIVE).build();
+    private final AccountLedger.Snapshot account = new AccountLedger.Snapshot(10L, Money.ofDollars(10_000), 0L);
+
+    private FraudDetectionService service;
+
+    @BeforeEach
+    void setUp() {
+        OrderVelocityTracker velocity = new OrderVelocityTracker(new SimpleMeterRegistry(), true, 10, 120, 1_000_000);
+        service = new FraudDetectionService(dailyNotionalCounters, velocity, tradeSizeAnomalyModel, new SimpleMeterRegistry());
+        when(dailyNotionalCounters.total(1L)).thenReturn(0L);
+        when(tradeSizeAnomalyModel.score(any(), any(), anyLong(), anyInt()))
+                .thenReturn(TradeSizeAnomalyModel.Assessment.NOT_SCORED);
+    }
+
+    @Test
+    void basketBuys_drawDownTheAvailableBalance_andSellProceedsAddToIt() {
+        List<PreTradeVerdict> verdicts = service.screen(List.of(
+                context(TradeType.BUY, OrderType.MARKET, 8_000),
+                context(TradeType.BUY, OrderType.MARKET, 8_000),   // $2,000 left
+                context(TradeType.SELL, OrderType.MARKET, 6_000),
+                context(TradeType.BUY, OrderType.LIMIT, 8_000)));  // $8,000 again after the SELL
+
+        assertThat(verdicts).extracting(PreTradeVerdict::isApproved).containsExactly(true, false, true, true);
+        assertThat(verdicts.get(1).code()).isEqualTo(ReasonCode.INSUFFICIENT_BALANCE);
+    }
+
+    @Test
+    void fiftyOrderBasket_countsAsOneSubmissionTowardsTheOrderRate() {
+        List<PreTradeContext> basket = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            basket.add(context(TradeType.BUY, OrderType.MARKET, 100));
+        }
+
+        assertThat(service.screen(basket)).allMatch(PreTradeVerdict::isApproved);
+
+        // The basket used one of the ten submissions allowed per second
+        for (int i = 0; i < 9; i++) {
+            assertThat(service.screen(context(TradeType.BUY, OrderType.MARKET, 100)).isApproved()).isTrue();
+        }
+        assertThat(service.screen(context(TradeType.BUY, OrderType.MARKET, 100)).code())
+                .isEqualTo(ReasonCode.ORDER_RATE_EXCEEDED);
+    }
+
+    @Test
+    void basketOverThePerMinuteOrderLimit_isRejected() {
+        List<PreTradeContext> basket = new ArrayList<>();
+        for (int i = 0; i < 121; i++) {
+            basket.add(context(TradeType.BUY, OrderType.MARKET, 1));
+        }
+
+        assertThat(service.screen(basket)).extracting(PreTradeVerdict::code)
+                .containsOnly(ReasonCode.ORDER_RATE_EXCEEDED);
+    }
+
+    private PreTradeContext context(TradeType type, OrderType orderType, long dollars) {
+        Trade trade = Trade.builder()
+                .clientId(1L)
+                .symbol("MSFT")
+                .quantity(1)
+                .price(BigDecimal.valueOf(dollars))
+                .type(type)
+                .orderType(orderType)
+                .tradeTime(MARKET_HOURS)
+                .build();
+        return new PreTradeContext(trade, client, account);
+    }
+}
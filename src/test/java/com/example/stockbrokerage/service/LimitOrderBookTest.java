@@ -0,0 +1,102 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.entity.Trade.TradeStatus;
+import com.example.stockbrokerage.entity.Trade.TradeType;
+import com.example.stockbrokerage.repository.TradeRepository;
+import com.example.stockbrokerage.service.LimitOrderBook.RestingOrder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LimitOrderBookTest {
+
+    private final TradeRepository tradeRepository = mock(TradeRepository.class);
+    private final LimitOrderBook book = new LimitOrderBook(tradeRepository, new SimpleMeterRegistry());
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        when(tradeRepository.findActiveRestingOrders(any())).thenReturn(List.of(
+                limit(1L, TradeType.BUY, "100.00"),
+                limit(2L, TradeType.BUY, "105.00"),
+                limit(3L, TradeType.BUY, "95.00"),
+                limit(4L, TradeType.SELL, "110.00"),
+                limit(5L, TradeType.SELL, "120.00")));
+        book.rebuild();
+    }
+
+    @Test
+    void cross_firesOnlyCrossedOrders_bestLimitFirst() {
+        assertThat(ids(book.cross("AAPL", new BigDecimal("100.00"), now))).containsExactly(2L, 1L);
+        assertThat(book.size()).isEqualTo(3);
+
+        assertThat(ids(book.cross("AAPL", new BigDecimal("115"), now))).containsExactly(4L);
+        assertThat(book.cross("AAPL", new BigDecimal("115"), now)).isEmpty();
+        assertThat(book.cross("MSFT", new BigDecimal("1"), now)).isEmpty();
+    }
+
+    @Test
+    void removedAndExpiredOrders_neverFire() {
+        book.remove(3L);
+        Trade expired = limit(6L, TradeType.BUY, "90.00");
+        expired.setExpiryTime(now.minusMinutes(1));
+        book.add(expired);
+
+        assertThat(ids(book.cross("AAPL", new BigDecimal("50"), now))).containsExactly(2L, 1L);
+        assertThat(book.size()).isEqualTo(2);
+        assertThat(book.symbols()).containsExactly("AAPL");
+    }
+
+    @Test
+    void stops_fireInTheOppositeDirection_andStopLimitsRestAtTheirLimit() {
+        Trade buyStop = limit(10L, TradeType.BUY, "130.00");
+        buyStop.setOrderType(Trade.OrderType.STOP);
+        buyStop.setStopPrice(new BigDecimal("125.00"));
+        Trade sellStopLimit = limit(11L, TradeType.SELL, "88.00");
+        sellStopLimit.setOrderType(Trade.OrderType.STOP_LIMIT);
+        sellStopLimit.setStopPrice(new BigDecimal("90.00"));
+        book.add(buyStop);
+        book.add(sellStopLimit);
+
+        // Rising to 125 fires the SELL limits and the BUY stop, not the SELL stop
+        assertThat(ids(book.cross("AAPL", new BigDecimal("125"), now))).containsExactly(4L, 5L, 10L);
+
+        // Falling to 89 fires the BUY limits and the SELL stop-limit ...
+        List<RestingOrder> fired = book.cross("AAPL", new BigDecimal("89"), now);
+        assertThat(ids(fired)).containsExactly(2L, 1L, 3L, 11L);
+
+        // ... which then rests as a SELL limit at 88
+        RestingOrder converted = fired.get(3).asLimit();
+        book.add(converted);
+        assertThat(book.cross("AAPL", new BigDecimal("87.99"), now)).isEmpty();
+        assertThat(ids(book.cross("AAPL", new BigDecimal("88"), now))).containsExactly(11L);
+    }
+
+    private static List<Long> ids(List<RestingOrder> orders) {
+        return orders.stream().map(RestingOrder::tradeId).toList();
+    }
+
+    private Trade limit(Long id, TradeType side, String price) {
+        return Trade.builder()
+                .id(id)
+                .clientId(7L)
+                .symbol("AAPL")
+                .quantity(10)
+                .price(new BigDecimal(price))
+                .type(side)
+                .orderType(Trade.OrderType.LIMIT)
+                .status(TradeStatus.PENDING)
+                .expiryTime(now.plusHours(1))
+                .build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.entity.Trade.OrderType;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Outcome;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Path;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Stage;
+import com.example.stockbrokerage.service.OrderLatencyMetrics.Stopwatch;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderLatencyMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OrderLatencyMetrics metrics = new OrderLatencyMetrics(registry, true);
+
+    @Test
+    void lapsChargeEachStage_andSkippedTimeIsNotCharged() throws InterruptedException {
+        Stopwatch stopwatch = metrics.start(Path.API);
+        Thread.sleep(2);
+        stopwatch.lap(Stage.CLIENT_LOOKUP);
+        Thread.sleep(2);
+        stopwatch.skip();
+        stopwatch.lap(Stage.FRAUD);
+        Thread.sleep(2);
+        stopwatch.lap(Stage.PERSIST);
+        Thread.sleep(2);
+        stopwatch.lap(Stage.PERSIST);
+
+        assertThat(stopwatch.elapsed(Stage.CLIENT_LOOKUP)).isGreaterThanOrEqualTo(2_000_000);
+        assertThat(stopwatch.elapsed(Stage.FRAUD)).isLessThan(2_000_000);
+        assertThat(stopwatch.elapsed(Stage.PERSIST)).isGreaterThanOrEqualTo(4_000_000);
+        assertThat(stopwatch.elapsed(Stage.RULES)).isZero();
+    }
+
+    @Test
+    void record_tagsStagesAndTotalWithOrderTypeAndOutcome() {
+        Stopwatch stopwatch = metrics.start(Path.TRIGGER);
+        stopwatch.lap(Stage.QUEUE);
+        stopwatch.lap(Stage.ORDER_LOAD);
+        metrics.record(stopwatch, OrderType.STOP_LIMIT, Outcome.CONVERTED_TO_LIMIT, 7L);
+        metrics.record(metrics.start(Path.TRIGGER), OrderType.STOP_LIMIT, Outcome.CONVERTED_TO_LIMIT, 8L);
+
+        Timer total = registry.get("orders.execution")
+                .tag("path", "trigger").tag("order.type", "STOP_LIMIT").tag("outcome", "CONVERTED_TO_LIMIT")
+                .timer();
+        assertThat(total.count()).isEqualTo(2);
+        Timer queue = registry.get("orders.execution.stage").tag("stage", "queue").tag("path", "trigger").timer();
+        assertThat(queue.count()).isEqualTo(1);
+        assertThat(total.totalTime(TimeUnit.NANOSECONDS)).isGreaterThanOrEqualTo(queue.totalTime(TimeUnit.NANOSECONDS));
+        assertThat(registry.find("orders.execution.stage").tag("stage", "fraud").timer()).isNull();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.stockbrokerage.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderSequencerTest {
+
+    private final OrderSequencer sequencer = new OrderSequencer(new SimpleMeterRegistry(), true, 4, 1024, 5_000);
+
+    @AfterEach
+    void tearDown() {
+        sequencer.shutdown();
+    }
+
+    @Test
+    void ordersOfOneClient_neverOverlap() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Integer> order = new ArrayList<>();
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int seq = i;
+            futures.add(sequencer.submit(42L, () -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                order.add(seq);
+                inFlight.decrementAndGet();
+                return seq;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        assertThat(maxInFlight.get()).isEqualTo(1);
+        assertThat(order).isSortedAccordingTo(Integer::compare).hasSize(200);
+    }
+
+    @Test
+    void execute_rethrowsTaskExceptionUnchanged() {
+        assertThatThrownBy(() -> sequencer.execute(1L, () -> {
+            throw new IllegalStateException("Insufficient funds");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("Insufficient funds");
+    }
+
+    @Test
+    void nestedSubmission_forTheSameLane_runsInline() {
+        List<String> threads = sequencer.execute(1L, () -> List.of(
+                Thread.currentThread().getName(),
+                sequencer.execute(1L, () -> Thread.currentThread().getName())));
+
+        assertThat(threads.get(1)).isEqualTo(threads.get(0)).startsWith("order-lane-");
+    }
+
+    @Test
+    void nestedSubmission_forAnotherLane_runsOnThatClientsLane() {
+        long other = 2L;
+        while (sequencer.laneIndex(other) == sequencer.laneIndex(1L)) {
+            other++;
+        }
+        long client = other;
+
+        String thread = sequencer.execute(1L, () -> sequencer.execute(client, () -> Thread.currentThread().getName()));
+
+        assertThat(thread).isEqualTo("order-lane-" + sequencer.laneIndex(client));
+    }
+
+    @Test
+    void execute_timedOutWhileQueued_withdrawsTheOrder() throws InterruptedException {
+        OrderSequencer oneLane = new OrderSequencer(new SimpleMeterRegistry(), true, 1, 16, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+        try {
+            oneLane.submit(1L, () -> await(release));
+
+            assertThatThrownBy(() -> oneLane.execute(1L, ran::incrementAndGet))
+                    .isInstanceOf(RuntimeException.class)
+                    .hasMessageContaining("withdrawn");
+
+            release.countDown();
+            oneLane.submit(1L, () -> true).join();
+            assertThat(ran.get()).isZero();
+        } finally {
+            release.countDown();
+            oneLane.shutdown();
+        }
+    }
+
+    @Test
+    void execute_timedOutWhileRunning_waitsForTheResult() {
+        OrderSequencer oneLane = new OrderSequencer(new SimpleMeterRegistry(), true, 1, 16, 50);
+        try {
+            String result = oneLane.execute(1L, () -> {
+                sleep(300);
+                return "filled";
+            });
+
+            assertThat(result).isEqualTo("filled");
+        } finally {
+            oneLane.shutdown();
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.util.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderVelocityTrackerTest {
+
+    private final OrderVelocityTracker tracker = new OrderVelocityTracker(new SimpleMeterRegistry(), true, 3, 5, 10_000);
+
+    @Test
+    void burstWithinOneSecond_isRejected_andClearsAfterTheWindow() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(tracker.record(1L, 1, Money.ofDollars(10), 1_000 + i)).isNull();
+        }
+        assertThat(tracker.record(1L, 1, Money.ofDollars(10), 1_010)).startsWith("Order rate exceeded: 4 orders in the last second");
+        // Other clients are unaffected
+        assertThat(tracker.record(2L, 1, Money.ofDollars(10), 1_010)).isNull();
+
+        // A second later the per-second window has slid past the burst, the per-minute one has not
+        assertThat(tracker.record(1L, 1, Money.ofDollars(10), 2_100)).isNull();
+        assertThat(tracker.record(1L, 1, Money.ofDollars(10), 2_200)).startsWith("Order rate exceeded: 6 orders in the last minute");
+    }
+
+    @Test
+    void notionalPerMinute_isLimited() {
+        assertThat(tracker.record(1L, 2, Money.ofDollars(9_000), 0)).isNull();
+        assertThat(tracker.record(1L, 1, Money.ofDollars(1_500), 5_000)).startsWith("Notional rate exceeded: 10500");
+        assertThat(tracker.record(1L, 1, Money.ofDollars(1_500), 60_000)).isNull();
+    }
+
+    @Test
+    void basket_isOneBurstSubmission_butEachOrderCountsPerMinute() {
+        // Four orders at once: one submission in the per-second window
+        assertThat(tracker.record(1L, 4, Money.ofDollars(40), 1_000)).isNull();
+        assertThat(tracker.record(1L, 1, Money.ofDollars(10), 1_010)).isNull();
+        // The sixth order of the minute is over the per-minute limit of five
+        assertThat(tracker.record(1L, 1, Money.ofDollars(10), 1_020)).startsWith("Order rate exceeded: 6 orders in the last minute");
+    }
+
+    @Test
+    void idleClients_areEvicted_andStartAfresh() {
+        AtomicLong now = new AtomicLong(1_000);
+        OrderVelocityTracker clocked = new OrderVelocityTracker(new SimpleMeterRegistry(), true, 3, 5, 10_000, now::get);
+        clocked.record(1L, 5, Money.ofDollars(10));
+        now.set(30_000);
+        clocked.record(2L, 1, Money.ofDollars(10));
+
+        now.set(61_000);
+        clocked.evictIdle();
+
+        assertThat(clocked.size()).isEqualTo(1);
+        assertThat(clocked.record(1L, 1, Money.ofDollars(10))).isNull();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.PreTradeVerdict;
+import com.example.stockbrokerage.dto.PreTradeVerdict.ReasonCode;
+import com.example.stockbrokerage.dto.RuleVerdict;
+import com.example.stockbrokerage.entity.Client;
+import com.example.stockbrokerage.entity.Trade;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PreTradeChecksTest {
+
+    private final FraudDetectionService fraudDetectionService = mock(FraudDetectionService.class);
+    private final RuleEngineService ruleEngineService = mock(RuleEngineService.class);
+    private final PreTradeChecks checks =
+            new PreTradeChecks(fraudDetectionService, ruleEngineService, new SimpleMeterRegistry());
+
+    @Test
+    void ruleRejection_carriesTheRuleReasonCodes() {
+        when(fraudDetectionService.screen(any(PreTradeContext.class))).thenReturn(PreTradeVerdict.APPROVED);
+        RuleVerdict rules = new RuleVerdict();
+        rules.reject(RuleVerdict.ReasonCode.RISK_LIMIT_EXCEEDED, "Trade exceeds risk limit.");
+        rules.reject(RuleVerdict.ReasonCode.POSITION_LIMIT_EXCEEDED);
+        when(ruleEngineService.evaluateTrade(any(), anyLong())).thenReturn(rules);
+
+        PreTradeVerdict verdict = checks.run(context());
+
+        assertThat(verdict.code()).isEqualTo(ReasonCode.RULE_REJECTED);
+        assertThat(verdict.rejectedBy()).isEqualTo("rules");
+        assertThat(verdict.ruleCodes()).containsExactlyInAnyOrder(
+                RuleVerdict.ReasonCode.RISK_LIMIT_EXCEEDED, RuleVerdict.ReasonCode.POSITION_LIMIT_EXCEEDED);
+        assertThat(verdict.describe()).isEqualTo("Trade exceeds risk limit.");
+    }
+
+    @Test
+    void approvedOrder_hasNoRuleCodes() {
+        when(fraudDetectionService.screen(any(PreTradeContext.class))).thenReturn(PreTradeVerdict.APPROVED);
+        when(ruleEngineService.evaluateTrade(any(), anyLong())).thenReturn(new RuleVerdict());
+
+        PreTradeVerdict verdict = checks.run(context());
+
+        assertThat(verdict.isApproved()).isTrue();
+        assertThat(verdict.ruleCodes()).isEmpty();
+    }
+
+    private PreTradeContext context() {
+        Trade trade = Trade.builder()
+                .clientId(1L)
+                .symbol("AAPL")
+                .quantity(10)
+                .price(new BigDecimal("100.00"))
+                .type(Trade.TradeType.BUY)
+                .build();
+        return new PreTradeContext(trade, new Client(), new AccountLedger.Snapshot(1L, 0L, 0L));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.PreTradeVerdict;
+import com.example.stockbrokerage.dto.PreTradeVerdict.Finding;
+import com.example.stockbrokerage.dto.PreTradeVerdict.ReasonCode;
+import com.example.stockbrokerage.entity.Client;
+import com.example.stockbrokerage.entity.Trade;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PreTradePipelineTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<String> ran = new ArrayList<>();
+
+    @Test
+    void stopsAtFirstRejection_andTimesEachStageThatRan() {
+        PreTradePipeline pipeline = PreTradePipeline.builder("test", registry)
+                .stage("cheap", pass("cheap"))
+                .stage("reject", context -> {
+                    ran.add("reject");
+                    return Finding.reject(ReasonCode.DAILY_LIMIT_EXCEEDED, "Daily trade limit exceeded.");
+                })
+                .stage("expensive", pass("expensive"))
+                .build();
+
+        PreTradeVerdict verdict = pipeline.run(context());
+
+        assertThat(verdict.isApproved()).isFalse();
+        assertThat(verdict.code()).isEqualTo(ReasonCode.DAILY_LIMIT_EXCEEDED);
+        assertThat(verdict.rejectedBy()).isEqualTo("reject");
+        assertThat(ran).containsExactly("cheap", "reject");
+        assertThat(registry.get("orders.pretrade.stage").tag("stage", "cheap").timer().count()).isEqualTo(1);
+        assertThat(registry.get("orders.pretrade.stage").tag("stage", "expensive").timer().count()).isZero();
+    }
+
+    @Test
+    void flagsDoNotBlock_andPassWithoutFlagsIsTheSharedInstance() {
+        PreTradePipeline plain = PreTradePipeline.builder("plain", registry).stage("ok", pass("ok")).build();
+        assertThat(plain.run(context())).isSameAs(PreTradeVerdict.APPROVED);
+
+        PreTradePipeline flagging = PreTradePipeline.builder("flagging", registry)
+                .stage("size", context -> {
+                    context.flag(Finding.flag(ReasonCode.UNUSUAL_TRADE_SIZE, "Unusual trade size."));
+                    return null;
+                })
+                .build();
+        PreTradeVerdict verdict = flagging.run(context());
+        assertThat(verdict.isApproved()).isTrue();
+        assertThat(verdict.describe()).isEqualTo("Unusual trade size.");
+    }
+
+    @Test
+    void stageErrors_rejectWithPrefix_orPropagateWithout() {
+        PreTradeCheck failing = context -> {
+            throw new IllegalStateException("boom");
+        };
+        PreTradePipeline inner = PreTradePipeline.builder("inner", registry)
+                .errorPrefix("Fraud check error: ")
+                .stage("failing", failing)
+                .build();
+        PreTradePipeline outer = PreTradePipeline.builder("outer", registry)
+                .stage("inner", inner)
+                .stage("after", pass("after"))
+                .build();
+
+        PreTradeVerdict verdict = outer.run(context());
+        assertThat(verdict.code()).isEqualTo(ReasonCode.CHECK_ERROR);
+        assertThat(verdict.describe()).isEqualTo("Fraud check error: boom");
+        assertThat(verdict.rejectedBy()).isEqualTo("inner");
+        assertThat(ran).isEmpty();
+
+        PreTradePipeline strict = PreTradePipeline.builder("strict", registry).stage("failing", failing).build();
+        assertThatThrownBy(() -> strict.run(context())).hasMessage("boom");
+    }
+
+    private PreTradeCheck pass(String name) {
+        return context -> {
+            ran.add(name);
+            return null;
+        };
+    }
+
+    private PreTradeContext context() {
+        Trade trade = Trade.builder()
+                .clientId(1L)
+                .symbol("AAPL")
+                .quantity(10)
+                .price(new BigDecimal("100.00"))
+                .type(Trade.TradeType.BUY)
+                .build();
+        return new PreTradeContext(trade, new Client(), new AccountLedger.Snapshot(1L, 0L, 0L));
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.stockbrokerage.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QuoteCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-03-02T15:00:00Z"));
+    private final Queue<Runnable> refreshes = new ArrayDeque<>();
+    private final QuoteCache cache = new QuoteCache(registry, true, 5_000, 1_000, 60_000, 3, 1_000, clock, refreshes::add);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void servesWithinTtl_andRefreshesHotSymbolsAheadOfExpiry() {
+        assertThat(cache.get("AAPL", upstream("100"))).isEqualByComparingTo("100");
+        clock.advance(2_000);
+        assertThat(cache.get("AAPL", upstream("101"))).isEqualByComparingTo("100");
+        assertThat(calls).hasValue(1);
+        assertThat(refreshes).isEmpty();
+
+        // Inside the refresh-ahead window: still served from cache, one background refresh queued
+        clock.advance(2_500);
+        assertThat(cache.get("AAPL", upstream("102"))).isEqualByComparingTo("100");
+        assertThat(cache.get("AAPL", upstream("102"))).isEqualByComparingTo("100");
+        assertThat(refreshes).hasSize(1);
+        refreshes.poll().run();
+
+        clock.advance(1_000);
+        assertThat(cache.get("AAPL", upstream("103"))).isEqualByComparingTo("102");
+        assertThat(calls).hasValue(2);
+        assertThat(registry.get("prices.cache.requests").tag("result", "hit").counter().count()).isEqualTo(4);
+        assertThat(registry.get("prices.cache.refreshes").tag("result", "ok").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void servesStalePriceWhenUpstreamFails_untilStaleLimit() {
+        cache.get("MSFT", upstream("400"));
+        clock.advance(10_000);
+
+        assertThat(cache.get("MSFT", upstream("0"))).isEqualByComparingTo("400");
+        assertThat(cache.get("MSFT", symbol -> {
+            throw new IllegalStateException("rate limited");
+        })).isEqualByComparingTo("400");
+        assertThat(registry.get("prices.cache.requests").tag("result", "stale").counter().count()).isEqualTo(2);
+
+        clock.advance(60_000);
+        assertThat(cache.get("MSFT", upstream("0"))).isEqualByComparingTo("0");
+        assertThatThrownBy(() -> cache.get("MSFT", symbol -> {
+            throw new IllegalStateException("rate limited");
+        })).hasMessage("rate limited");
+    }
+
+    @Test
+    void evictsLeastRecentlyReadPastMaxSymbols() {
+        cache.get("A", upstream("1"));
+        clock.advance(10);
+        cache.get("B", upstream("2"));
+        clock.advance(10);
+        cache.get("C", upstream("3"));
+        clock.advance(10);
+        cache.get("A", upstream("1"));
+        clock.advance(10);
+
+        cache.get("D", upstream("4"));
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(registry.get("prices.cache.evictions").counter().count()).isEqualTo(1);
+        calls.set(0);
+        cache.get("A", upstream("1"));
+        cache.get("B", upstream("2"));
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void refresh_alwaysCallsUpstreamAndCaches() {
+        cache.get("NVDA", upstream("900"));
+        assertThat(cache.refresh("NVDA", upstream("905"))).isEqualByComparingTo("905");
+        assertThat(cache.get("NVDA", upstream("910"))).isEqualByComparingTo("905");
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void getAll_fetchesOnlyMissingSymbolsInOneBatch() {
+        cache.get("AAPL", upstream("100"));
+        cache.get("MSFT", upstream("400"));
+        clock.advance(10_000);
+        cache.get("AAPL", upstream("101"));
+        List<List<String>> batches = new ArrayList<>();
+
+        Map<String, BigDecimal> prices = cache.getAll(List.of("AAPL", "MSFT", "NVDA", "AAPL", "XYZ"), symbols -> {
+            batches.add(symbols);
+            return Map.of("NVDA", new BigDecimal("900"));
+        }, upstream("-1"));
+
+        assertThat(batches).containsExactly(List.of("MSFT", "NVDA", "XYZ"));
+        assertThat(prices).containsOnlyKeys("AAPL", "MSFT", "NVDA");
+        assertThat(prices.get("AAPL")).isEqualByComparingTo("101");
+        assertThat(prices.get("MSFT")).isEqualByComparingTo("400");
+        assertThat(cache.get("NVDA", upstream("-1"))).isEqualByComparingTo("900");
+        assertThat(registry.get("prices.cache.requests").tag("result", "stale").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void refreshAll_bypassesTheTtl_andAFailedBatchPricesNothing() {
+        cache.get("AAPL", upstream("100"));
+        Map<String, BigDecimal> refreshed = cache.refreshAll(List.of("AAPL", "MSFT"),
+                symbols -> Map.of("AAPL", new BigDecimal("101"), "MSFT", BigDecimal.ZERO));
+
+        assertThat(refreshed).containsOnlyKeys("AAPL");
+        assertThat(refreshed.get("AAPL")).isEqualByComparingTo("101");
+        assertThat(cache.get("AAPL", upstream("-1"))).isEqualByComparingTo("101");
+
+        assertThat(cache.refreshAll(List.of("AAPL"), symbols -> {
+            throw new IllegalStateException("rate limited");
+        })).isEmpty();
+        assertThat(cache.get("AAPL", upstream("-1"))).isEqualByComparingTo("101");
+    }
+
+    @Test
+    void concurrentBatchesAndLookups_shareOneFetchPerSymbol() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger firstBatchCalls = new AtomicInteger();
+        List<List<String>> secondBatches = new CopyOnWriteArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            Future<Map<String, BigDecimal>> first = pool.submit(() -> cache.getAll(List.of("AAPL", "MSFT"), symbols -> {
+                firstBatchCalls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return Map.of("AAPL", new BigDecimal("100"), "MSFT", new BigDecimal("400"));
+            }, upstream("-1")));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            Future<Map<String, BigDecimal>> second = pool.submit(() -> cache.getAll(List.of("MSFT", "NVDA", "AAPL"), symbols -> {
+                secondBatches.add(symbols);
+                return Map.of("NVDA", new BigDecimal("900"));
+            }, upstream("-1")));
+            Future<BigDecimal> single = pool.submit(() -> cache.get("AAPL", upstream("-1")));
+            while (registry.get("prices.cache.coalesced").functionCounter().count() < 3) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).containsOnlyKeys("AAPL", "MSFT");
+            assertThat(second.get(5, TimeUnit.SECONDS)).containsOnlyKeys("AAPL", "MSFT", "NVDA");
+            assertThat(second.get().get("MSFT")).isEqualByComparingTo("400");
+            assertThat(single.get(5, TimeUnit.SECONDS)).isEqualByComparingTo("100");
+            // Only the symbol nobody was fetching went out again
+            assertThat(firstBatchCalls).hasValue(1);
+            assertThat(secondBatches).containsExactly(List.of("NVDA"));
+            assertThat(calls).hasValue(0);
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void getAsync_coalescesMissesWithoutBlocking_andFallsBackLikeGet() {
+        CompletableFuture<BigDecimal> upstream = new CompletableFuture<>();
+
+        CompletableFuture<BigDecimal> first = cache.getAsync("AAPL", symbol -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<BigDecimal> second = cache.getAsync("AAPL", asyncUpstream("-1"));
+        CompletableFuture<Map<String, BigDecimal>> batch = cache.getAllAsync(List.of("AAPL", "MSFT"),
+                symbols -> CompletableFuture.completedFuture(Map.of("MSFT", new BigDecimal("400"))), asyncUpstream("-1"));
+        assertThat(first).isNotDone();
+        assertThat(batch).isNotDone();
+
+        upstream.complete(new BigDecimal("100"));
+        assertThat(first.join()).isEqualByComparingTo("100");
+        assertThat(second.join()).isEqualByComparingTo("100");
+        assertThat(batch.join()).containsOnlyKeys("AAPL", "MSFT");
+        assertThat(calls).hasValue(1);
+        assertThat(cache.getAsync("AAPL", asyncUpstream("-1"))).isCompletedWithValue(new BigDecimal("100"));
+
+        clock.advance(10_000);
+        assertThat(cache.getAsync("AAPL", symbol -> CompletableFuture.failedFuture(new IllegalStateException("rate limited"))).join())
+                .isEqualByComparingTo("100");
+        assertThat(cache.getAllAsync(List.of("MSFT"), symbols -> CompletableFuture.failedFuture(new IllegalStateException("rate limited")),
+                asyncUpstream("-1")).join().get("MSFT")).isEqualByComparingTo("400");
+        assertThat(registry.get("prices.cache.requests").tag("result", "stale").counter().count()).isEqualTo(2);
+
+        clock.advance(60_000);
+        assertThatThrownBy(() -> cache.getAsync("AAPL",
+                symbol -> CompletableFuture.failedFuture(new IllegalStateException("rate limited"))).join())
+                .hasRootCauseMessage("rate limited");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Function<String, BigDecimal> upstream(String price) {
+        return symbol -> {
+            calls.incrementAndGet();
+            return new BigDecimal(price);
+        };
+    }
+
+    private Function<String, CompletableFuture<BigDecimal>> asyncUpstream(String price) {
+        return upstream(price).andThen(CompletableFuture::completedFuture);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(long millis) {
+            instant = instant.plus(Duration.ofMillis(millis));
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.RuleBacktestRequest;
+import com.example.stockbrokerage.dto.RuleBacktestResponse;
+import com.example.stockbrokerage.dto.RuleRequest;
+import com.example.stockbrokerage.entity.Rule;
+import com.example.stockbrokerage.entity.Rule.RuleLevel;
+import com.example.stockbrokerage.entity.Rule.RuleType;
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.repository.RuleRepository;
+import com.example.stockbrokerage.repository.TradeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RuleBacktestServiceTest {
+
+    @Test
+    void backtest_reportsVerdictDeltasAgainstActiveSet() {
+        RuleRepository ruleRepository = mock(RuleRepository.class);
+        TradeRepository tradeRepository = mock(TradeRepository.class);
+
+        Rule activeLimit = Rule.builder()
+                .id(1L).ruleName("max-qty-100").ruleType(RuleType.RISK_LIMIT).level(RuleLevel.TRADE)
+                .ruleContent("{ \"metric\": \"QUANTITY\", \"max\": 100 }").active(true).priority(1)
+                .build();
+        when(ruleRepository.findByActiveTrue()).thenReturn(List.of(activeLimit));
+
+        List<Trade> trades = new ArrayList<>();
+        for (long i = 1; i <= 200; i++) {
+            trades.add(Trade.builder().id(i).clientId(1L).symbol("AAPL").quantity((int) i)
+                    .price(BigDecimal.TEN).type(Trade.TradeType.BUY).build());
+        }
+        when(tradeRepository.findByTradeTimeBetween(any(), any(), any())).thenReturn(trades);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RuleBaseCache cache = new RuleBaseCache(ruleRepository, meterRegistry, 16, 4);
+        RuleBacktestService service = new RuleBacktestService(ruleRepository, tradeRepository, cache, 4);
+        long liveCompiles = meterRegistry.get("rules.compile.time").timer().count();
+
+        // Replace the 100-share limit with a 50-share one
+        RuleBacktestRequest request = RuleBacktestRequest.builder()
+                .excludeRuleIds(List.of(1L))
+                .candidateRules(List.of(RuleRequest.builder()
+                        .ruleName("max-qty-50").description("tighter").ruleType(RuleType.RISK_LIMIT)
+                        .level(RuleLevel.TRADE).ruleContent("{ \"metric\": \"QUANTITY\", \"max\": 50 }")
+                        .active(true).priority(1).build()))
+                .parallelism(8)
+                .build();
+
+        RuleBacktestResponse response;
+        try {
+            response = service.backtest(request);
+        } finally {
+            service.shutdown();
+        }
+
+        assertThat(response.getTradesReplayed()).isEqualTo(200);
+        // Capped at the shared pool's size
+        assertThat(response.getParallelism()).isEqualTo(4);
+        assertThat(response.getActive().getApproved()).isEqualTo(100);
+        assertThat(response.getCandidate().getApproved()).isEqualTo(50);
+        assertThat(response.getNewlyRejected()).isEqualTo(50);
+        assertThat(response.getNewlyApproved()).isZero();
+        assertThat(response.getNewlyRejectedSample()).hasSize(20).allMatch(id -> id > 50 && id <= 100);
+        assertThat(response.getCandidate().getTradesPerSecond()).isPositive();
+        // Backtest compiles stay out of the live compile timer
+        assertThat(meterRegistry.get("rules.compile.time").timer().count()).isEqualTo(liveCompiles);
+    }
+}
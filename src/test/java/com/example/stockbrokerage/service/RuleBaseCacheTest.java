@@ -0,0 +1,374 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.RuleVerdict;
+import com.example.stockbrokerage.dto.RuleVerdict.ReasonCode;
+import com.example.stockbrokerage.entity.Rule;
+import com.example.stockbrokerage.entity.Rule.RuleLevel;
+import com.example.stockbrokerage.entity.Rule.RuleType;
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.repository.RuleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link RuleBaseCache} and the cached evaluation path in {@link RuleEngineService}.
+ * <p>
+ * Compiles real DRL with Drools but mocks the repository — no Spring context, no database.
+ */
+class RuleBaseCacheTest {
+
+    private static final String TYPED_DRL = """
+            package com.example.stockbrokerage.rules.test
+            import com.example.stockbrokerage.entity.Trade
+            import com.example.stockbrokerage.dto.RuleVerdict
+            import com.example.stockbrokerage.dto.RuleVerdict.ReasonCode
+            rule "Non-positive price"
+                when
+                    Trade(price <= 0)
+                    $verdict: RuleVerdict()
+                then
+                    $verdict.reject(ReasonCode.NON_POSITIVE_PRICE);
+            end
+            """;
+
+    private static final String LEGACY_REASONS_DRL = """
+            package com.example.stockbrokerage.rules.test
+            import com.example.stockbrokerage.entity.Trade
+            global java.util.Map result
+            rule "Check Symbol Validity"
+                when
+                    Trade(symbol == null || symbol.trim().length() == 0)
+                then
+                    result.put("approved", false);
+                    ((StringBuilder)result.get("reasons")).append("Invalid symbol. ");
+            end
+            """;
+
+    private static final String MAX_QUANTITY_DRL = """
+            package com.example.stockbrokerage.rules.test
+            import com.example.stockbrokerage.entity.Trade
+            global java.util.Map result
+            rule "Max quantity %d"
+                when
+                    Trade(quantity > %d)
+                then
+                    result.put("approved", false);
+            end
+            """;
+
+    private RuleRepository ruleRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private RuleBaseCache cache;
+    private RuleEngineService ruleEngineService;
+    private final Set<Long> clientIds = new LinkedHashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        ruleRepository = mock(RuleRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new RuleBaseCache(ruleRepository, meterRegistry, 2, 4);
+        ruleEngineService = new RuleEngineService(cache);
+    }
+
+    @Test
+    void rebuildShared_swapsInNewVersion() {
+        sharedRules(rule(1L, RuleLevel.TRADE, null, 100));
+        cache.rebuildShared();
+        long first = cache.getShared().version();
+
+        cache.rebuildShared();
+
+        assertThat(cache.getShared().version()).isGreaterThan(first);
+        assertThat(meterRegistry.get("rules.version").gauge().value()).isEqualTo(cache.getShared().version());
+    }
+
+    @Test
+    void evaluateTrade_usesCompiledRulesWithoutReloading() {
+        sharedRules(rule(1L, RuleLevel.TRADE, null, 100));
+        cache.rebuildShared();
+
+        RuleVerdict small = ruleEngineService.evaluateTrade(trade(50), 1L);
+        RuleVerdict large = ruleEngineService.evaluateTrade(trade(500), 1L);
+
+        assertThat(small.isApproved()).isTrue();
+        assertThat(large.isApproved()).isFalse();
+        assertThat(meterRegistry.get("rules.cache.requests").tag("result", "hit").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void clientRules_applyOnlyToTheirClient() {
+        sharedRules();
+        clientRules(7L, rule(1L, RuleLevel.CLIENT, 7L, 100));
+        cache.rebuildShared();
+
+        assertThat(ruleEngineService.evaluateTrade(trade(500), 7L).isApproved()).isFalse();
+        assertThat(ruleEngineService.evaluateTrade(trade(500), 8L).isApproved()).isTrue();
+    }
+
+    @Test
+    void clientRuleChange_recompilesOnlyThatClientsOverlay() {
+        sharedRules(rule(1L, RuleLevel.TRADE, null, 1000));
+        clientRules(7L, rule(2L, RuleLevel.CLIENT, 7L, 100));
+        cache.rebuildShared();
+        long sharedVersion = cache.getShared().version();
+        long overlayVersion = cache.getOverlay(7L).version();
+
+        clientRules(7L, rule(2L, RuleLevel.CLIENT, 7L, 600));
+        cache.onRuleSetChanged(new RuleSetChangedEvent(2L, "UPDATE", false, Set.of(7L)));
+
+        assertThat(cache.getShared().version()).isEqualTo(sharedVersion);
+        assertThat(cache.getOverlay(7L).version()).isGreaterThan(overlayVersion);
+        assertThat(ruleEngineService.evaluateTrade(trade(500), 7L).isApproved()).isTrue();
+    }
+
+    @Test
+    void concurrentMisses_compileTheOverlayOnce() throws Exception {
+        sharedRules();
+        clientRules(7L, rule(2L, RuleLevel.CLIENT, 7L, 100));
+        cache.rebuildShared();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(ruleRepository.findByLevelAndClientIdAndActiveTrue(RuleLevel.CLIENT, 7L)).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(rule(2L, RuleLevel.CLIENT, 7L, 100));
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<RuleBaseCache.ClientOverlay> first = pool.submit(() -> cache.getOverlay(7L));
+            assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<RuleBaseCache.ClientOverlay> second = pool.submit(() -> cache.getOverlay(7L));
+            while (meterRegistry.get("rules.overlay.coalesced").functionCounter().count() < 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+            verify(ruleRepository, times(1)).findByLevelAndClientIdAndActiveTrue(RuleLevel.CLIENT, 7L);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void missThatReadRulesBeforeAChange_doesNotReplaceTheNewerOverlay() {
+        sharedRules();
+        clientRules(7L, rule(2L, RuleLevel.CLIENT, 7L, 100));
+        cache.rebuildShared();
+        AtomicBoolean changed = new AtomicBoolean();
+        when(ruleRepository.findByLevelAndClientIdAndActiveTrue(RuleLevel.CLIENT, 7L)).thenAnswer(invocation -> {
+            if (changed.compareAndSet(false, true)) {
+                // The miss has read the old rules; the change commits and is applied before it compiles
+                cache.onRuleSetChanged(new RuleSetChangedEvent(2L, "UPDATE", false, Set.of(7L)));
+                return List.of(rule(2L, RuleLevel.CLIENT, 7L, 100));
+            }
+            return List.of(rule(2L, RuleLevel.CLIENT, 7L, 600));
+        });
+
+        RuleBaseCache.ClientOverlay served = cache.getOverlay(7L);
+
+        assertThat(cache.getOverlay(7L)).isSameAs(served);
+        assertThat(ruleEngineService.evaluateTrade(trade(500), 7L).isApproved()).isTrue();
+    }
+
+    @Test
+    void overlays_areEvictedLeastRecentlyUsedFirst() {
+        sharedRules();
+        clientRules(1L, rule(11L, RuleLevel.CLIENT, 1L, 100));
+        clientRules(2L, rule(12L, RuleLevel.CLIENT, 2L, 100));
+        clientRules(3L, rule(13L, RuleLevel.CLIENT, 3L, 100));
+        cache.rebuildShared();
+
+        cache.getOverlay(1L);
+        cache.getOverlay(2L);
+        cache.getOverlay(1L);
+        cache.getOverlay(3L);
+
+        assertThat(meterRegistry.get("rules.overlay.cached").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("rules.overlay.evictions").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void typedRules_rejectWithReasonCode() {
+        Rule typed = rule(1L, RuleLevel.APPLICATION, null, 0);
+        typed.setRuleContent(TYPED_DRL);
+        sharedRules(typed);
+        cache.rebuildShared();
+
+        Trade trade = trade(10);
+        trade.setPrice(BigDecimal.ZERO);
+        RuleVerdict verdict = ruleEngineService.evaluateTrade(trade, 1L);
+
+        assertThat(verdict.isApproved()).isFalse();
+        assertThat(verdict.getReasons()).containsExactly(ReasonCode.NON_POSITIVE_PRICE);
+    }
+
+    @Test
+    void legacyMapRules_keepWorkingThroughAdapter() {
+        Rule legacy = rule(1L, RuleLevel.APPLICATION, null, 0);
+        legacy.setRuleContent(LEGACY_REASONS_DRL);
+        sharedRules(legacy);
+        cache.rebuildShared();
+
+        Trade trade = trade(10);
+        trade.setSymbol(" ");
+        RuleVerdict verdict = new RuleVerdict();
+        ruleEngineService.evaluateTrade(trade, 1L, verdict);
+
+        assertThat(verdict.isApproved()).isFalse();
+        assertThat(verdict.getReasons()).containsExactly(ReasonCode.RULE_REJECTED);
+        assertThat(verdict.describe()).isEqualTo("Invalid symbol.");
+
+        // The same verdict and pooled session are reused for the next trade
+        verdict.reset();
+        ruleEngineService.evaluateTrade(trade(10), 1L, verdict);
+        assertThat(verdict.isApproved()).isTrue();
+        assertThat(verdict.describe()).isEmpty();
+    }
+
+    @Test
+    void thresholdSpecs_runNativelyAlongsideDrl() {
+        Rule notional = rule(1L, RuleLevel.TRADE, null, 0);
+        notional.setRuleContent("""
+                { "metric": "NOTIONAL", "max": 1000, "side": "BUY", "message": "Buy notional above 1000" }
+                """);
+        Rule price = rule(2L, RuleLevel.TRADE, null, 0);
+        price.setRuleType(RuleType.PRICE_VALIDATION);
+        price.setRuleContent("{ \"metric\": \"PRICE\", \"min\": 1.00 }");
+        sharedRules(notional, price, rule(3L, RuleLevel.TRADE, null, 500));
+        cache.rebuildShared();
+
+        CompiledRules compiled = cache.getShared().rules();
+        assertThat(compiled.thresholdRuleCount()).isEqualTo(2);
+        assertThat(compiled.hasDroolsRules()).isTrue();
+
+        assertThat(ruleEngineService.evaluateTrade(trade(100), 1L).isApproved()).isTrue();
+
+        // 101 x $10 breaches the notional limit only on the buy side
+        RuleVerdict buy = ruleEngineService.evaluateTrade(trade(101), 1L);
+        assertThat(buy.getReasons()).containsExactly(ReasonCode.RISK_LIMIT_EXCEEDED);
+        assertThat(buy.describe()).isEqualTo("Buy notional above 1000");
+        Trade sell = trade(101);
+        sell.setType(Trade.TradeType.SELL);
+        assertThat(ruleEngineService.evaluateTrade(sell, 1L).isApproved()).isTrue();
+
+        // Every violated rule is reported, native and DRL alike
+        Trade cheapAndLarge = trade(600);
+        cheapAndLarge.setPrice(new BigDecimal("0.50"));
+        assertThat(ruleEngineService.evaluateTrade(cheapAndLarge, 1L).getReasons())
+                .containsExactlyInAnyOrder(ReasonCode.PRICE_OUT_OF_RANGE, ReasonCode.RULE_REJECTED);
+    }
+
+    @Test
+    void invalidThresholdSpec_failsTheBuild() {
+        Rule broken = rule(1L, RuleLevel.TRADE, null, 0);
+        broken.setRuleContent("{ \"metric\": \"VOLUME\", \"max\": 10 }");
+        sharedRules(broken);
+        cache.rebuildShared();
+
+        assertThat(cache.getShared().compilationFailed()).isTrue();
+        assertThat(ruleEngineService.evaluateTrade(trade(1), 1L).getReasons())
+                .containsExactly(ReasonCode.RULE_COMPILATION_ERROR);
+    }
+
+    @Test
+    void evaluateTrades_matchesPerTradeEvaluation() {
+        Rule notional = rule(1L, RuleLevel.TRADE, null, 0);
+        notional.setRuleContent("{ \"metric\": \"NOTIONAL\", \"max\": 1000 }");
+        sharedRules(notional, rule(2L, RuleLevel.TRADE, null, 500));
+        clientRules(7L, rule(3L, RuleLevel.CLIENT, 7L, 10));
+        cache.rebuildShared();
+
+        Trade small = trade(5);
+        Trade clientLimited = trade(20);
+        clientLimited.setClientId(7L);
+        Trade otherClient = trade(20);
+        Trade huge = trade(600);
+        List<Trade> batch = List.of(small, clientLimited, otherClient, huge);
+
+        List<RuleVerdict> verdicts = ruleEngineService.evaluateTrades(batch);
+
+        assertThat(verdicts).hasSize(4);
+        for (int i = 0; i < batch.size(); i++) {
+            RuleVerdict single = ruleEngineService.evaluateTrade(batch.get(i), batch.get(i).getClientId());
+            assertThat(verdicts.get(i).getReasons()).isEqualTo(single.getReasons());
+        }
+        assertThat(verdicts.get(0).isApproved()).isTrue();
+        assertThat(verdicts.get(1).getReasons()).containsExactly(ReasonCode.RULE_REJECTED);
+        assertThat(verdicts.get(2).isApproved()).isTrue();
+        assertThat(verdicts.get(3).getReasons())
+                .containsExactlyInAnyOrder(ReasonCode.RISK_LIMIT_EXCEEDED, ReasonCode.RULE_REJECTED);
+    }
+
+    @Test
+    void failedRebuild_keepsPreviousVersion() {
+        sharedRules(rule(1L, RuleLevel.TRADE, null, 100));
+        cache.rebuildShared();
+        long good = cache.getShared().version();
+
+        Rule broken = rule(2L, RuleLevel.TRADE, null, 100);
+        broken.setRuleContent("rule \"broken\" when then nonsense(;");
+        sharedRules(broken);
+        cache.rebuildShared();
+
+        assertThat(cache.getShared().version()).isEqualTo(good);
+        assertThat(cache.getShared().compilationFailed()).isFalse();
+        assertThat(meterRegistry.get("rules.compile.failures").counter().count()).isEqualTo(1);
+    }
+
+    private void sharedRules(Rule... tradeRules) {
+        when(ruleRepository.findByLevelAndActiveTrue(RuleLevel.APPLICATION)).thenReturn(List.of());
+        when(ruleRepository.findByLevelAndActiveTrue(RuleLevel.TRADE)).thenReturn(List.of(tradeRules));
+    }
+
+    private void clientRules(Long clientId, Rule... rules) {
+        clientIds.add(clientId);
+        when(ruleRepository.findClientIdsWithActiveClientRules()).thenReturn(List.copyOf(clientIds));
+        when(ruleRepository.findByLevelAndClientIdAndActiveTrue(RuleLevel.CLIENT, clientId)).thenReturn(List.of(rules));
+    }
+
+    private static Rule rule(Long id, RuleLevel level, Long clientId, int maxQuantity) {
+        return Rule.builder()
+                .id(id)
+                .ruleName("max-qty-" + id)
+                .description("Reject trades above " + maxQuantity + " shares")
+                .ruleType(RuleType.RISK_LIMIT)
+                .level(level)
+                .clientId(clientId)
+                .ruleContent(MAX_QUANTITY_DRL.formatted(id, maxQuantity))
+                .active(true)
+                .priority(1)
+                .build();
+    }
+
+    private static Trade trade(int quantity) {
+        return Trade.builder()
+                .clientId(1L)
+                .symbol("AAPL")
+                .quantity(quantity)
+                .price(BigDecimal.TEN)
+                .type(Trade.TradeType.BUY)
+                .orderType(Trade.OrderType.MARKET)
+                .status(Trade.TradeStatus.PENDING)
+                .build();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.dto.RuleVerdict;
+import com.example.stockbrokerage.entity.Rule;
+import com.example.stockbrokerage.entity.Rule.RuleLevel;
+import com.example.stockbrokerage.entity.Rule.RuleType;
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.repository.RuleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the same notional limit evaluated as a native threshold spec and as DRL.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.include=RuleEvaluation}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleEvaluationBenchmark {
+
+    private static final String NOTIONAL_SPEC = """
+            { "metric": "NOTIONAL", "max": 250000, "message": "Notional above 250k" }
+            """;
+
+    private static final String NOTIONAL_DRL = """
+            package com.example.stockbrokerage.rules.bench
+            import com.example.stockbrokerage.entity.Trade
+            import com.example.stockbrokerage.dto.RuleVerdict
+            import com.example.stockbrokerage.dto.RuleVerdict.ReasonCode
+            rule "Notional above 250k"
+                when
+                    Trade(price * quantity > 250000)
+                    $verdict: RuleVerdict()
+                then
+                    $verdict.reject(ReasonCode.RISK_LIMIT_EXCEEDED, "Notional above 250k");
+            end
+            """;
+
+    private static final int BATCH_SIZE = 100;
+
+    private RuleEngineService nativeEngine;
+    private RuleEngineService droolsEngine;
+    private final RuleVerdict verdict = new RuleVerdict();
+    private Trade trade;
+    private List<Trade> batch;
+
+    @Setup
+    public void setUp() {
+        nativeEngine = engineFor(NOTIONAL_SPEC);
+        droolsEngine = engineFor(NOTIONAL_DRL);
+        trade = Trade.builder()
+                .clientId(1L)
+                .symbol("AAPL")
+                .quantity(100)
+                .price(new BigDecimal("187.42"))
+                .type(Trade.TradeType.BUY)
+                .orderType(Trade.OrderType.MARKET)
+                .status(Trade.TradeStatus.PENDING)
+                .build();
+        batch = Collections.nCopies(BATCH_SIZE, trade);
+    }
+
+    @Benchmark
+    public boolean nativeThreshold() {
+        verdict.reset();
+        nativeEngine.evaluateTrade(trade, 1L, verdict);
+        return verdict.isApproved();
+    }
+
+    @Benchmark
+    public boolean droolsRule() {
+        verdict.reset();
+        droolsEngine.evaluateTrade(trade, 1L, verdict);
+        return verdict.isApproved();
+    }
+
+    /** Same DRL rule over {@value #BATCH_SIZE} trades through the bulk API; divide by batch size to compare. */
+    @Benchmark
+    public List<RuleVerdict> droolsRuleBatch() {
+        return droolsEngine.evaluateTrades(batch);
+    }
+
+    private static RuleEngineService engineFor(String content) {
+        RuleRepository repository = mock(RuleRepository.class);
+        Rule rule = Rule.builder()
+                .id(1L)
+                .ruleName("max-notional")
+                .ruleType(RuleType.RISK_LIMIT)
+                .level(RuleLevel.TRADE)
+                .ruleContent(content)
+                .active(true)
+                .priority(1)
+                .build();
+        when(repository.findByLevelAndActiveTrue(RuleLevel.APPLICATION)).thenReturn(List.of());
+        when(repository.findByLevelAndActiveTrue(RuleLevel.TRADE)).thenReturn(List.of(rule));
+        when(repository.findClientIdsWithActiveClientRules()).thenReturn(List.of());
+
+        RuleBaseCache cache = new RuleBaseCache(repository, new SimpleMeterRegistry(), 16, 4);
+        cache.rebuildShared();
+        return new RuleEngineService(cache);
+    }
+}
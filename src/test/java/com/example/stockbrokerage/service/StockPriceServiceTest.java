@@ -1,10 +1,12 @@
 package com.example.stockbrokerage.service;
 
 import com.example.stockbrokerage.client.MockYahooFinanceClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -21,7 +23,8 @@ class StockPriceServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new StockPriceService(new MockYahooFinanceClient());
+        QuoteCache quoteCache = new QuoteCache(new SimpleMeterRegistry(), true, 5_000, 1_000, 300_000, 100, 3_000, 1);
+        service = new StockPriceService(new MockYahooFinanceClient(), event -> { }, quoteCache);
     }
 
     @Test
@@ -44,6 +47,16 @@ class StockPriceServiceTest {
         assertThat(aapl).isNotEqualByComparingTo(goog);
     }
 
+    @Test
+    void asyncLookups_matchTheBlockingOnes() {
+        BigDecimal aapl = service.getCurrentPrice("AAPL");
+
+        assertThat(service.getCurrentPriceAsync("AAPL").join()).isEqualByComparingTo(aapl);
+        Map<String, BigDecimal> prices = service.getCurrentPricesAsync(List.of("AAPL", "GOOG")).join();
+        assertThat(prices).containsOnlyKeys("AAPL", "GOOG");
+        assertThat(prices.get("GOOG")).isEqualByComparingTo(service.getCurrentPrice("GOOG"));
+    }
+
     @Test
     void getQuote_containsChartData() {
         Map<String, Object> quote = service.getQuote("TQQQ");
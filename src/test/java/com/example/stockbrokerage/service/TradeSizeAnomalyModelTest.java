@@ -0,0 +1,87 @@
+package com.example.stockbrokerage.service;
+
+import com.example.stockbrokerage.entity.Trade;
+import com.example.stockbrokerage.repository.TradeSizeProfileRepository;
+import com.example.stockbrokerage.util.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TradeSizeAnomalyModelTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TradeSizeAnomalyModel model = new TradeSizeAnomalyModel(
+            mock(TradeSizeProfileRepository.class), jdbcTemplate, new SimpleMeterRegistry(), true, 0.05, 4.0, 20);
+
+    @Test
+    void scoresOnlyOnceWarm_andFlagsOrdersFarAboveTheUsualSize() {
+        Random random = new Random(3);
+        for (int i = 0; i < 20; i++) {
+            int quantity = 80 + random.nextInt(40);
+            assertThat(model.score(1L, "AAPL", Money.notional(Money.ofDollars(150), quantity), quantity).scored()).isFalse();
+            model.observe(1L, "AAPL", Money.notional(Money.ofDollars(150), quantity), quantity);
+        }
+
+        TradeSizeAnomalyModel.Assessment usual = model.score(1L, "AAPL", Money.notional(Money.ofDollars(150), 110), 110);
+        assertThat(usual.scored()).isTrue();
+        assertThat(usual.anomalous()).isFalse();
+
+        TradeSizeAnomalyModel.Assessment huge = model.score(1L, "AAPL", Money.notional(Money.ofDollars(150), 20_000), 20_000);
+        assertThat(huge.anomalous()).isTrue();
+        assertThat(huge.reason()).startsWith("Unusual trade size flagged for review");
+    }
+
+    @Test
+    void symbolHistory_scoresClientsWithoutHistory() {
+        for (long client = 1; client <= 20; client++) {
+            model.observe(client, "MSFT", Money.notional(Money.ofDollars(400), 10), 10);
+        }
+
+        TradeSizeAnomalyModel.Assessment newcomer = model.score(99L, "MSFT", Money.notional(Money.ofDollars(400), 5_000), 5_000);
+        assertThat(newcomer.anomalous()).isTrue();
+        assertThat(newcomer.reason()).contains("symbol history");
+    }
+
+    @Test
+    void scoring_neverMovesTheBaseline_onlyExecutedTradesDo() {
+        for (int i = 0; i < 19; i++) {
+            model.observe(1L, "AAPL", Money.notional(Money.ofDollars(150), 100), 100);
+        }
+        // Orders that are screened but never fill leave the profiles as they were
+        for (int i = 0; i < 100; i++) {
+            assertThat(model.score(1L, "AAPL", Money.notional(Money.ofDollars(150), 20_000), 20_000).scored()).isFalse();
+        }
+        assertThat(model.score(7L, "TSLA", Money.ofDollars(1_000), 10).scored()).isFalse();
+        assertThat(model.size()).isEqualTo(2);
+
+        // The twentieth fill warms the profile; the large orders above never counted
+        Trade fill = Trade.builder().clientId(1L).symbol("AAPL").quantity(100).price(BigDecimal.valueOf(150)).build();
+        model.onTradeExecuted(new TradeExecutedEvent(List.of(fill)));
+        assertThat(model.score(1L, "AAPL", Money.notional(Money.ofDollars(150), 20_000), 20_000).anomalous()).isTrue();
+    }
+
+    @Test
+    void persist_upsertsOnlyChangedProfiles() {
+        model.persist();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        model.observe(1L, "AAPL", Money.ofDollars(1_000), 10);
+        model.persist();
+        model.persist();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        assertThat(model.size()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.stockbrokerage.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimerWheelTest {
+
+    @Test
+    void firesEachEntryAtItsTick_acrossLevelsAndOverflow() {
+        // 4 slots x 3 levels = 64 ticks before overflow
+        HierarchicalTimerWheel<Long> wheel = new HierarchicalTimerWheel<>(10, 2, 3, 0);
+        Random random = new Random(7);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            long deadline = 10 + random.nextInt(2_000);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+
+        for (long now = 0; now <= 2_100; now += 10) {
+            long tickStart = now;
+            List<Long> fired = new ArrayList<>();
+            wheel.advance(now, fired::add);
+            // Fired in the first advance at or after the deadline, never earlier
+            assertThat(fired).allSatisfy(d -> assertThat(d).isBetween(tickStart - 9, tickStart));
+        }
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelledEntriesNeverFire() {
+        HierarchicalTimerWheel<String> wheel = new HierarchicalTimerWheel<>(1_000, 6, 4, 0);
+        HierarchicalTimerWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 5_000);
+        wheel.schedule("kept", 5_000);
+
+        assertThat(cancelled.cancel()).isTrue();
+        assertThat(cancelled.cancel()).isFalse();
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(4_999, fired::add);
+        assertThat(fired).isEmpty();
+        wheel.advance(60_000, fired::add);
+        assertThat(fired).containsExactly("kept");
+        assertThat(wheel.size()).isZero();
+    }
+}
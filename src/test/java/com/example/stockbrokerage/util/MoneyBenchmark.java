@@ -0,0 +1,94 @@
+package com.example.stockbrokerage.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * executeTrade-style pre-trade arithmetic — sum today's notionals, add the new order, compare
+ * with the daily limit and the balance — in BigDecimal versus {@link Money} units.
+ * <p>
+ * The "Units" variants keep prices as longs (as after conversion at the entity boundary);
+ * "Converted" also pays the BigDecimal → long conversion for every price.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.include=MoneyBenchmark}
+ * (add {@code -prof gc} to the JMH arguments to see allocation rates).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"10", "200"})
+    private int tradesToday;
+
+    private BigDecimal[] prices;
+    private long[] priceUnits;
+    private int[] quantities;
+    private BigDecimal dailyLimit;
+    private BigDecimal balance;
+    private long dailyLimitUnits;
+    private long balanceUnits;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        prices = new BigDecimal[tradesToday + 1];
+        priceUnits = new long[tradesToday + 1];
+        quantities = new int[tradesToday + 1];
+        for (int i = 0; i <= tradesToday; i++) {
+            prices[i] = BigDecimal.valueOf(1_000 + random.nextInt(50_000), 2);
+            priceUnits[i] = Money.of(prices[i]);
+            quantities[i] = 1 + random.nextInt(500);
+        }
+        dailyLimit = new BigDecimal("1000000000.00");
+        balance = new BigDecimal("250000.00");
+        dailyLimitUnits = Money.of(dailyLimit);
+        balanceUnits = Money.of(balance);
+    }
+
+    @Benchmark
+    public boolean bigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < tradesToday; i++) {
+            total = total.add(prices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        BigDecimal tradeValue = prices[tradesToday].multiply(BigDecimal.valueOf(quantities[tradesToday]));
+        return total.add(tradeValue).compareTo(dailyLimit) <= 0 && balance.compareTo(tradeValue) >= 0;
+    }
+
+    @Benchmark
+    public boolean moneyUnits() {
+        long total = Money.ZERO;
+        for (int i = 0; i < tradesToday; i++) {
+            total = Money.add(total, Money.notional(priceUnits[i], quantities[i]));
+        }
+        long tradeValue = Money.notional(priceUnits[tradesToday], quantities[tradesToday]);
+        return Money.add(total, tradeValue) <= dailyLimitUnits && balanceUnits >= tradeValue;
+    }
+
+    @Benchmark
+    public boolean moneyConverted() {
+        long total = Money.ZERO;
+        for (int i = 0; i < tradesToday; i++) {
+            total = Money.add(total, Money.notional(Money.of(prices[i]), quantities[i]));
+        }
+        long tradeValue = Money.notional(Money.of(prices[tradesToday]), quantities[tradesToday]);
+        return Money.add(total, tradeValue) <= Money.of(dailyLimit) && Money.of(balance) >= tradeValue;
+    }
+}
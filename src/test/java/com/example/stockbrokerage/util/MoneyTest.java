@@ -0,0 +1,35 @@
+package com.example.stockbrokerage.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void convertsBetweenBigDecimalAndUnits() {
+        assertThat(Money.of(new BigDecimal("187.42"))).isEqualTo(1_874_200L);
+        assertThat(Money.of(new BigDecimal("0.00005"))).isEqualTo(1L);   // half-up beyond 4 dp
+        assertThat(Money.of(new BigDecimal("-12.5"))).isEqualTo(-125_000L);
+        assertThat(Money.of(null)).isZero();
+        assertThat(Money.toBigDecimal(1_874_200L)).isEqualByComparingTo("187.42");
+    }
+
+    @Test
+    void notionalMatchesBigDecimalArithmetic() {
+        BigDecimal price = new BigDecimal("123.4567");
+        int quantity = 3_250;
+        long units = Money.notional(Money.of(price), quantity);
+        assertThat(Money.toBigDecimal(units)).isEqualByComparingTo(price.multiply(BigDecimal.valueOf(quantity)));
+    }
+
+    @Test
+    void overflowIsDetectedOrSaturated() {
+        assertThatThrownBy(() -> Money.notional(Long.MAX_VALUE / 2, 3)).isInstanceOf(ArithmeticException.class);
+        assertThat(Money.notionalSaturated(Long.MAX_VALUE / 2, 3)).isEqualTo(Long.MAX_VALUE);
+        assertThat(Money.notionalSaturated(-Long.MAX_VALUE / 2, 3)).isEqualTo(Long.MIN_VALUE);
+    }
+}
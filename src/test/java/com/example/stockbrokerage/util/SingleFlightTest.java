@@ -0,0 +1,159 @@
+package com.example.stockbrokerage.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, Integer> flights = new SingleFlight<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    @Test
+    void concurrentCallersShareOneCall() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        try {
+            Future<Integer> leader = pool.submit(() -> flights.execute("AAPL", this::blockingCall, 5_000));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            List<Future<Integer>> followers = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                followers.add(pool.submit(() -> flights.execute("AAPL", this::blockingCall, 5_000)));
+            }
+            while (flights.coalesced() < 5) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            for (Future<Integer> follower : followers) {
+                assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            }
+            assertThat(calls).hasValue(1);
+            assertThat(flights.isInFlight("AAPL")).isFalse();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void followersTimeOut_andFailuresReachEveryWaiter() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> leader = pool.submit(() -> flights.execute("MSFT", key -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("rate limited");
+            }, 5_000));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> flights.execute("MSFT", this::blockingCall, 10))
+                    .isInstanceOf(TimeoutException.class);
+            Future<Integer> follower = pool.submit(() -> flights.execute("MSFT", this::blockingCall, 5_000));
+            while (flights.coalesced() < 2) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("rate limited");
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("rate limited");
+            assertThat(calls).hasValue(0);
+            assertThat(flights.execute("MSFT", key -> 7, 10)).isEqualTo(7);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void executeAll_runsTheFreeKeysInOneCall_andJoinsFlightsInProgress() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> leader = pool.submit(() -> flights.execute("AAPL", this::blockingCall, 5_000));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            List<List<String>> batches = new ArrayList<>();
+
+            Map<String, CompletableFuture<Integer>> results = flights.executeAll(List.of("AAPL", "MSFT", "NVDA", "MSFT"), keys -> {
+                batches.add(keys);
+                assertThat(flights.isInFlight("MSFT")).isTrue();
+                return Map.of("MSFT", 7);
+            });
+
+            assertThat(batches).containsExactly(List.of("MSFT", "NVDA"));
+            assertThat(results).containsOnlyKeys("AAPL", "MSFT", "NVDA");
+            assertThat(results.get("MSFT")).isCompletedWithValue(7);
+            assertThat(results.get("NVDA")).isCompletedWithValue(null);
+            assertThat(results.get("AAPL")).isNotDone();
+            assertThat(flights.coalesced()).isEqualTo(1);
+            assertThat(flights.isInFlight("MSFT")).isFalse();
+
+            release.countDown();
+            assertThat(results.get("AAPL").get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            assertThat(calls).hasValue(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void executeAsync_sharesOneCallWithoutBlocking_andJoinsBlockingFlights() throws Exception {
+        CompletableFuture<Integer> upstream = new CompletableFuture<>();
+
+        CompletableFuture<Integer> leader = flights.executeAsync("AAPL", key -> {
+            calls.incrementAndGet();
+            return upstream;
+        }, 5_000);
+        CompletableFuture<Integer> follower = flights.executeAsync("AAPL", key -> CompletableFuture.completedFuture(-1), 5_000);
+        CompletableFuture<Integer> impatient = flights.executeAsync("AAPL", key -> CompletableFuture.completedFuture(-1), 10);
+        Map<String, CompletableFuture<Integer>> batch = flights.executeAllAsync(List.of("AAPL", "MSFT"),
+                keys -> CompletableFuture.completedFuture(Map.of("MSFT", 7)), 5_000);
+
+        assertThat(leader).isNotDone();
+        assertThat(batch.get("MSFT")).isCompletedWithValue(7);
+        assertThatThrownBy(() -> impatient.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+        assertThat(flights.coalesced()).isEqualTo(3);
+
+        upstream.complete(42);
+        assertThat(leader).isCompletedWithValue(42);
+        assertThat(follower).isCompletedWithValue(42);
+        assertThat(batch.get("AAPL").get(5, TimeUnit.SECONDS)).isEqualTo(42);
+        assertThat(calls).hasValue(1);
+        assertThat(flights.isInFlight("AAPL")).isFalse();
+
+        // A call that throws before returning its future fails the flight like a failed future
+        assertThatThrownBy(() -> flights.executeAsync("NVDA", key -> {
+            throw new IllegalStateException("rate limited");
+        }, 5_000).join()).hasRootCauseMessage("rate limited");
+        assertThat(flights.isInFlight("NVDA")).isFalse();
+    }
+
+    private Integer blockingCall(String key) {
+        calls.incrementAndGet();
+        started.countDown();
+        await(release);
+        return 42;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
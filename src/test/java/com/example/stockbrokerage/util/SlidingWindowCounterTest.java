@@ -0,0 +1,39 @@
+package com.example.stockbrokerage.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowCounterTest {
+
+    @Test
+    void countsAndSums_onlyEventsInsideTheWindow() {
+        // 5 slots x 100 ms = 500 ms window
+        SlidingWindowCounter counter = new SlidingWindowCounter(5, 100);
+        counter.add(1_000, 10);
+        counter.add(1_050, 20);
+        counter.add(1_250, 30);
+
+        assertThat(counter.count(1_299)).isEqualTo(3);
+        assertThat(counter.sum(1_299)).isEqualTo(60);
+
+        // Slot 1_000-1_099 leaves the window once the 1_500 slot begins
+        assertThat(counter.count(1_500)).isEqualTo(1);
+        assertThat(counter.sum(1_500)).isEqualTo(30);
+
+        // A gap longer than the window clears everything
+        assertThat(counter.count(10_000)).isZero();
+        assertThat(counter.sum(10_000)).isZero();
+    }
+
+    @Test
+    void lateTimestamps_countInTheNewestSlot() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(3, 1_000);
+        counter.add(5_000, 1);
+        counter.add(4_000, 1);
+
+        assertThat(counter.count(5_000)).isEqualTo(2);
+        assertThat(counter.count(7_999)).isEqualTo(2);
+        assertThat(counter.count(8_000)).isZero();
+    }
+}